@@ -0,0 +1,126 @@
+package com.example.lunchapp.benchmark;
+
+import com.example.lunchapp.dto.SessionHistoryEntry;
+import com.example.lunchapp.model.Restaurant;
+import com.example.lunchapp.model.Session;
+import com.example.lunchapp.model.User;
+import com.example.lunchapp.model.VotingMethod;
+import com.example.lunchapp.repository.RestaurantRepository;
+import com.example.lunchapp.repository.SessionHistoryRepository;
+import com.example.lunchapp.repository.SessionMembershipRepository;
+import com.example.lunchapp.repository.SessionRepository;
+import com.example.lunchapp.repository.UserRepository;
+import com.example.lunchapp.repository.VoteRepository;
+import com.example.lunchapp.service.SessionArchiveService;
+import com.example.lunchapp.service.SessionService;
+import com.example.lunchapp.service.voting.ApprovalPickStrategy;
+import com.example.lunchapp.service.voting.RankedChoicePickStrategy;
+import com.example.lunchapp.service.voting.VotingService;
+import com.example.lunchapp.service.voting.WeightedRandomPickStrategy;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures SessionService.endSession: picking the restaurant with each voting method and building the history entry.
+ * Repositories are stubbed, so database round trips are not part of the measurement. Ending a session drops its
+ * tally, so every call also rebuilds the tally from the stored ballots, as after a restart.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EndSessionBenchmark {
+
+    @Param({"WEIGHTED_RANDOM", "APPROVAL", "RANKED_CHOICE"})
+    private VotingMethod votingMethod;
+
+    @Param({"10", "1000"})
+    private int participants;
+
+    @Param({"100"})
+    private int candidates;
+
+    private SessionService sessionService;
+
+    private Session session;
+
+    @Setup
+    public void setUp() {
+        User creator = User.builder().id(UUID.randomUUID()).name("creator").build();
+        session = Session.builder()
+                .id(UUID.randomUUID())
+                .creator(creator)
+                .isActive(true)
+                .votingMethod(votingMethod)
+                .participants(new HashSet<>())
+                .restaurants(new HashSet<>())
+                .build();
+        List<Restaurant> restaurants = new ArrayList<>();
+        for (int i = 0; i < candidates; i++) {
+            restaurants.add(Restaurant.builder().id(UUID.randomUUID()).name("restaurant" + i).build());
+        }
+        session.getRestaurants().addAll(restaurants);
+
+        Random random = new Random(42);
+        Map<UUID, List<UUID>> ballots = new HashMap<>();
+        session.getParticipants().add(creator);
+        for (int i = 1; i < participants; i++) {
+            User user = User.builder().id(UUID.randomUUID()).name("user" + i).build();
+            session.getParticipants().add(user);
+            List<Restaurant> shuffled = new ArrayList<>(restaurants);
+            Collections.shuffle(shuffled, random);
+            ballots.put(user.getId(), shuffled.subList(0, 3).stream().map(Restaurant::getId).toList());
+        }
+
+        JdbcTemplate unused = new JdbcTemplate();
+        VoteRepository voteRepository = new VoteRepository(unused) {
+            @Override
+            public void replaceBallots(Map<UUID, Map<UUID, List<UUID>>> written) {
+            }
+
+            @Override
+            public int deleteBySession(UUID sessionId) {
+                return 0;
+            }
+
+            @Override
+            public Map<UUID, List<UUID>> findBallots(UUID sessionId) {
+                return ballots;
+            }
+        };
+        SessionMembershipRepository membershipRepository = new SessionMembershipRepository(unused) {
+            @Override
+            public int deleteLinks(UUID sessionId) {
+                return 0;
+            }
+        };
+        SessionHistoryRepository historyRepository = new SessionHistoryRepository(unused) {
+            @Override
+            public void append(SessionHistoryEntry entry) {
+            }
+        };
+        VotingService votingService = new VotingService(voteRepository,
+                List.of(new ApprovalPickStrategy(), new RankedChoicePickStrategy(), new WeightedRandomPickStrategy()));
+        sessionService = new SessionService(Stubs.noOp(SessionRepository.class), Stubs.noOp(RestaurantRepository.class),
+                Stubs.noOp(UserRepository.class), null, null, membershipRepository, votingService,
+                new SessionArchiveService(historyRepository));
+    }
+
+    @Benchmark
+    public String endSession() {
+        session.setActive(true);
+        return sessionService.endSession(session);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.lunchapp.benchmark;
+
+import com.example.lunchapp.util.AuthenticatedUser;
+import com.example.lunchapp.util.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures issuing tokens, validating them with a full parse and signature check, and verifying them through
+ * the cache the authentication filter uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private JwtUtil jwtUtil;
+
+    private String userId;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        byte[] secret = new byte[64];
+        new SecureRandom().nextBytes(secret);
+        jwtUtil = new JwtUtil();
+        // The fields are injected by Spring in the application
+        setField("secret", Base64.getEncoder().encodeToString(secret));
+        setField("cacheMaxSize", 10000);
+        Method initSigningKey = ReflectionUtils.findMethod(JwtUtil.class, "initSigningKey");
+        ReflectionUtils.makeAccessible(initSigningKey);
+        ReflectionUtils.invokeMethod(initSigningKey, jwtUtil);
+        userId = UUID.randomUUID().toString();
+        token = jwtUtil.generateToken(userId);
+    }
+
+    private void setField(String name, Object value) {
+        Field field = ReflectionUtils.findField(JwtUtil.class, name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, jwtUtil, value);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(userId);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public AuthenticatedUser verifyCached() {
+        return jwtUtil.verify(token);
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.lunchapp.benchmark;
+
+import com.example.lunchapp.model.Session;
+import com.example.lunchapp.model.User;
+import com.example.lunchapp.repository.SessionMembershipRepository;
+import com.example.lunchapp.service.ActiveSessionEngine;
+import com.example.lunchapp.service.SessionMembershipService;
+import com.example.lunchapp.util.UuidV7Generator;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the check whether a user participates in a company-wide session of 10k participants, the way the
+ * authorisation paths used to do it and through {@link SessionMembershipService}:
+ * <ul>
+ *     <li>{@code scanParticipants}: the ID scan castVote ran over the participant entities</li>
+ *     <li>{@code snapshotContains}: joinSession's copy of the session, then {@code contains} of the user entity</li>
+ *     <li>{@code loadParticipants}: a session that is not held in memory, whose participants are read from the
+ *     database and hydrated before the check</li>
+ *     <li>{@code heldSession}: the membership service for a session held in memory</li>
+ *     <li>{@code existsQuery}: the membership service for a session that is not, which runs one EXISTS query</li>
+ * </ul>
+ * Half of the checked users are participants. An embedded PostgreSQL is started unless {@code -Dbenchmark.jdbc-url}
+ * (with {@code benchmark.jdbc-user} and {@code benchmark.jdbc-password}) points to an empty database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MembershipCheckBenchmark {
+
+    private static final String SELECT_PARTICIPANTS = "SELECT u.id, u.name, u.email FROM session_users su "
+            + "JOIN app_user u ON u.id = su.user_id WHERE su.session_id = ?";
+
+    @Param("10000")
+    private int participants;
+
+    private EmbeddedPostgres postgres;
+
+    private SingleConnectionDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private ActiveSessionEngine sessionEngine;
+
+    private SessionMembershipService heldMembership;
+
+    private SessionMembershipService storedMembership;
+
+    private UUID sessionId;
+
+    private List<User> candidates;
+
+    @Setup
+    public void setUp() throws Exception {
+        String url = System.getProperty("benchmark.jdbc-url");
+        String user = System.getProperty("benchmark.jdbc-user", "postgres");
+        String password = System.getProperty("benchmark.jdbc-password", "");
+        if (url == null) {
+            postgres = EmbeddedPostgres.start();
+            url = postgres.getJdbcUrl("postgres", "postgres");
+        }
+        Flyway.configure()
+                .dataSource(url, user, password)
+                .locations("classpath:db/migration/common", "classpath:db/migration/postgresql")
+                .placeholderReplacement(false)
+                .load()
+                .migrate();
+        dataSource = new SingleConnectionDataSource(url, user, password, true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        User creator = User.builder().id(UuidV7Generator.next()).name("creator").build();
+        sessionId = UuidV7Generator.next();
+        Set<User> members = new HashSet<>();
+        candidates = new ArrayList<>();
+        List<Object[]> userRows = new ArrayList<>();
+        List<Object[]> linkRows = new ArrayList<>();
+        userRows.add(new Object[]{creator.getId(), creator.getName(), null});
+        for (int i = 0; i < participants; i++) {
+            User member = User.builder().id(UuidV7Generator.next()).name("member" + i).email("member" + i + "@example.com").build();
+            User outsider = User.builder().id(UuidV7Generator.next()).name("outsider" + i).email("outsider" + i + "@example.com").build();
+            members.add(member);
+            candidates.add(member);
+            candidates.add(outsider);
+            userRows.add(new Object[]{member.getId(), member.getName(), member.getEmail()});
+            userRows.add(new Object[]{outsider.getId(), outsider.getName(), outsider.getEmail()});
+            linkRows.add(new Object[]{sessionId, member.getId()});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO app_user (id, name, email) VALUES (?, ?, ?)", userRows);
+        jdbcTemplate.update("INSERT INTO session (id, is_active, creator_id) VALUES (?, true, ?)", sessionId, creator.getId());
+        jdbcTemplate.batchUpdate("INSERT INTO session_users (session_id, user_id) VALUES (?, ?)", linkRows);
+        jdbcTemplate.execute("VACUUM ANALYZE");
+
+        sessionEngine = new ActiveSessionEngine(null, null, null);
+        sessionEngine.register(Session.builder()
+                .id(sessionId)
+                .creator(creator)
+                .isActive(true)
+                .participants(members)
+                .restaurants(new HashSet<>())
+                .build());
+        SessionMembershipRepository membershipRepository = new SessionMembershipRepository(jdbcTemplate);
+        heldMembership = new SessionMembershipService(sessionEngine, membershipRepository);
+        storedMembership = new SessionMembershipService(new ActiveSessionEngine(null, null, null), membershipRepository);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        dataSource.destroy();
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    private User candidate() {
+        return candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()));
+    }
+
+    @Benchmark
+    public boolean scanParticipants() {
+        UUID userId = candidate().getId();
+        return sessionEngine.update(sessionId, activeSession ->
+                activeSession.getSession().getParticipants().stream().anyMatch(participant -> userId.equals(participant.getId())));
+    }
+
+    @Benchmark
+    public boolean snapshotContains() {
+        return sessionEngine.getSession(sessionId).getParticipants().contains(candidate());
+    }
+
+    @Benchmark
+    public boolean loadParticipants() {
+        User user = candidate();
+        Set<User> loaded = new HashSet<>(jdbcTemplate.query(SELECT_PARTICIPANTS, (resultSet, rowNum) -> User.builder()
+                .id(resultSet.getObject("id", UUID.class))
+                .name(resultSet.getString("name"))
+                .email(resultSet.getString("email"))
+                .build(), sessionId));
+        return loaded.contains(user);
+    }
+
+    @Benchmark
+    public boolean heldSession() {
+        return heldMembership.isParticipant(sessionId, candidate().getId());
+    }
+
+    @Benchmark
+    public boolean existsQuery() {
+        return storedMembership.isParticipant(sessionId, candidate().getId());
+    }
+}
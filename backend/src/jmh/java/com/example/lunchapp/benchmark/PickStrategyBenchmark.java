@@ -0,0 +1,109 @@
+package com.example.lunchapp.benchmark;
+
+import com.example.lunchapp.model.Restaurant;
+import com.example.lunchapp.service.voting.ApprovalPickStrategy;
+import com.example.lunchapp.service.voting.RankedChoicePickStrategy;
+import com.example.lunchapp.service.voting.VoteTally;
+import com.example.lunchapp.service.voting.WeightedRandomPickStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the former pick of endSession, a random index walked over a HashSet, with the voting strategies.
+ * Every participant casts a ballot ranking three random candidates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PickStrategyBenchmark {
+
+    @Param({"10", "1000"})
+    private int candidates;
+
+    @Param({"100"})
+    private int participants;
+
+    private Set<Restaurant> restaurantSet;
+
+    private List<Restaurant> restaurantList;
+
+    private VoteTally tally;
+
+    private List<UUID> voterIds;
+
+    private final ApprovalPickStrategy approval = new ApprovalPickStrategy();
+
+    private final RankedChoicePickStrategy rankedChoice = new RankedChoicePickStrategy();
+
+    private final WeightedRandomPickStrategy weightedRandom = new WeightedRandomPickStrategy();
+
+    @Setup
+    public void setUp() {
+        restaurantList = new ArrayList<>();
+        for (int i = 0; i < candidates; i++) {
+            restaurantList.add(Restaurant.builder().id(UUID.randomUUID()).name("restaurant" + i).build());
+        }
+        restaurantSet = new HashSet<>(restaurantList);
+
+        Random random = new Random(42);
+        tally = new VoteTally();
+        voterIds = new ArrayList<>();
+        for (int i = 0; i < participants; i++) {
+            voterIds.add(UUID.randomUUID());
+            List<Restaurant> shuffled = new ArrayList<>(restaurantList);
+            Collections.shuffle(shuffled, random);
+            tally.cast(voterIds.get(i), shuffled.subList(0, Math.min(3, shuffled.size())).stream()
+                    .map(Restaurant::getId).toList());
+        }
+    }
+
+    @Benchmark
+    public Restaurant legacyHashSetWalk() {
+        int itemIndex = new Random().nextInt(restaurantSet.size());
+        int i = 0;
+        for (Restaurant restaurant : restaurantSet) {
+            if (i == itemIndex) {
+                return restaurant;
+            }
+            i++;
+        }
+        return null;
+    }
+
+    @Benchmark
+    public Restaurant weightedRandom() {
+        return weightedRandom.pick(restaurantList, tally);
+    }
+
+    @Benchmark
+    public Restaurant approval() {
+        return approval.pick(restaurantList, tally);
+    }
+
+    @Benchmark
+    public Restaurant rankedChoice() {
+        return rankedChoice.pick(restaurantList, tally);
+    }
+
+    /**
+     * Replaces the ballot of an existing voter, which subtracts the old ballot and adds the new one.
+     */
+    @Benchmark
+    public void castVote() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        tally.cast(voterIds.get(random.nextInt(participants)),
+                List.of(restaurantList.get(random.nextInt(candidates)).getId()));
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.lunchapp.benchmark;
+
+import com.example.lunchapp.model.Restaurant;
+import com.example.lunchapp.model.Session;
+import com.example.lunchapp.model.User;
+import com.example.lunchapp.service.ActiveSessionEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures adding participants and restaurants to a session that already holds 10, 1k or 10k of them, through the
+ * engine and its per-session mailbox. Each measured batch adds 1000 new entries to a freshly built session, so the
+ * sets do not keep growing across iterations. The write-behind flush is not part of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, batchSize = SessionMutationBenchmark.BATCH_SIZE)
+@Measurement(iterations = 20, batchSize = SessionMutationBenchmark.BATCH_SIZE)
+@Fork(1)
+public class SessionMutationBenchmark {
+
+    static final int BATCH_SIZE = 1000;
+
+    @Param({"10", "1000", "10000"})
+    private int size;
+
+    private ActiveSessionEngine sessionEngine;
+
+    private UUID sessionId;
+
+    private List<User> newUsers;
+
+    private List<String> newRestaurantNames;
+
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        sessionEngine = new ActiveSessionEngine(null, null, null);
+        sessionId = UUID.randomUUID();
+        Session session = Session.builder()
+                .id(sessionId)
+                .creator(User.builder().id(UUID.randomUUID()).name("creator").build())
+                .isActive(true)
+                .participants(new HashSet<>())
+                .restaurants(new HashSet<>())
+                .build();
+        for (int i = 0; i < size; i++) {
+            session.getParticipants().add(User.builder().id(UUID.randomUUID()).name("user" + i).build());
+            session.getRestaurants().add(Restaurant.builder().id(UUID.randomUUID()).name("restaurant" + i).build());
+        }
+        sessionEngine.register(session);
+
+        // Built ahead so object creation is not measured; a warmup or measurement batch uses BATCH_SIZE of them
+        newUsers = new ArrayList<>();
+        newRestaurantNames = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            newUsers.add(User.builder().id(UUID.randomUUID()).name("new user" + i).build());
+            newRestaurantNames.add("new restaurant" + i);
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public boolean addParticipant() {
+        User user = newUsers.get(next++ % BATCH_SIZE);
+        return sessionEngine.update(sessionId, activeSession -> activeSession.addParticipant(user));
+    }
+
+    /**
+     * Adds a restaurant the way SessionService.addRestaurantAsync does, including the name check against
+     * the restaurants already submitted.
+     */
+    @Benchmark
+    public boolean addRestaurant() {
+        String name = newRestaurantNames.get(next++ % BATCH_SIZE);
+        return sessionEngine.update(sessionId, activeSession -> {
+            boolean existing = activeSession.getSession().getRestaurants().stream()
+                    .anyMatch(candidate -> candidate.getName().equals(name));
+            return !existing && activeSession.addRestaurant(Restaurant.builder().name(name).build());
+        });
+    }
+}
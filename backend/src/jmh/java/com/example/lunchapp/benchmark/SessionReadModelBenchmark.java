@@ -0,0 +1,98 @@
+package com.example.lunchapp.benchmark;
+
+import com.example.lunchapp.dto.RestaurantSummary;
+import com.example.lunchapp.dto.SessionResponse;
+import com.example.lunchapp.dto.SessionSummary;
+import com.example.lunchapp.model.Restaurant;
+import com.example.lunchapp.model.Session;
+import com.example.lunchapp.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares serving GET /sessions/{id} from the Session entity graph with serving it from the
+ * projected read model, for sessions of 10, 1k and 10k participants. Database round trips are not part of
+ * the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionReadModelBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int participants;
+
+    // Registers the java.time module like the application's mapper does
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    private Session session;
+
+    private SessionSummary summary;
+
+    private Set<UUID> participantIds;
+
+    private List<RestaurantSummary> restaurants;
+
+    @Setup
+    public void setUp() {
+        User creator = User.builder().id(UUID.randomUUID()).name("creator").email("creator@example.com").build();
+        Set<User> users = new HashSet<>();
+        users.add(creator);
+        for (int i = 1; i < participants; i++) {
+            users.add(User.builder().id(UUID.randomUUID()).name("user" + i).email("user" + i + "@example.com").build());
+        }
+        Set<Restaurant> candidates = new HashSet<>();
+        for (int i = 0; i < Math.max(1, participants / 10); i++) {
+            candidates.add(Restaurant.builder().id(UUID.randomUUID()).name("restaurant" + i).build());
+        }
+        session = Session.builder()
+                .id(UUID.randomUUID())
+                .creator(creator)
+                .isActive(true)
+                .createdAt(Instant.now())
+                .participants(users)
+                .restaurants(candidates)
+                .build();
+
+        summary = new SessionSummary(session.getId(), creator.getId(), creator.getName(), true, null, users.size(), candidates.size());
+        participantIds = users.stream().map(User::getId).collect(Collectors.toSet());
+        restaurants = candidates.stream()
+                .map(restaurant -> new RestaurantSummary(restaurant.getId(), restaurant.getName()))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public byte[] serializeEntityGraph() throws Exception {
+        return objectMapper.writeValueAsBytes(session);
+    }
+
+    @Benchmark
+    public byte[] serializeProjectedReadModel() throws Exception {
+        return objectMapper.writeValueAsBytes(SessionResponse.of(summary, participantIds, restaurants));
+    }
+
+    @Benchmark
+    public byte[] serializeReadModelFromMemory() throws Exception {
+        return objectMapper.writeValueAsBytes(SessionResponse.of(session));
+    }
+
+    /**
+     * The Lombok hashCode walks both sets, which happens whenever a Session is put into a hash-based collection.
+     */
+    @Benchmark
+    public int entityHashCode() {
+        return session.hashCode();
+    }
+}
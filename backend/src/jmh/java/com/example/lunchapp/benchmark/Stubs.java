@@ -0,0 +1,29 @@
+package com.example.lunchapp.benchmark;
+
+import java.lang.reflect.Proxy;
+
+/**
+ * Stand-ins for the repositories a benchmark does not exercise, so only in-memory work is measured.
+ */
+final class Stubs {
+
+    private Stubs() {
+    }
+
+    /**
+     * Returns an implementation of the interface whose methods do nothing and return null, false or zero.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T noOp(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Class<?> returnType = method.getReturnType();
+            if (returnType == boolean.class) {
+                return false;
+            }
+            if (returnType == int.class || returnType == long.class) {
+                return returnType == int.class ? (Object) 0 : (Object) 0L;
+            }
+            return null;
+        });
+    }
+}
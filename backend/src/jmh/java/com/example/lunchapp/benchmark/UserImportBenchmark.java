@@ -0,0 +1,106 @@
+package com.example.lunchapp.benchmark;
+
+import com.example.lunchapp.model.User;
+import com.example.lunchapp.repository.UserImportRepository;
+import com.example.lunchapp.util.UuidV7Generator;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares creating users one insert and one transaction at a time, as {@code POST /users} does, with the JDBC
+ * batches of {@link UserImportRepository}. Every operation creates one batch worth of users, and the score counts
+ * users.
+ * <p>
+ * An embedded PostgreSQL is started unless {@code -Dbenchmark.jdbc-url} (with {@code benchmark.jdbc-user} and
+ * {@code benchmark.jdbc-password}) points to an empty database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@OperationsPerInvocation(UserImportBenchmark.BATCH_SIZE)
+public class UserImportBenchmark {
+
+    static final int BATCH_SIZE = 500;
+
+    private EmbeddedPostgres postgres;
+
+    private SingleConnectionDataSource dataSource;
+
+    private Connection connection;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private UserImportRepository userImportRepository;
+
+    private long created;
+
+    @Setup
+    public void setUp() throws Exception {
+        String url = System.getProperty("benchmark.jdbc-url");
+        String user = System.getProperty("benchmark.jdbc-user", "postgres");
+        String password = System.getProperty("benchmark.jdbc-password", "");
+        if (url == null) {
+            postgres = EmbeddedPostgres.start();
+            url = postgres.getJdbcUrl("postgres", "postgres");
+        }
+        Flyway.configure()
+                .dataSource(url, user, password)
+                .locations("classpath:db/migration/common", "classpath:db/migration/postgresql")
+                .placeholderReplacement(false)
+                .load()
+                .migrate();
+
+        dataSource = new SingleConnectionDataSource(url, user, password, true);
+        dataSource.setAutoCommit(false);
+        connection = dataSource.getConnection();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        userImportRepository = new UserImportRepository(jdbcTemplate);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        dataSource.destroy();
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @Benchmark
+    public int singleInserts() throws SQLException {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            User user = nextUser();
+            jdbcTemplate.update("INSERT INTO app_user (id, name, email) VALUES (?, ?, ?)",
+                    user.getId(), user.getName(), user.getEmail());
+            connection.commit();
+        }
+        return BATCH_SIZE;
+    }
+
+    @Benchmark
+    public int batchInsert() throws SQLException {
+        List<User> users = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            users.add(nextUser());
+        }
+        int[] counts = userImportRepository.insertAll(users);
+        connection.commit();
+        return counts.length;
+    }
+
+    private User nextUser() {
+        long n = created++;
+        return User.builder().id(UuidV7Generator.next()).name("user" + n).email("user" + n + "@example.com").build();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.lunchapp.benchmark;
+
+import com.example.lunchapp.model.User;
+import com.example.lunchapp.repository.UserRepository;
+import com.example.lunchapp.service.UserSearchIndex;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures invite autocomplete against the in-memory user index: prefixes of one to five characters, as typed,
+ * over synthetic users with two-word names and emails derived from them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserSearchBenchmark {
+
+    private static final String[] SYLLABLES = {"an", "be", "cha", "do", "el", "fi", "ga", "ho", "is", "jo", "ka",
+            "li", "ma", "no", "ol", "pe", "ri", "sa", "to", "vi", "wu", "xe", "yo", "ze"};
+
+    @Param("100000")
+    public int users;
+
+    @Param("10")
+    public int limit;
+
+    private UserSearchIndex index;
+
+    private String[] queries;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        index = new UserSearchIndex(Stubs.noOp(UserRepository.class), Stubs.noOp(PlatformTransactionManager.class));
+        String[] names = new String[users];
+        for (int i = 0; i < users; i++) {
+            String first = word(random);
+            String last = word(random);
+            names[i] = capitalize(first) + " " + capitalize(last) + " " + i;
+            index.add(User.builder().id(UUID.randomUUID()).name(names[i])
+                    .email(first + "." + last + i + "@example.com").build());
+        }
+        queries = new String[1024];
+        for (int i = 0; i < queries.length; i++) {
+            String name = names[random.nextInt(users)];
+            queries[i] = name.substring(0, 1 + random.nextInt(Math.min(5, name.length())));
+        }
+    }
+
+    @Benchmark
+    public List<User> search() {
+        return index.search(queries[ThreadLocalRandom.current().nextInt(queries.length)], limit);
+    }
+
+    @Benchmark
+    public Object addAndRemove() {
+        User user = User.builder().id(UUID.randomUUID()).name("Benchmark User").email("bench@example.com").build();
+        index.add(user);
+        index.remove(user);
+        return user;
+    }
+
+    private static String word(Random random) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 2 + random.nextInt(2); i > 0; i--) {
+            word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return word.toString();
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.lunchapp.benchmark;
+
+import com.example.lunchapp.util.UuidV7Generator;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Compares the insert throughput into the restaurant table, and the state its primary key index is left in, between
+ * random version 4 IDs and the time-ordered version 7 IDs of {@link UuidV7Generator}. The table is prefilled with
+ * IDs of the same generator, so inserts land in an index of realistic size; every operation inserts one batch of
+ * restaurants in its own transaction, and the score counts rows. The tear down prints the size of the index and,
+ * if the pgstattuple extension is available, its leaf density and fragmentation.
+ * <p>
+ * An embedded PostgreSQL is started unless {@code -Dbenchmark.jdbc-url} (with {@code benchmark.jdbc-user} and
+ * {@code benchmark.jdbc-password}) points to an empty database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@OperationsPerInvocation(UuidInsertBenchmark.BATCH_SIZE)
+public class UuidInsertBenchmark {
+
+    static final int BATCH_SIZE = 1000;
+
+    @Param({"random", "v7"})
+    private String generator;
+
+    @Param({"500000"})
+    private int prefill;
+
+    private EmbeddedPostgres postgres;
+
+    private Connection connection;
+
+    private PreparedStatement insert;
+
+    private Supplier<UUID> ids;
+
+    private int inserted;
+
+    @Setup
+    public void setUp() throws Exception {
+        String url = System.getProperty("benchmark.jdbc-url");
+        String user = System.getProperty("benchmark.jdbc-user", "postgres");
+        String password = System.getProperty("benchmark.jdbc-password", "");
+        if (url == null) {
+            postgres = EmbeddedPostgres.start();
+            url = postgres.getJdbcUrl("postgres", "postgres");
+        }
+        Flyway.configure()
+                .dataSource(url, user, password)
+                .locations("classpath:db/migration/common", "classpath:db/migration/postgresql")
+                .placeholderReplacement(false)
+                .load()
+                .migrate();
+
+        connection = DriverManager.getConnection(url + "&reWriteBatchedInserts=true", user, password);
+        connection.setAutoCommit(false);
+        insert = connection.prepareStatement("INSERT INTO restaurant (id, name) VALUES (?, ?)");
+        ids = "v7".equals(generator) ? UuidV7Generator::next : UUID::randomUUID;
+        for (int i = 0; i < prefill; i += BATCH_SIZE) {
+            insertBatch();
+        }
+        try (Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(true);
+            statement.execute("VACUUM ANALYZE restaurant");
+            connection.setAutoCommit(false);
+        }
+        printIndex("after prefill");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        printIndex("after the run");
+        connection.close();
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @Benchmark
+    public int insertRestaurants() throws SQLException {
+        return insertBatch();
+    }
+
+    private int insertBatch() throws SQLException {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            insert.setObject(1, ids.get());
+            insert.setString(2, "restaurant" + inserted++);
+            insert.addBatch();
+        }
+        insert.executeBatch();
+        connection.commit();
+        return BATCH_SIZE;
+    }
+
+    private void printIndex(String when) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            try (ResultSet resultSet = statement.executeQuery(
+                    "SELECT count(*), pg_relation_size('pk_restaurant') FROM restaurant")) {
+                resultSet.next();
+                System.out.printf("%n%s IDs %s: %d rows, pk_restaurant %.2f MB%n", generator, when,
+                        resultSet.getLong(1), resultSet.getLong(2) / 1048576.0);
+            }
+            try {
+                statement.execute("CREATE EXTENSION IF NOT EXISTS pgstattuple");
+                try (ResultSet resultSet = statement.executeQuery(
+                        "SELECT avg_leaf_density, leaf_fragmentation FROM pgstatindex('pk_restaurant')")) {
+                    resultSet.next();
+                    System.out.printf("  leaf density %.1f%%, leaf fragmentation %.1f%%%n",
+                            resultSet.getDouble(1), resultSet.getDouble(2));
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                System.out.println("  pgstattuple is not available: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.lunchapp.benchmark;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares text and native uuid ID columns on PostgreSQL. The schema is built by the application's migrations: up to
+ * V3 for the text IDs, and for native IDs further through V4.4, which convert the filled tables online. The setup
+ * prints the size of every index and the time the conversion took, the benchmarks measure the point lookups of a user by ID and
+ * of the participants of a session over JDBC.
+ * <p>
+ * An embedded PostgreSQL is started unless {@code -Dbenchmark.jdbc-url} (with {@code benchmark.jdbc-user} and
+ * {@code benchmark.jdbc-password}) points to an empty database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UuidStorageBenchmark {
+
+    private static final int SESSION_SIZE = 6;
+
+    private static final int SAMPLE_SIZE = 4096;
+
+    @Param({"varchar", "uuid"})
+    private String storage;
+
+    @Param({"200000"})
+    private int users;
+
+    private EmbeddedPostgres postgres;
+
+    private Connection connection;
+
+    private PreparedStatement findUser;
+
+    private PreparedStatement findParticipants;
+
+    private Object[] userIds;
+
+    private Object[] sessionIds;
+
+    @Setup
+    public void setUp() throws Exception {
+        String url = System.getProperty("benchmark.jdbc-url");
+        String user = System.getProperty("benchmark.jdbc-user", "postgres");
+        String password = System.getProperty("benchmark.jdbc-password", "");
+        if (url == null) {
+            postgres = EmbeddedPostgres.start();
+            url = postgres.getJdbcUrl("postgres", "postgres");
+        }
+
+        migrate(url, user, password, "3");
+        connection = DriverManager.getConnection(url, user, password);
+        fill();
+        if ("uuid".equals(storage)) {
+            long start = System.nanoTime();
+            migrate(url, user, password, "4.4");
+            System.out.printf("%nV4 to V4.4 converted %d users in %d ms%n", users, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("VACUUM ANALYZE");
+        }
+        printIndexSizes();
+
+        userIds = sample("SELECT id FROM app_user ORDER BY random() LIMIT " + SAMPLE_SIZE);
+        sessionIds = sample("SELECT id FROM session ORDER BY random() LIMIT " + SAMPLE_SIZE);
+        findUser = connection.prepareStatement("SELECT id, email, name FROM app_user WHERE id = ?");
+        findParticipants = connection.prepareStatement("SELECT user_id FROM session_users WHERE session_id = ?");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        connection.close();
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @Benchmark
+    public Object findUserById() throws SQLException {
+        findUser.setObject(1, userIds[ThreadLocalRandom.current().nextInt(userIds.length)]);
+        try (ResultSet resultSet = findUser.executeQuery()) {
+            return resultSet.next() ? resultSet.getObject(1) : null;
+        }
+    }
+
+    @Benchmark
+    public int findParticipantIds() throws SQLException {
+        findParticipants.setObject(1, sessionIds[ThreadLocalRandom.current().nextInt(sessionIds.length)]);
+        int count = 0;
+        try (ResultSet resultSet = findParticipants.executeQuery()) {
+            while (resultSet.next()) {
+                resultSet.getObject(1);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void migrate(String url, String user, String password, String target) {
+        Flyway.configure()
+                .dataSource(url, user, password)
+                .locations("classpath:db/migration/common", "classpath:db/migration/postgresql")
+                .placeholderReplacement(false)
+                .target(target)
+                .load()
+                .migrate();
+    }
+
+    /**
+     * Fills the text ID schema with users in sessions of six, in random ID order as the application inserts them.
+     */
+    private void fill() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TEMPORARY TABLE seed AS SELECT n, gen_random_uuid()::text AS user_id, "
+                    + "md5('session' || (n / " + SESSION_SIZE + "))::uuid::text AS session_id "
+                    + "FROM generate_series(0, " + (users - 1) + ") n");
+            statement.execute("INSERT INTO app_user (id, name, email) "
+                    + "SELECT user_id, 'user' || n, 'user' || n || '@example.com' FROM seed");
+            statement.execute("INSERT INTO session (id, created_at, is_active, voting_method, creator_id) "
+                    + "SELECT session_id, now(), true, 'WEIGHTED_RANDOM', user_id FROM seed WHERE n % " + SESSION_SIZE + " = 0");
+            statement.execute("INSERT INTO session_users (session_id, user_id) SELECT session_id, user_id FROM seed");
+            statement.execute("DROP TABLE seed");
+        }
+    }
+
+    private void printIndexSizes() throws SQLException {
+        System.out.printf("%nIndexes with %s IDs:%n", storage);
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT c.relname, pg_relation_size(c.oid) FROM pg_index i "
+                     + "JOIN pg_class c ON c.oid = i.indexrelid "
+                     + "WHERE i.indrelid IN ('app_user'::regclass, 'session'::regclass, 'session_users'::regclass) "
+                     + "ORDER BY c.relname")) {
+            while (resultSet.next()) {
+                System.out.printf("  %-40s %8.2f MB%n", resultSet.getString(1), resultSet.getLong(2) / 1048576.0);
+            }
+        }
+    }
+
+    private Object[] sample(String sql) throws SQLException {
+        List<Object> ids = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(sql)) {
+            while (resultSet.next()) {
+                ids.add(resultSet.getObject(1));
+            }
+        }
+        return ids.toArray();
+    }
+}
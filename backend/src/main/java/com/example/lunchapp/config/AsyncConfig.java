@@ -1,27 +1,59 @@
 package com.example.lunchapp.config;
 
+import com.example.lunchapp.util.SubmissionExecutor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
-
-import java.util.concurrent.Executor;
 
 /**
  * Configuration class for asynchronous execution, it helps in high concurrency.
- *
+ * The executor is chosen with {@code async.executor.mode}: {@code BOUNDED} runs a thread pool with a bounded queue,
+ * {@code VIRTUAL} runs every task on its own virtual thread (Java 21) and falls back to {@code BOUNDED} on older JDKs.
+ * Either way, a saturated executor rejects new tasks instead of queueing them without bound.
  */
 @Configuration
 @EnableAsync
+@Log4j2
 public class AsyncConfig {
-    @Bean(name = "taskExecutor")
-    public Executor taskExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(5);
-        executor.setMaxPoolSize(10);
-        executor.setQueueCapacity(25);
-        executor.setThreadNamePrefix("AsyncThread-");
-        executor.initialize();
-        return executor;
+
+    @Bean(name = "taskExecutor", destroyMethod = "shutdown")
+    public SubmissionExecutor taskExecutor(@Value("${async.executor.mode:BOUNDED}") SubmissionExecutor.Mode mode,
+                                           @Value("${async.executor.core-pool-size:5}") int corePoolSize,
+                                           @Value("${async.executor.max-pool-size:10}") int maxPoolSize,
+                                           @Value("${async.executor.queue-capacity:25}") int queueCapacity,
+                                           @Value("${async.executor.max-in-flight:1000}") int maxInFlight) {
+        if (mode == SubmissionExecutor.Mode.VIRTUAL) {
+            SubmissionExecutor virtual = SubmissionExecutor.virtual(maxInFlight).orElse(null);
+            if (virtual != null) {
+                return virtual;
+            }
+            log.warn("Virtual threads are not available on Java {}, using the bounded executor", Runtime.version());
+        }
+        return SubmissionExecutor.bounded(corePoolSize, maxPoolSize, queueCapacity, "AsyncThread-");
+    }
+
+    /**
+     * Publishes the saturation of the submission executor: queued and running tasks, capacity and rejections.
+     */
+    @Bean
+    public MeterBinder taskExecutorMetrics(SubmissionExecutor taskExecutor) {
+        return registry -> {
+            Tags tags = Tags.of("mode", taskExecutor.getMode().name());
+            Gauge.builder("lunchapp.submissions.queued", taskExecutor, SubmissionExecutor::getQueueDepth)
+                    .description("Submissions waiting for a thread").tags(tags).register(registry);
+            Gauge.builder("lunchapp.submissions.active", taskExecutor, SubmissionExecutor::getActiveTasks)
+                    .description("Submissions running").tags(tags).register(registry);
+            Gauge.builder("lunchapp.submissions.capacity", taskExecutor, SubmissionExecutor::getCapacity)
+                    .description("Submissions that can be running or queued before new ones are rejected")
+                    .tags(tags).register(registry);
+            FunctionCounter.builder("lunchapp.submissions.rejected", taskExecutor, SubmissionExecutor::getRejectedTasks)
+                    .description("Submissions rejected because the executor was saturated").tags(tags).register(registry);
+        };
     }
 }
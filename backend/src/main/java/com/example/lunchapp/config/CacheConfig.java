@@ -0,0 +1,13 @@
+package com.example.lunchapp.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class that enables caching. The caches are Caffeine caches declared in application.properties
+ * with their size bound, time to live and statistics, which Actuator publishes as cache metrics.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+}
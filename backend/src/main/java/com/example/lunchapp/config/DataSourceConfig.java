@@ -0,0 +1,83 @@
+package com.example.lunchapp.config;
+
+import com.example.lunchapp.filter.ReadYourWritesFilter;
+import com.example.lunchapp.util.ReplicaReadAspect;
+import com.example.lunchapp.util.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration class for read replicas, active when {@code datasource.replicas.urls} lists at least one replica.
+ * The application data source then routes the read-only queries of {@code @ReadFromReplica} methods to the replicas
+ * and everything else to {@code spring.datasource.url}. Replicas use the credentials of the primary.
+ */
+@Configuration
+@ConditionalOnProperty("datasource.replicas.urls")
+@Log4j2
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource routingDataSource(HikariDataSource primaryDataSource, DataSourceProperties properties,
+                                                      @Value("${datasource.replicas.urls}") List<String> urls,
+                                                      @Value("${datasource.replicas.lag-query}") String lagQuery,
+                                                      @Value("${datasource.replicas.max-lag-ms:1000}") long maxLagMillis,
+                                                      @Value("${datasource.replicas.sticky-ms:5000}") long stickyMillis) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            HikariDataSource replica = properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+                    .url(url.trim()).build();
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            replicas.add(replica);
+        }
+        log.debug("Routing read-only queries to {} replicas", replicas.size());
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, lagQuery, maxLagMillis, stickyMillis);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public ReplicaReadAspect replicaReadAspect() {
+        return new ReplicaReadAspect();
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(ReplicaRoutingDataSource routingDataSource) {
+        return new ReadYourWritesFilter(routingDataSource);
+    }
+
+    @Bean
+    public MeterBinder replicaLagMetrics(ReplicaRoutingDataSource routingDataSource) {
+        return registry -> routingDataSource.getReplicaNames().forEach(name ->
+                Gauge.builder("lunchapp.datasource.replica.lag", routingDataSource, dataSource -> dataSource.getLagMillis(name))
+                        .description("Last measured lag of a read replica in milliseconds")
+                        .tag("replica", name)
+                        .baseUnit("milliseconds")
+                        .register(registry));
+    }
+}
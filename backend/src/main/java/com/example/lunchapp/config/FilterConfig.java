@@ -23,8 +23,8 @@ public class FilterConfig {
     public FilterRegistrationBean<ApiKeyFilter> apiKeyFilterRegistration() {
         FilterRegistrationBean<ApiKeyFilter> registrationBean = new FilterRegistrationBean<>();
         registrationBean.setFilter(apiKeyFilter);
-        registrationBean.addUrlPatterns("/sessions/*", "/users/*");
-        log.debug("Registering API Key Filter for /sessions/* and /users/*");
+        registrationBean.addUrlPatterns("/sessions/*", "/users/*", "/actuator/*");
+        log.debug("Registering API Key Filter for /sessions/*, /users/* and /actuator/*");
         return registrationBean;
     }
 }
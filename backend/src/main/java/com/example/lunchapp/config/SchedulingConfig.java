@@ -0,0 +1,12 @@
+package com.example.lunchapp.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuration class that enables scheduled background tasks, such as the write-behind flush of active sessions.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
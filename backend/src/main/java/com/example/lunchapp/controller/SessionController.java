@@ -1,25 +1,48 @@
 package com.example.lunchapp.controller;
 
 import com.example.lunchapp.dto.AddRestaurantRequest;
+import com.example.lunchapp.dto.BulkInviteRequest;
+import com.example.lunchapp.dto.InviteResult;
 import com.example.lunchapp.dto.InviteUsersRequest;
+import com.example.lunchapp.dto.SessionChanges;
+import com.example.lunchapp.dto.SessionHistoryEntry;
+import com.example.lunchapp.dto.SessionResponse;
+import com.example.lunchapp.dto.SessionSummary;
+import com.example.lunchapp.dto.SubmissionJob;
+import com.example.lunchapp.dto.Versioned;
+import com.example.lunchapp.dto.VoteRequest;
 import com.example.lunchapp.model.Restaurant;
 import com.example.lunchapp.model.Session;
+import com.example.lunchapp.model.VotingMethod;
+import com.example.lunchapp.service.RestaurantSubmissionService;
+import com.example.lunchapp.service.SessionArchiveService;
+import com.example.lunchapp.service.SessionMembershipService;
 import com.example.lunchapp.service.SessionService;
-import com.example.lunchapp.service.UserService;
+import com.example.lunchapp.util.AuthenticatedUser;
+import com.example.lunchapp.util.ETags;
 import com.example.lunchapp.util.JwtUtil;
+import com.example.lunchapp.util.NdjsonWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import lombok.extern.log4j.Log4j2;
 
 import javax.validation.Valid;
+import java.net.URI;
+import java.time.Duration;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 
 /**
@@ -30,38 +53,128 @@ import java.util.UUID;
 @Log4j2
 public class SessionController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    // Below the default async request timeout of the servlet container
+    private static final long MAX_WAIT_MILLIS = 25_000;
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    // Live sessions change at any time, so clients revalidate with their ETag; ended sessions never change
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private static final CacheControl ENDED = CacheControl.maxAge(Duration.ofDays(1)).cachePrivate();
+
     private final SessionService sessionService;
 
-    private final UserService userService;
+    private final SessionMembershipService membershipService;
+
+    private final RestaurantSubmissionService submissionService;
 
     @Autowired
     private JwtUtil jwtUtil;
 
     @Autowired
-    public SessionController(SessionService sessionService, UserService userService) {
+    private NdjsonWriter ndjsonWriter;
+
+    @Autowired
+    public SessionController(SessionService sessionService, SessionMembershipService membershipService,
+                             RestaurantSubmissionService submissionService) {
         this.sessionService = sessionService;
-        this.userService = userService;
+        this.membershipService = membershipService;
+        this.submissionService = submissionService;
     }
 
-    @Operation(summary = "Get all existing sessions")
+    /**
+     * Retrieves one page of sessions in ID order. When the page is full, the X-Next-Cursor header
+     * carries the ID to pass as {@code after} for the next page. The ETag changes with any session, so a client
+     * whose If-None-Match is still current gets NOT_MODIFIED without a query.
+     *
+     * @param after       The last session ID of the previous page, omitted for the first page.
+     * @param limit       The page size, at most 1000.
+     * @param ifNoneMatch The ETag of the client's copy of the page, if any.
+     * @return The ResponseEntity containing the session summaries of the page.
+     */
+    @Operation(summary = "Get existing sessions, one page at a time")
     @GetMapping
-    public List<Session> getAllSessions() {
-        return sessionService.getAllSessions();
+    public ResponseEntity<List<SessionSummary>> getAllSessions(@RequestParam(required = false) UUID after,
+                                                               @RequestParam(defaultValue = "100") int limit,
+                                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = sessionService.getSessionListEtag();
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<SessionSummary> sessions = sessionService.getSessions(after, pageSize);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE);
+        if (sessions.size() == pageSize) {
+            response.header(NEXT_CURSOR_HEADER, sessions.get(sessions.size() - 1).getId().toString());
+        }
+        return response.body(sessions);
+    }
+
+    @Operation(summary = "Stream all existing sessions as newline-delimited JSON")
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllSessions() {
+        log.debug("streamAllSessions API called");
+        StreamingResponseBody body = ndjsonWriter.body(sessionService::streamAllSessions);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     /**
-     * Retrieves a session by its ID.
+     * Retrieves one page of the history of ended sessions, most recently ended first. When the page is full,
+     * the X-Next-Cursor header carries the cursor to pass for the next page.
      *
-     * @param sessionId The ID of the session to retrieve.
+     * @param cursor The cursor of the previous page, omitted for the first page.
+     * @param limit  The page size, at most 1000.
+     * @return The ResponseEntity containing the history entries of the page, or BAD_REQUEST if the cursor is malformed.
+     */
+    @Operation(summary = "Get ended sessions, one page at a time")
+    @GetMapping("/history")
+    public ResponseEntity<?> getSessionHistory(@RequestParam(required = false) String cursor,
+                                               @RequestParam(defaultValue = "100") int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        try {
+            List<SessionHistoryEntry> entries = sessionService.getSessionHistory(cursor, pageSize);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (entries.size() == pageSize) {
+                response.header(NEXT_CURSOR_HEADER, SessionArchiveService.cursorOf(entries.get(entries.size() - 1)));
+            }
+            return response.body(entries);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves a session by its ID. Active sessions carry the ETag of their version; a client whose If-None-Match
+     * is still current gets NOT_MODIFIED, answered from memory without reading the session.
+     *
+     * @param sessionId   The ID of the session to retrieve.
+     * @param ifNoneMatch The ETag of the client's copy of the session, if any.
      * @return The ResponseEntity containing the session if found, or an error message if something wrong.
      */
     @Operation(summary = "Get a session by ID")
     @GetMapping("/{sessionId}")
-    public ResponseEntity<?> getSessionById(@PathVariable UUID sessionId) {
+    public ResponseEntity<?> getSessionById(@PathVariable UUID sessionId,
+                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.debug("getSessionById API called with sessionId: {}", sessionId);
+        String current = sessionService.getSessionEtag(sessionId);
+        if (ETags.matches(ifNoneMatch, current)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(current).cacheControl(REVALIDATE).build();
+        }
         try {
-            Session session = sessionService.getSessionById(sessionId);
-            return ResponseEntity.ok(session);
+            Versioned<SessionResponse> session = sessionService.getVersionedSessionResponse(sessionId);
+            if (!session.getValue().isActive()) {
+                return ResponseEntity.ok().cacheControl(ENDED).body(session.getValue());
+            }
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(REVALIDATE);
+            if (session.getEtag() != null) {
+                response.eTag(session.getEtag());
+            }
+            return response.body(session.getValue());
         } catch (RuntimeException e) {
             log.error("Error fetching session with sessionId: {}", sessionId, e);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
@@ -69,23 +182,71 @@ public class SessionController {
     }
 
 
+    /**
+     * Streams participant-joined, restaurant-added and session-ended events of a session as server-sent events.
+     * A reconnecting client passes the last event ID it has seen, in the Last-Event-ID header or the after parameter,
+     * and receives only the events it missed.
+     *
+     * @param sessionId   The ID of the session to follow.
+     * @param lastEventId The Last-Event-ID header sent by reconnecting clients.
+     * @param after       The last event ID seen, for clients that cannot set the header.
+     * @return The event stream, or an error message if the session is not found or not active.
+     */
+    @Operation(summary = "Stream the changes of a session")
+    @GetMapping(value = "/{sessionId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> streamSessionEvents(@PathVariable UUID sessionId,
+                                                 @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                                                 @RequestParam(value = "after", required = false) Long after) {
+        long cursor = lastEventId != null ? lastEventId : (after != null ? after : 0L);
+        log.debug("streamSessionEvents API called with sessionId: {} after: {}", sessionId, cursor);
+        try {
+            SseEmitter emitter = sessionService.subscribeToSessionEvents(sessionId, cursor);
+            return ResponseEntity.ok(emitter);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Error subscribing to session with sessionId: {}", sessionId, e);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the changes of a session after the given sequence, so a client refreshes by the size of the change
+     * rather than the size of the session. With {@code waitMs}, a client that has seen every change is answered
+     * when the next one happens, or with no changes once the wait is over.
+     *
+     * @param sessionId The ID of the session.
+     * @param since     The last event sequence the client has seen, 0 for all changes.
+     * @param waitMs    The longest time to wait for the next change, at most 25 seconds; 0 answers at once.
+     * @return The changes and the cursor to send next, or NOT_FOUND if the session is not found.
+     */
+    @Operation(summary = "Get the changes of a session after a sequence")
+    @GetMapping("/{sessionId}/changes")
+    public CompletableFuture<ResponseEntity<?>> getSessionChanges(@PathVariable UUID sessionId,
+                                                                  @RequestParam(defaultValue = "0") long since,
+                                                                  @RequestParam(defaultValue = "0") long waitMs) {
+        log.debug("getSessionChanges API called with sessionId: {} since: {} waitMs: {}", sessionId, since, waitMs);
+        try {
+            CompletableFuture<SessionChanges> changes = sessionService.getSessionChanges(sessionId, since,
+                    Math.max(0, Math.min(waitMs, MAX_WAIT_MILLIS)));
+            return changes.thenApply(ResponseEntity::ok);
+        } catch (RuntimeException e) {
+            log.error("Error fetching changes of session with sessionId: {}", sessionId, e);
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage()));
+        }
+    }
+
     @Operation(summary = "Creates a new session")
     @PostMapping("/create")
-    public ResponseEntity<?> createSession() {
+    public ResponseEntity<?> createSession(@RequestParam(defaultValue = "WEIGHTED_RANDOM") VotingMethod votingMethod) {
         try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            String userId;
-            if (authentication != null) {
-                log.info("Authentication details: {}", authentication);
-                userId = authentication.getName();  // Ensure this is not null or incorrect
-                log.info("User ID from Authentication: {}", userId);
-            } else {
+            if (SecurityContextHolder.getContext().getAuthentication() == null) {
                 log.warn("No Authentication object could be retrieved from SecurityContext");
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
 
-            UUID creatorId = UUID.fromString(userId);
-            Session newSession = sessionService.createSession(creatorId);
+            UUID creatorId = AuthenticatedUser.currentUserId();
+            Session newSession = sessionService.createSession(creatorId, votingMethod);
 
             log.info("Session created for creatorId: {}", creatorId);
             return ResponseEntity.ok(newSession);
@@ -111,8 +272,7 @@ public class SessionController {
     public ResponseEntity<?> inviteUser(@PathVariable UUID sessionId, @Valid @RequestBody InviteUsersRequest request,
                                         BindingResult bindingResult) {
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UUID userId = UUID.fromString(authentication.getName());
+        UUID userId = AuthenticatedUser.currentUserId();
 
         // validate the param
         if (bindingResult.hasErrors()) {
@@ -140,19 +300,59 @@ public class SessionController {
         }
     }
 
+    /**
+     * Invite several users to a session in one call.
+     *
+     * @param sessionId     the UUID of the session to invite the users to
+     * @param request       the request object containing the invitee IDs and names
+     * @param bindingResult the binding result of the request validation
+     * @return a ResponseEntity with one result per invitee
+     */
+    @Operation(summary = "Invite several users to a session")
+    @PostMapping("/{sessionId}/invite/bulk")
+    public ResponseEntity<?> inviteUsers(@PathVariable UUID sessionId, @Valid @RequestBody BulkInviteRequest request,
+                                         BindingResult bindingResult) {
+
+        UUID userId = AuthenticatedUser.currentUserId();
+
+        // validate the param
+        if (bindingResult.hasErrors()) {
+            return ResponseEntity.badRequest().body(bindingResult.getAllErrors());
+        }
+        if (request.getInviteeIds().isEmpty() && request.getInviteeNames().isEmpty()) {
+            return ResponseEntity.badRequest().body("No invitees given");
+        }
+
+        log.debug("bulk invite API called for session Id {} with {} ids and {} names",
+                sessionId, request.getInviteeIds().size(), request.getInviteeNames().size());
+
+        try {
+            List<InviteResult> results = sessionService.inviteUsersToSession(sessionId, userId,
+                    request.getInviteeIds(), request.getInviteeNames());
+            return ResponseEntity.ok(results);
+        } catch (IllegalStateException e) {
+            // if inviter is not the creator of this session
+            log.error("Bulk invitation error for session Id {}, inviter Id {}", sessionId, userId, e);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Error occurred while bulk inviting users for session Id {}, inviter Id {}", sessionId, userId, e);
+            if ("Session not found".equals(e.getMessage())) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+            }
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred");
+        }
+    }
+
     @PostMapping("/api/joinSession")
     public ResponseEntity<?> joinSession(@RequestParam UUID sessionId) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UUID userId = UUID.fromString(authentication.getName());
+        UUID userId = AuthenticatedUser.currentUserId();
 
         try {
-            Session session = sessionService.getSessionById(sessionId);
-
-            if (!session.isActive()) {
+            if (!sessionService.isSessionActive(sessionId)) {
                 return ResponseEntity.badRequest().body("Session is not active");
             }
 
-            if (!session.getParticipants().contains(userService.getUserById(userId))) {
+            if (!membershipService.isParticipant(sessionId, userId)) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body("User is not invited to this session");
             }
 
@@ -168,7 +368,8 @@ public class SessionController {
      *
      * @param sessionId the unique identifier for the session
      * @param request the request containing the details of the restaurant to be added
-     * @return a ResponseEntity object indicating the success or failure of the operation
+     * @return ACCEPTED with the pending submission job, whose status is polled at the Location header,
+     * or TOO_MANY_REQUESTS with a Retry-After header if the submission executor is saturated
      */
     @Operation(summary = "Submit a restaurant to a session")
     @PostMapping("/{sessionId}/restaurants")
@@ -177,16 +378,76 @@ public class SessionController {
             return ResponseEntity.badRequest().body(bindingResult.getAllErrors());
         }
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UUID userId = UUID.fromString(authentication.getName());
+        UUID userId = AuthenticatedUser.currentUserId();
 
         Restaurant restaurant = Restaurant.builder()
                 .name(request.getRestaurantName())
                 .build();
 
         log.debug("addRestaurant is called for session Id {} and request {}", sessionId, request);
-        sessionService.addRestaurantAsync(sessionId, userId, restaurant);
-        return ResponseEntity.ok().build();
+        try {
+            SubmissionJob job = submissionService.submit(sessionId, userId, restaurant);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/sessions/" + sessionId + "/restaurants/jobs/" + job.getJobId()))
+                    .body(job);
+        } catch (TaskRejectedException e) {
+            log.warn("Rejected restaurant submission for session Id {} by user {}", sessionId, userId);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .body("Too many submissions in progress, please retry");
+        }
+    }
+
+    /**
+     * Retrieves the status of a restaurant submission.
+     *
+     * @param sessionId the unique identifier for the session
+     * @param jobId     the job ID returned by the submission
+     * @return the caller's submission job, or NOT_FOUND if it is unknown, expired or submitted by another user
+     */
+    @Operation(summary = "Get the status of a restaurant submission")
+    @GetMapping("/{sessionId}/restaurants/jobs/{jobId}")
+    public ResponseEntity<?> getSubmissionJob(@PathVariable UUID sessionId, @PathVariable UUID jobId) {
+        try {
+            return ResponseEntity.ok(submissionService.getJob(sessionId, AuthenticatedUser.currentUserId(), jobId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Casts or replaces the caller's ballot in a session.
+     *
+     * @param sessionId     the unique identifier for the session
+     * @param request       the request containing the restaurants voted for, most preferred first
+     * @param bindingResult the binding result of the request validation
+     * @return a ResponseEntity object indicating the success or failure of the vote
+     */
+    @Operation(summary = "Vote for restaurants of a session")
+    @PostMapping("/{sessionId}/votes")
+    public ResponseEntity<?> castVote(@PathVariable UUID sessionId, @Valid @RequestBody VoteRequest request, BindingResult bindingResult) {
+        if (bindingResult.hasErrors()) {
+            return ResponseEntity.badRequest().body(bindingResult.getAllErrors());
+        }
+
+        UUID userId = AuthenticatedUser.currentUserId();
+
+        log.debug("castVote is called for session Id {} by user {}", sessionId, userId);
+        try {
+            sessionService.castVote(sessionId, userId, request.getRestaurantIds());
+            return ResponseEntity.ok().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            log.error("Illegal vote for session Id {} by user {}", sessionId, userId, e);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Error occurred while voting in session Id {} by user {}", sessionId, userId, e);
+            if ("Session not found".equals(e.getMessage())) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+            }
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred");
+        }
     }
 
     /**
@@ -202,8 +463,7 @@ public class SessionController {
     @PostMapping("/{sessionId}/end")
     public ResponseEntity<?> endSession(@PathVariable UUID sessionId) {
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UUID userId = UUID.fromString(authentication.getName());
+        UUID userId = AuthenticatedUser.currentUserId();
 
         log.debug("End session is called for session Id {} by user {}", sessionId, userId);
         try {
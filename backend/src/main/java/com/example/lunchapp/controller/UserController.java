@@ -1,17 +1,32 @@
 package com.example.lunchapp.controller;
 
+import com.example.lunchapp.dto.UserImportResult;
 import com.example.lunchapp.model.User;
+import com.example.lunchapp.service.UserImportService;
 import com.example.lunchapp.service.UserService;
+import com.example.lunchapp.util.ETags;
 import com.example.lunchapp.util.JwtUtil;
+import com.example.lunchapp.util.NdjsonWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import lombok.extern.log4j.Log4j2;
 
 import javax.validation.Valid;
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 import java.util.UUID;
 
@@ -24,36 +39,112 @@ import java.util.UUID;
 @Log4j2
 public class UserController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private static final int MAX_SEARCH_RESULTS = 50;
+
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
     private final UserService userService;
 
+    private final ObjectMapper objectMapper;
+
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, ObjectMapper objectMapper) {
         this.userService = userService;
+        this.objectMapper = objectMapper;
     }
 
     @Autowired
     private JwtUtil jwtUtil;
 
-    @Operation(summary = "Get all users")
+    @Autowired
+    private NdjsonWriter ndjsonWriter;
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Value("${users.cache-max-age-seconds:60}")
+    private long userMaxAgeSeconds;
+
+    /**
+     * Retrieves one page of users in ID order. When the page is full, the X-Next-Cursor header
+     * carries the ID to pass as {@code after} for the next page.
+     *
+     * @param after The last user ID of the previous page, omitted for the first page.
+     * @param limit The page size, at most 1000.
+     * @return ResponseEntity<List<User>> The HTTP response containing the users of the page.
+     */
+    @Operation(summary = "Get users, one page at a time")
     @GetMapping
-    public List<User> getAllUsers() {
-        log.debug("Get all users called");
-        return userService.getAllUsers();
+    public ResponseEntity<List<User>> getAllUsers(@RequestParam(required = false) UUID after,
+                                                  @RequestParam(defaultValue = "100") int limit) {
+        log.debug("Get all users called after {} with limit {}", after, limit);
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<User> users = userService.getUsers(after, pageSize);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (users.size() == pageSize) {
+            response.header(NEXT_CURSOR_HEADER, users.get(users.size() - 1).getId().toString());
+        }
+        return response.body(users);
     }
 
+    @Operation(summary = "Stream all users as newline-delimited JSON")
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllUsers() {
+        log.debug("Stream all users called");
+        StreamingResponseBody body = ndjsonWriter.body(userService::streamAllUsers);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Searches users by the prefix of their name, of a word of their name, or of their email, ignoring case and
+     * accents. Meant to be called on every keystroke, it is answered from memory.
+     *
+     * @param q     The prefix typed so far.
+     * @param limit The maximum number of users to return, at most 50.
+     * @return ResponseEntity<List<User>> The HTTP response containing the matching users, name matches first.
+     */
+    @Operation(summary = "Search users by name or email prefix")
+    @GetMapping("/search")
+    public ResponseEntity<List<User>> searchUsers(@RequestParam String q,
+                                                  @RequestParam(defaultValue = "10") int limit) {
+        log.debug("Search users called with {} and limit {}", q, limit);
+        int size = Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS));
+        return ResponseEntity.ok(userService.searchUsers(q, size));
+    }
+
+    /**
+     * Retrieves a user by ID. Users only change by being deleted, so the response may be cached for a short while
+     * and is then revalidated with its ETag, the digest of the user's JSON representation.
+     *
+     * @param id          The ID of the user to retrieve.
+     * @param ifNoneMatch The ETag of the client's copy of the user, if any.
+     * @return ResponseEntity<User> The HTTP response containing the user, NOT_MODIFIED if the client's copy is current,
+     * or an error response if an exception occurred.
+     */
     @Operation(summary = "Get users by id")
     @GetMapping("/{id}")
-    public ResponseEntity<User> getUserById(@PathVariable UUID id) {
+    public ResponseEntity<User> getUserById(@PathVariable UUID id,
+                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.debug("Getting user api called by ID: {}", id);
         User user = null;
+        String etag;
         try {
             user = userService.getUserById(id);
+            etag = ETags.digest(objectMapper.writeValueAsBytes(user));
         } catch (Exception e) {
             log.error("An error occurred while getting user with ID: {}", id, e);
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
+        CacheControl cacheControl = CacheControl.maxAge(Duration.ofSeconds(userMaxAgeSeconds)).cachePrivate();
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
         log.info("Retrieved user by ID: {}", id);
-        return new ResponseEntity<>(user, HttpStatus.OK);
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(user);
     }
 
     /**
@@ -99,6 +190,44 @@ public class UserController {
         return ResponseEntity.ok().header("Authorization", "Bearer " + token).body(createdUser);
     }
 
+    /**
+     * Creates users in bulk from a CSV file of name and email, optionally with a header line naming the columns.
+     * The file is read and written in batches while the response streams one result per row as NDJSON, so the client
+     * has to read the response while it is still uploading, as curl does.
+     *
+     * @param body   The CSV file, UTF-8 encoded.
+     * @param tokens Whether to issue a JWT for every created user.
+     * @return ResponseEntity<StreamingResponseBody> The HTTP response streaming the result of every row.
+     */
+    @Operation(summary = "Import users from CSV")
+    @PostMapping(value = "/import", consumes = TEXT_CSV_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importUsersCsv(InputStream body,
+                                                                @RequestParam(defaultValue = "false") boolean tokens) {
+        log.debug("Import users from CSV called, tokens {}", tokens);
+        return importUsers(body, UserImportService.Format.CSV, tokens);
+    }
+
+    /**
+     * Creates users in bulk from newline-delimited JSON objects with name and email, like {@link #importUsersCsv}.
+     *
+     * @param body   The NDJSON file, UTF-8 encoded.
+     * @param tokens Whether to issue a JWT for every created user.
+     * @return ResponseEntity<StreamingResponseBody> The HTTP response streaming the result of every row.
+     */
+    @Operation(summary = "Import users from newline-delimited JSON")
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importUsersNdjson(InputStream body,
+                                                                   @RequestParam(defaultValue = "false") boolean tokens) {
+        log.debug("Import users from NDJSON called, tokens {}", tokens);
+        return importUsers(body, UserImportService.Format.NDJSON, tokens);
+    }
+
+    private ResponseEntity<StreamingResponseBody> importUsers(InputStream body, UserImportService.Format format, boolean tokens) {
+        StreamingResponseBody response = ndjsonWriter.<UserImportResult>body(results -> userImportService.importUsers(
+                new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)), format, tokens, results));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(response);
+    }
+
     @Operation(summary = "Delete existing user")
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteUser(@PathVariable UUID id) {
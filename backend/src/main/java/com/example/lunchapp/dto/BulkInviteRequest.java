@@ -0,0 +1,25 @@
+package com.example.lunchapp.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.validation.constraints.Size;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+
+/**
+ * The {@code BulkInviteRequest} class carries the users to invite to a session in one call,
+ * identified by ID, by name, or both.
+ */
+@Getter
+@Setter
+public class BulkInviteRequest {
+
+    @Size(max = 500, message = "At most 500 invitee Ids can be sent at once")
+    private List<UUID> inviteeIds = new ArrayList<>();
+
+    @Size(max = 500, message = "At most 500 invitee names can be sent at once")
+    private List<String> inviteeNames = new ArrayList<>();
+}
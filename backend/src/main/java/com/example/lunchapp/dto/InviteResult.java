@@ -0,0 +1,18 @@
+package com.example.lunchapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * The InviteResult class reports the outcome for one invitee of a bulk invite.
+ * {@code invitee} echoes the ID or name as it was sent, {@code userId} is null if no user was found.
+ */
+@Getter
+@AllArgsConstructor
+public class InviteResult {
+    private final String invitee;
+    private final UUID userId;
+    private final InviteStatus status;
+}
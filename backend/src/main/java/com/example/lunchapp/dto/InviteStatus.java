@@ -0,0 +1,10 @@
+package com.example.lunchapp.dto;
+
+/**
+ * The outcome of inviting one user to a session.
+ */
+public enum InviteStatus {
+    ADDED,
+    ALREADY_PARTICIPANT,
+    NOT_FOUND
+}
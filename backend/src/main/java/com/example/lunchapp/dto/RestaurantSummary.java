@@ -0,0 +1,16 @@
+package com.example.lunchapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * The RestaurantSummary class is the read model of a restaurant submitted to a session.
+ */
+@Getter
+@AllArgsConstructor
+public class RestaurantSummary {
+    private final UUID id;
+    private final String name;
+}
@@ -0,0 +1,19 @@
+package com.example.lunchapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * The SessionChanges class is one delta of a session's change feed: the events after the client's cursor and the
+ * cursor to send next. If {@code resync} is set, the events the client missed are no longer available; it has to
+ * read the session again and continue from the returned cursor.
+ */
+@Getter
+@AllArgsConstructor
+public class SessionChanges {
+    private final List<SessionEvent> events;
+    private final long cursor;
+    private final boolean resync;
+}
@@ -0,0 +1,26 @@
+package com.example.lunchapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * The SessionEvent class represents one change to a session. Events of a session are numbered by a
+ * monotonically increasing sequence, which clients send back as their resume cursor.
+ * For participant and restaurant events {@code targetId} and {@code name} describe the added user or restaurant,
+ * for {@code SESSION_ENDED} the name is the picked restaurant.
+ */
+@Builder
+@Getter
+@AllArgsConstructor
+public class SessionEvent {
+    private final long sequence;
+    private final SessionEventType type;
+    private final UUID sessionId;
+    private final UUID targetId;
+    private final String name;
+    private final Instant occurredAt;
+}
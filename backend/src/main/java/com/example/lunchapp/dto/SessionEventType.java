@@ -0,0 +1,10 @@
+package com.example.lunchapp.dto;
+
+/**
+ * The kinds of change that are pushed to clients following a session.
+ */
+public enum SessionEventType {
+    PARTICIPANT_JOINED,
+    RESTAURANT_ADDED,
+    SESSION_ENDED
+}
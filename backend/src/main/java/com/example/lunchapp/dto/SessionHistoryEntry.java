@@ -0,0 +1,30 @@
+package com.example.lunchapp.dto;
+
+import com.example.lunchapp.model.VotingMethod;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The SessionHistoryEntry class is the archived record of an ended session: who took part, which restaurants were
+ * candidates, which one was picked and when. {@code createdAt} is null for sessions created before it was recorded.
+ */
+@Builder
+@Getter
+@AllArgsConstructor
+public class SessionHistoryEntry {
+    private final UUID id;
+    private final UUID creatorId;
+    private final String creatorName;
+    private final VotingMethod votingMethod;
+    private final UUID pickedRestaurantId;
+    private final String pickedRestaurantName;
+    private final List<UserSummary> participants;
+    private final List<RestaurantSummary> candidates;
+    private final Instant createdAt;
+    private final Instant endedAt;
+}
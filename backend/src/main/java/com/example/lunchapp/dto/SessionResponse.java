@@ -1,17 +1,77 @@
 package com.example.lunchapp.dto;
 
+import com.example.lunchapp.model.Restaurant;
+import com.example.lunchapp.model.Session;
+import com.example.lunchapp.model.User;
 import lombok.Builder;
 import lombok.Getter;
-import lombok.Setter;
 
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
+/**
+ * The SessionResponse class is the read model of a single session: its summary, the IDs of its participants
+ * and the restaurants submitted to it.
+ */
 @Builder
 @Getter
-@Setter
 public class SessionResponse {
-    private String sessionId;
-    private UUID creatorId;
-    private Set<UUID> participants;
+    private final UUID id;
+    private final UUID creatorId;
+    private final String creatorName;
+    private final boolean active;
+    private final String pickedRestaurant;
+    private final Set<UUID> participants;
+    private final List<RestaurantSummary> restaurants;
+
+    /**
+     * Builds the response from projected rows.
+     */
+    public static SessionResponse of(SessionSummary summary, Set<UUID> participants, List<RestaurantSummary> restaurants) {
+        return SessionResponse.builder()
+                .id(summary.getId())
+                .creatorId(summary.getCreatorId())
+                .creatorName(summary.getCreatorName())
+                .active(summary.isActive())
+                .pickedRestaurant(summary.getPickedRestaurant())
+                .participants(participants)
+                .restaurants(restaurants)
+                .build();
+    }
+
+    /**
+     * Builds the response from a session held in memory.
+     */
+    public static SessionResponse of(Session session) {
+        User creator = session.getCreator();
+        Restaurant picked = session.getPickedRestaurant();
+        return SessionResponse.builder()
+                .id(session.getId())
+                .creatorId(creator != null ? creator.getId() : null)
+                .creatorName(creator != null ? creator.getName() : null)
+                .active(session.isActive())
+                .pickedRestaurant(picked != null ? picked.getName() : null)
+                .participants(session.getParticipants().stream().map(User::getId).collect(Collectors.toSet()))
+                .restaurants(session.getRestaurants().stream()
+                        .map(restaurant -> new RestaurantSummary(restaurant.getId(), restaurant.getName()))
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    /**
+     * Builds the response of an ended session from its archived record.
+     */
+    public static SessionResponse of(SessionHistoryEntry entry) {
+        return SessionResponse.builder()
+                .id(entry.getId())
+                .creatorId(entry.getCreatorId())
+                .creatorName(entry.getCreatorName())
+                .active(false)
+                .pickedRestaurant(entry.getPickedRestaurantName())
+                .participants(entry.getParticipants().stream().map(UserSummary::getId).collect(Collectors.toSet()))
+                .restaurants(entry.getCandidates())
+                .build();
+    }
 }
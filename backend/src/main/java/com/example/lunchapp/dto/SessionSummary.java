@@ -0,0 +1,22 @@
+package com.example.lunchapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * The SessionSummary class is the read model of a session in listings. It is built directly by a JPQL
+ * projection, so no Session entity, participant or restaurant is loaded into the persistence context.
+ */
+@Getter
+@AllArgsConstructor
+public class SessionSummary {
+    private final UUID id;
+    private final UUID creatorId;
+    private final String creatorName;
+    private final boolean active;
+    private final String pickedRestaurant;
+    private final long participantCount;
+    private final long restaurantCount;
+}
@@ -0,0 +1,28 @@
+package com.example.lunchapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * The SubmissionJob class tracks one asynchronous restaurant submission. Jobs are immutable;
+ * a status change replaces the job in the {@link com.example.lunchapp.service.SubmissionJobStore}.
+ * {@code restaurantId} is set once the restaurant is added, {@code message} explains a failed submission.
+ */
+@Builder(toBuilder = true)
+@Getter
+@AllArgsConstructor
+public class SubmissionJob {
+    private final UUID jobId;
+    private final UUID sessionId;
+    private final UUID userId;
+    private final String restaurantName;
+    private final SubmissionStatus status;
+    private final UUID restaurantId;
+    private final String message;
+    private final Instant createdAt;
+    private final Instant updatedAt;
+}
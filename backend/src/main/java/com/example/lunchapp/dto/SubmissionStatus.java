@@ -0,0 +1,11 @@
+package com.example.lunchapp.dto;
+
+/**
+ * The state of an asynchronous restaurant submission. A submission stays pending until the added restaurant is committed.
+ */
+public enum SubmissionStatus {
+    PENDING,
+    ADDED,
+    ALREADY_SUBMITTED,
+    FAILED
+}
@@ -0,0 +1,22 @@
+package com.example.lunchapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * The UserImportResult class reports the outcome for one row of a bulk user import. {@code line} is the row's line
+ * number in the uploaded file, {@code userId} is set if the user was created, {@code message} explains why a row is
+ * invalid, and {@code token} is the new user's JWT if tokens were requested.
+ */
+@Getter
+@AllArgsConstructor
+public class UserImportResult {
+    private final long line;
+    private final String name;
+    private final UUID userId;
+    private final UserImportStatus status;
+    private final String message;
+    private final String token;
+}
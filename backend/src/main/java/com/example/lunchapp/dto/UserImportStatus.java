@@ -0,0 +1,10 @@
+package com.example.lunchapp.dto;
+
+/**
+ * The outcome of importing one row of a bulk user import.
+ */
+public enum UserImportStatus {
+    CREATED,
+    DUPLICATE,
+    INVALID
+}
@@ -0,0 +1,16 @@
+package com.example.lunchapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * The UserSummary class is the read model of a user: its ID and name, without the email.
+ */
+@Getter
+@AllArgsConstructor
+public class UserSummary {
+    private final UUID id;
+    private final String name;
+}
@@ -0,0 +1,15 @@
+package com.example.lunchapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The Versioned class pairs a read model with the entity tag of the version it reflects.
+ * The tag is null if the read model is not versioned.
+ */
+@Getter
+@AllArgsConstructor
+public class Versioned<T> {
+    private final T value;
+    private final String etag;
+}
@@ -0,0 +1,23 @@
+package com.example.lunchapp.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+
+/**
+ * The {@code VoteRequest} class carries a participant's ballot: the restaurants voted for, most preferred first.
+ */
+@Getter
+@Setter
+public class VoteRequest {
+
+    @NotEmpty(message = "At least one restaurant Id must be sent")
+    @Size(max = 100, message = "At most 100 restaurant Ids can be sent at once")
+    private List<UUID> restaurantIds = new ArrayList<>();
+}
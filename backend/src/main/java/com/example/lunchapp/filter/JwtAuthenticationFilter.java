@@ -1,5 +1,6 @@
 package com.example.lunchapp.filter;
 
+import com.example.lunchapp.util.AuthenticatedUser;
 import com.example.lunchapp.util.JwtUtil;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -11,11 +12,13 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.Collections;
 
 @Log4j2
 public class JwtAuthenticationFilter extends BasicAuthenticationFilter {
 
+    private static final String BEARER_PREFIX = "Bearer ";
+
     private JwtUtil jwtUtil;
 
     public JwtAuthenticationFilter(AuthenticationManager authenticationManager, JwtUtil jwtUtil) {
@@ -28,23 +31,20 @@ public class JwtAuthenticationFilter extends BasicAuthenticationFilter {
             throws IOException, ServletException {
 
         String header = request.getHeader("Authorization");
-        log.debug("Header is : {}", header);
 
-        if (header == null || !header.startsWith("Bearer ")) {
+        if (header == null || !header.startsWith(BEARER_PREFIX)) {
             chain.doFilter(request, response);
             return;
         }
 
-        String token = header.replace("Bearer ", "");
-        log.debug("token is: {}", token);
+        String token = header.substring(BEARER_PREFIX.length());
         try {
-            if (jwtUtil.validateToken(token)) {
-                String username = jwtUtil.getUsernameFromToken(token);
-                log.debug("username is: {}", username);
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(username, null, new ArrayList<>());
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-            }
+            AuthenticatedUser user = jwtUtil.verify(token);
+            log.debug("Authenticated user id {}", user.getId());
+            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(user, null, Collections.emptyList());
+            SecurityContextHolder.getContext().setAuthentication(authentication);
         } catch (Exception e) {
+            log.debug("Rejected bearer token: {}", e.getMessage());
             SecurityContextHolder.clearContext();
         }
 
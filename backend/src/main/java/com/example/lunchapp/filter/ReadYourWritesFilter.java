@@ -0,0 +1,42 @@
+package com.example.lunchapp.filter;
+
+import com.example.lunchapp.util.ReplicaRoutingDataSource;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * This filter sends the reads of a user to the primary database while the user changes something and for the sticky
+ * period after, so the user never reads a replica that has not caught up with their own change yet.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final ReplicaRoutingDataSource routingDataSource;
+
+    public ReadYourWritesFilter(ReplicaRoutingDataSource routingDataSource) {
+        this.routingDataSource = routingDataSource;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (SAFE_METHODS.contains(request.getMethod())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        routingDataSource.stickCurrentUserToPrimary();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            // Restart the period: the change may have been committed just now
+            routingDataSource.stickCurrentUserToPrimary();
+        }
+    }
+}
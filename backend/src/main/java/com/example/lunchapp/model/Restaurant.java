@@ -1,7 +1,8 @@
 package com.example.lunchapp.model;
 
+import com.example.lunchapp.util.UuidV7Generator;
 import lombok.*;
-import org.hibernate.annotations.Type;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 import java.util.UUID;
@@ -16,8 +17,8 @@ import java.util.UUID;
 @Entity
 public class Restaurant {
     @Id
-    @GeneratedValue
-    @Type(type = "uuid-char")
+    @GeneratedValue(generator = UuidV7Generator.NAME)
+    @GenericGenerator(name = UuidV7Generator.NAME, strategy = "com.example.lunchapp.util.UuidV7Generator")
     private UUID id;
 
     private String name;
@@ -1,9 +1,11 @@
 package com.example.lunchapp.model;
 
+import com.example.lunchapp.util.UuidV7Generator;
 import lombok.*;
-import org.hibernate.annotations.Type;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
+import java.time.Instant;
 import java.util.*;
 
 /**
@@ -16,8 +18,8 @@ import java.util.*;
 @Entity
 public class Session {
     @Id
-    @GeneratedValue
-    @Type(type = "uuid-char")
+    @GeneratedValue(generator = UuidV7Generator.NAME)
+    @GenericGenerator(name = UuidV7Generator.NAME, strategy = "com.example.lunchapp.util.UuidV7Generator")
     private UUID id;
 
     @OneToMany(fetch = FetchType.EAGER)
@@ -50,4 +52,10 @@ public class Session {
 
     private boolean isActive = false;
 
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private VotingMethod votingMethod = VotingMethod.WEIGHTED_RANDOM;
+
+    private Instant createdAt;
+
 }
@@ -1,10 +1,11 @@
 package com.example.lunchapp.model;
 
+import com.example.lunchapp.util.UuidV7Generator;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
-import org.hibernate.annotations.Type;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -23,8 +24,8 @@ import java.util.UUID;
 @Entity(name = "AppUser")
 public class User {
     @Id
-    @GeneratedValue
-    @Type(type = "uuid-char")
+    @GeneratedValue(generator = UuidV7Generator.NAME)
+    @GenericGenerator(name = UuidV7Generator.NAME, strategy = "com.example.lunchapp.util.UuidV7Generator")
     private UUID id;
 
     @NotBlank(message = "Name is mandatory")
@@ -0,0 +1,37 @@
+package com.example.lunchapp.model;
+
+import com.example.lunchapp.util.UuidV7Generator;
+import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+
+import javax.persistence.*;
+import java.util.UUID;
+
+/**
+ * The Vote class represents one entry of a participant's ballot in a session.
+ * A ballot is stored as one row per restaurant, ordered by preference.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "votes", indexes = @Index(name = "idx_votes_session_user", columnList = "session_id, user_id"))
+public class Vote {
+    @Id
+    @GeneratedValue(generator = UuidV7Generator.NAME)
+    @GenericGenerator(name = UuidV7Generator.NAME, strategy = "com.example.lunchapp.util.UuidV7Generator")
+    private UUID id;
+
+    @Column(name = "session_id", nullable = false)
+    private UUID sessionId;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "restaurant_id", nullable = false)
+    private UUID restaurantId;
+
+    @Column(nullable = false)
+    private int preference;
+}
@@ -0,0 +1,19 @@
+package com.example.lunchapp.model;
+
+/**
+ * The VotingMethod enum lists the ways a session can pick its restaurant from the participants' votes.
+ */
+public enum VotingMethod {
+    /**
+     * The restaurant approved by most participants wins, ties are broken at random.
+     */
+    APPROVAL,
+    /**
+     * Instant-runoff over the participants' ranked ballots.
+     */
+    RANKED_CHOICE,
+    /**
+     * A restaurant is drawn at random, weighted by the number of approvals it received.
+     */
+    WEIGHTED_RANDOM
+}
@@ -2,8 +2,13 @@ package com.example.lunchapp.repository;
 
 import com.example.lunchapp.model.Restaurant;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import java.util.List;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
 import java.util.UUID;
 
 /**
@@ -12,4 +17,15 @@ import java.util.UUID;
 @Repository
 public interface RestaurantRepository extends JpaRepository<Restaurant, UUID> {
     Restaurant findByName(String name);
+
+    /**
+     * Deletes the given restaurants with one bulk statement.
+     *
+     * @param ids the IDs of the restaurants to delete
+     * @return the number of deleted restaurants
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from Restaurant r where r.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<UUID> ids);
 }
@@ -0,0 +1,123 @@
+package com.example.lunchapp.repository;
+
+import com.example.lunchapp.dto.SessionEvent;
+import com.example.lunchapp.dto.SessionEventType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The SessionEventRepository stores the change feed of sessions in the session_event table, one row per event,
+ * and reads it back in sequence order. Rows are never updated.
+ */
+@Repository
+public class SessionEventRepository {
+
+    private static final String INSERT = "INSERT INTO session_event (session_id, sequence_number, type, target_id, "
+            + "name, occurred_at) VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    static final String SELECT_AFTER = "SELECT session_id, sequence_number, type, target_id, name, occurred_at "
+            + "FROM session_event WHERE session_id = ? AND sequence_number > ? ORDER BY sequence_number LIMIT ?";
+
+    static final String SELECT_LAST_SEQUENCE =
+            "SELECT max(sequence_number) FROM session_event WHERE session_id = ?";
+
+    static final String SELECT_LAST = "SELECT session_id, sequence_number, type, target_id, name, occurred_at "
+            + "FROM session_event WHERE session_id = ? ORDER BY sequence_number DESC LIMIT 1";
+
+    private static final String DELETE_BEFORE = "DELETE FROM session_event WHERE occurred_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final RowMapper<SessionEvent> rowMapper = this::mapRow;
+
+    @Autowired
+    public SessionEventRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts the given events in one JDBC batch. Events that are already stored are ignored,
+     * so a retried write does not fail.
+     *
+     * @param events the events to insert
+     */
+    public void insertAll(List<SessionEvent> events) {
+        List<Object[]> rows = new ArrayList<>(events.size());
+        for (SessionEvent event : events) {
+            rows.add(new Object[]{event.getSessionId(), event.getSequence(), event.getType().name(), event.getTargetId(),
+                    event.getName(), toTimestamp(event.getOccurredAt())});
+        }
+        jdbcTemplate.batchUpdate(INSERT, rows);
+    }
+
+    /**
+     * Finds the events of a session after the given sequence, oldest first.
+     *
+     * @param sessionId the ID of the session
+     * @param after     the sequence to continue after
+     * @param limit     the maximum number of events to return
+     * @return the events
+     */
+    public List<SessionEvent> findAfter(UUID sessionId, long after, int limit) {
+        return jdbcTemplate.query(SELECT_AFTER, rowMapper, sessionId, after, limit);
+    }
+
+    /**
+     * Returns the sequence of the last stored event of a session.
+     *
+     * @param sessionId the ID of the session
+     * @return the sequence, or 0 if no event of the session is stored
+     */
+    public long findLastSequence(UUID sessionId) {
+        Long last = jdbcTemplate.queryForObject(SELECT_LAST_SEQUENCE, Long.class, sessionId);
+        return last == null ? 0 : last;
+    }
+
+    /**
+     * Returns the last stored event of a session.
+     *
+     * @param sessionId the ID of the session
+     * @return the event, or null if no event of the session is stored
+     */
+    public SessionEvent findLast(UUID sessionId) {
+        List<SessionEvent> last = jdbcTemplate.query(SELECT_LAST, rowMapper, sessionId);
+        return last.isEmpty() ? null : last.get(0);
+    }
+
+    /**
+     * Deletes the events that occurred before the given time.
+     *
+     * @param cutoff the time before which events are deleted
+     * @return the number of deleted events
+     */
+    public int deleteOlderThan(Instant cutoff) {
+        return jdbcTemplate.update(DELETE_BEFORE, toTimestamp(cutoff));
+    }
+
+    private SessionEvent mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        return SessionEvent.builder()
+                .sessionId(resultSet.getObject("session_id", UUID.class))
+                .sequence(resultSet.getLong("sequence_number"))
+                .type(SessionEventType.valueOf(resultSet.getString("type")))
+                .targetId(resultSet.getObject("target_id", UUID.class))
+                .name(resultSet.getString("name"))
+                .occurredAt(resultSet.getObject("occurred_at", OffsetDateTime.class).toInstant())
+                .build();
+    }
+
+    private static OffsetDateTime toTimestamp(Instant instant) {
+        return instant.truncatedTo(ChronoUnit.MILLIS).atOffset(ZoneOffset.UTC);
+    }
+}
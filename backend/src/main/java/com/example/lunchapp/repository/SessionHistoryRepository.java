@@ -0,0 +1,212 @@
+package com.example.lunchapp.repository;
+
+import com.example.lunchapp.dto.RestaurantSummary;
+import com.example.lunchapp.dto.SessionHistoryEntry;
+import com.example.lunchapp.dto.UserSummary;
+import com.example.lunchapp.model.VotingMethod;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * The SessionHistoryRepository appends the records of ended sessions to the session_history table and pages
+ * through them, newest first. Rows are never updated.
+ * <p>
+ * The table is created by the migrations. On PostgreSQL it is range partitioned by month of {@code ended_at}; the
+ * partition of the current and the next month are created ahead, and any other month on demand.
+ */
+@Repository
+@Log4j2
+public class SessionHistoryRepository {
+
+    private static final String INSERT = "INSERT INTO session_history (id, creator_id, creator_name, voting_method, "
+            + "picked_restaurant_id, picked_restaurant_name, participants, candidates, created_at, ended_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT = "SELECT id, creator_id, creator_name, voting_method, picked_restaurant_id, "
+            + "picked_restaurant_name, participants, candidates, created_at, ended_at FROM session_history ";
+
+    private static final String SELECT_FIRST_PAGE = SELECT + "ORDER BY ended_at DESC, id DESC LIMIT ?";
+
+    static final String SELECT_PAGE_BEFORE = SELECT
+            + "WHERE (ended_at, id) < (?, ?) ORDER BY ended_at DESC, id DESC LIMIT ?";
+
+    static final String SELECT_BY_ID = SELECT + "WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Set<YearMonth> partitions = ConcurrentHashMap.newKeySet();
+
+    private final RowMapper<SessionHistoryEntry> rowMapper = this::mapRow;
+
+    private boolean partitioned;
+
+    @Autowired
+    public SessionHistoryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    void detectPartitioning() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        partitioned = "PostgreSQL".equals(product);
+        createUpcomingPartitions();
+    }
+
+    /**
+     * Creates the partitions of the current and the next month ahead of time, so appends do not run DDL.
+     */
+    @Scheduled(cron = "${session.history.partition-cron:0 0 3 * * *}", zone = "UTC")
+    public void createUpcomingPartitions() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        ensurePartition(current);
+        ensurePartition(current.plusMonths(1));
+    }
+
+    /**
+     * Appends the record of an ended session. Its end time is stored with millisecond precision.
+     *
+     * @param entry the record to append
+     */
+    public void append(SessionHistoryEntry entry) {
+        OffsetDateTime endedAt = toTimestamp(entry.getEndedAt());
+        ensurePartition(YearMonth.from(endedAt));
+        jdbcTemplate.update(INSERT,
+                entry.getId(),
+                entry.getCreatorId(),
+                entry.getCreatorName(),
+                entry.getVotingMethod().name(),
+                entry.getPickedRestaurantId(),
+                entry.getPickedRestaurantName(),
+                write(entry.getParticipants()),
+                write(entry.getCandidates()),
+                entry.getCreatedAt() == null ? null : toTimestamp(entry.getCreatedAt()),
+                endedAt);
+    }
+
+    /**
+     * Finds one page of records, newest first.
+     *
+     * @param beforeEndedAt the end time of the last record of the previous page, or null for the first page
+     * @param beforeId      the ID of the last record of the previous page, or null for the first page
+     * @param limit         the maximum number of records to return
+     * @return the records of the page
+     */
+    public List<SessionHistoryEntry> findPage(Instant beforeEndedAt, UUID beforeId, int limit) {
+        if (beforeEndedAt == null || beforeId == null) {
+            return jdbcTemplate.query(SELECT_FIRST_PAGE, rowMapper, limit);
+        }
+        return jdbcTemplate.query(SELECT_PAGE_BEFORE, rowMapper, toTimestamp(beforeEndedAt), beforeId, limit);
+    }
+
+    /**
+     * Finds the record of an ended session.
+     *
+     * @param sessionId the ID of the session
+     * @return the record, or null if the session has not been archived
+     */
+    public SessionHistoryEntry findById(UUID sessionId) {
+        List<SessionHistoryEntry> entries = jdbcTemplate.query(SELECT_BY_ID, rowMapper, sessionId);
+        return entries.isEmpty() ? null : entries.get(0);
+    }
+
+    /**
+     * Returns the name of the partition holding the given month.
+     */
+    static String partitionName(YearMonth month) {
+        return String.format("session_history_y%04dm%02d", month.getYear(), month.getMonthValue());
+    }
+
+    /**
+     * Returns the DDL creating the partition of the given month; bounds are UTC month starts, upper bound exclusive.
+     */
+    static String partitionDdl(YearMonth month) {
+        return "CREATE TABLE IF NOT EXISTS " + partitionName(month) + " PARTITION OF session_history FOR VALUES FROM ('"
+                + month.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC) + "') TO ('"
+                + month.plusMonths(1).atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC) + "')";
+    }
+
+    private void ensurePartition(YearMonth month) {
+        if (!partitioned || partitions.contains(month)) {
+            return;
+        }
+        // Run on a connection of its own: DDL inside the caller's transaction would be rolled back with it
+        // while the month stays cached as created
+        DataSource dataSource = jdbcTemplate.getDataSource();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(partitionDdl(month));
+            partitions.add(month);
+            log.debug("Created session history partition {}", partitionName(month));
+        } catch (SQLException e) {
+            throw jdbcTemplate.getExceptionTranslator().translate("create partition " + partitionName(month), null, e);
+        }
+    }
+
+    private SessionHistoryEntry mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        OffsetDateTime createdAt = resultSet.getObject("created_at", OffsetDateTime.class);
+        return SessionHistoryEntry.builder()
+                .id(resultSet.getObject("id", UUID.class))
+                .creatorId(resultSet.getObject("creator_id", UUID.class))
+                .creatorName(resultSet.getString("creator_name"))
+                .votingMethod(VotingMethod.valueOf(resultSet.getString("voting_method")))
+                .pickedRestaurantId(resultSet.getObject("picked_restaurant_id", UUID.class))
+                .pickedRestaurantName(resultSet.getString("picked_restaurant_name"))
+                .participants(read(resultSet.getString("participants"),
+                        node -> new UserSummary(UUID.fromString(node.get("id").asText()), node.get("name").asText(null))))
+                .candidates(read(resultSet.getString("candidates"),
+                        node -> new RestaurantSummary(UUID.fromString(node.get("id").asText()), node.get("name").asText(null))))
+                .createdAt(createdAt == null ? null : createdAt.toInstant())
+                .endedAt(resultSet.getObject("ended_at", OffsetDateTime.class).toInstant())
+                .build();
+    }
+
+    private String write(List<?> summaries) {
+        try {
+            return objectMapper.writeValueAsString(summaries);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not serialise session history", e);
+        }
+    }
+
+    private <T> List<T> read(String json, Function<JsonNode, T> mapper) throws SQLException {
+        try {
+            List<T> summaries = new ArrayList<>();
+            objectMapper.readTree(json).forEach(node -> summaries.add(mapper.apply(node)));
+            return summaries;
+        } catch (JsonProcessingException e) {
+            throw new SQLException("Corrupt session history row", e);
+        }
+    }
+
+    private static OffsetDateTime toTimestamp(Instant instant) {
+        return instant.truncatedTo(ChronoUnit.MILLIS).atOffset(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.lunchapp.repository;
+
+import com.example.lunchapp.model.Restaurant;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The SessionMembershipRepository writes rows of the session_users and session_restaurants join tables,
+ * and the restaurants submitted to sessions, directly with JDBC batches, without loading the owning Session graph.
+ */
+@Repository
+public class SessionMembershipRepository {
+
+    private static final String INSERT_PARTICIPANT =
+            "INSERT INTO session_users (session_id, user_id) VALUES (?, ?) ON CONFLICT DO NOTHING";
+
+    private static final String INSERT_RESTAURANT =
+            "INSERT INTO session_restaurants (session_id, restaurant_id) VALUES (?, ?) ON CONFLICT DO NOTHING";
+
+    private static final String INSERT_NEW_RESTAURANT =
+            "INSERT INTO restaurant (id, name) VALUES (?, ?) ON CONFLICT DO NOTHING";
+
+    static final String EXISTS_PARTICIPANT =
+            "SELECT EXISTS (SELECT 1 FROM session_users WHERE session_id = ? AND user_id = ?)";
+
+    static final String DELETE_PARTICIPANTS = "DELETE FROM session_users WHERE session_id = ?";
+
+    static final String DELETE_RESTAURANTS = "DELETE FROM session_restaurants WHERE session_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public SessionMembershipRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts the given participant and restaurant links in one transaction, one JDBC batch per table.
+     * Links that already exist are ignored.
+     *
+     * @param participants the user IDs to link, keyed by session ID
+     * @param restaurants  the restaurant IDs to link, keyed by session ID
+     */
+    @Transactional
+    public void insertLinks(Map<UUID, List<UUID>> participants, Map<UUID, List<UUID>> restaurants) {
+        batchInsert(INSERT_PARTICIPANT, participants);
+        batchInsert(INSERT_RESTAURANT, restaurants);
+    }
+
+    /**
+     * Inserts restaurants that were given their ID in memory, in one JDBC batch.
+     * Restaurants that already exist are ignored, so a retried flush does not fail.
+     *
+     * @param restaurants the restaurants to insert
+     */
+    @Transactional
+    public void insertRestaurants(List<Restaurant> restaurants) {
+        List<Object[]> rows = restaurants.stream()
+                .map(restaurant -> new Object[]{restaurant.getId(), restaurant.getName()})
+                .toList();
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_NEW_RESTAURANT, rows);
+        }
+    }
+
+    /**
+     * Tells whether a user is linked to a session as a participant, with one lookup in the primary key of
+     * session_users.
+     *
+     * @param sessionId the ID of the session
+     * @param userId    the ID of the user
+     * @return true if the link exists
+     */
+    public boolean existsParticipant(UUID sessionId, UUID userId) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(EXISTS_PARTICIPANT, Boolean.class, sessionId, userId));
+    }
+
+    /**
+     * Deletes all restaurant links of one session.
+     *
+     * @param sessionId the ID of the session
+     * @return the number of deleted links
+     */
+    @Transactional
+    public int deleteRestaurantLinks(UUID sessionId) {
+        return jdbcTemplate.update(DELETE_RESTAURANTS, sessionId);
+    }
+
+    /**
+     * Deletes all participant and restaurant links of one session.
+     *
+     * @param sessionId the ID of the session
+     * @return the number of deleted links
+     */
+    @Transactional
+    public int deleteLinks(UUID sessionId) {
+        return jdbcTemplate.update(DELETE_PARTICIPANTS, sessionId) + deleteRestaurantLinks(sessionId);
+    }
+
+    private void batchInsert(String sql, Map<UUID, List<UUID>> links) {
+        List<Object[]> rows = links.entrySet().stream()
+                .flatMap(entry -> entry.getValue().stream()
+                        .map(targetId -> new Object[]{entry.getKey(), targetId}))
+                .toList();
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, rows);
+        }
+    }
+}
@@ -1,10 +1,25 @@
 package com.example.lunchapp.repository;
 
+import com.example.lunchapp.dto.RestaurantSummary;
+import com.example.lunchapp.dto.SessionSummary;
 import com.example.lunchapp.model.Session;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 
 /**
@@ -12,6 +27,12 @@ import java.util.UUID;
  */
 @Repository
 public interface SessionRepository extends JpaRepository<Session, UUID> {
+
+    String SUMMARY_SELECT = "select new com.example.lunchapp.dto.SessionSummary(s.id, c.id, c.name, s.isActive, pr.name, "
+            + "(select count(p) from Session sp join sp.participants p where sp = s), "
+            + "(select count(r) from Session sr join sr.restaurants r where sr = s)) "
+            + "from Session s join s.creator c left join s.pickedRestaurant pr ";
+
     @EntityGraph(attributePaths = {"restaurants"})
     Session findWithRestaurantsById(UUID sessionId);
 
@@ -28,4 +49,53 @@ public interface SessionRepository extends JpaRepository<Session, UUID> {
     @EntityGraph(attributePaths = {"pickedRestaurant"})
     Session findWithPickedRestaurantById(UUID sessionId);
 
+    /**
+     * Finds the first page of session summaries, in ID order.
+     *
+     * @param pageable the page size
+     * @return the projected sessions
+     */
+    @Query(SUMMARY_SELECT + "order by s.id")
+    List<SessionSummary> findSummaries(Pageable pageable);
+
+    /**
+     * Finds the next page of session summaries after the given ID, in ID order.
+     *
+     * @param afterId  the last ID of the previous page
+     * @param pageable the page size
+     * @return the projected sessions whose ID sorts after the given one
+     */
+    @Query(SUMMARY_SELECT + "where s.id > :afterId order by s.id")
+    List<SessionSummary> findSummariesAfter(@Param("afterId") UUID afterId, Pageable pageable);
+
+    /**
+     * Streams all session summaries in ID order from a database cursor. Must be consumed inside a transaction.
+     *
+     * @return the stream of projected sessions
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(SUMMARY_SELECT + "order by s.id")
+    Stream<SessionSummary> streamSummaries();
+
+    @Query(SUMMARY_SELECT + "where s.id = :sessionId")
+    SessionSummary findSummaryById(@Param("sessionId") UUID sessionId);
+
+    /**
+     * Deletes a session row without loading the session. Its link rows must be deleted first.
+     *
+     * @param sessionId the ID of the session
+     * @return the number of deleted sessions
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from Session s where s.id = :sessionId")
+    int deleteSession(@Param("sessionId") UUID sessionId);
+
+    @Query("select p.id from Session s join s.participants p where s.id = :sessionId")
+    Set<UUID> findParticipantIds(@Param("sessionId") UUID sessionId);
+
+    @Query("select new com.example.lunchapp.dto.RestaurantSummary(r.id, r.name) "
+            + "from Session s join s.restaurants r where s.id = :sessionId")
+    List<RestaurantSummary> findRestaurantSummaries(@Param("sessionId") UUID sessionId);
+
 }
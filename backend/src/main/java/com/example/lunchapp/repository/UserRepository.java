@@ -1,9 +1,24 @@
 package com.example.lunchapp.repository;
 
 import com.example.lunchapp.model.User;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 /**
  * The SessionRepository interface provides CRUD operations for managing User entities.
@@ -11,6 +26,64 @@ import java.util.UUID;
 @Repository
 public interface UserRepository extends JpaRepository<User, UUID> {
 
+    String USERS_BY_ID = "usersById";
+
+    String USERS_BY_NAME = "usersByName";
+
+    /**
+     * Finds a user by ID, served from the {@value #USERS_BY_ID} cache. Unknown IDs are not cached.
+     */
+    @Override
+    @Cacheable(cacheNames = USERS_BY_ID, unless = "#result == null")
+    Optional<User> findById(UUID id);
+
+    /**
+     * Finds a user by name, served from the {@value #USERS_BY_NAME} cache. Unknown names are not cached.
+     */
+    @Cacheable(cacheNames = USERS_BY_NAME, unless = "#result == null")
     User findByName(String name);
+
+    /**
+     * Saves a user and puts it into both caches. Users are never renamed, so no stale name entry is left behind.
+     */
+    @Override
+    @Caching(put = {
+            @CachePut(cacheNames = USERS_BY_ID, key = "#result.id"),
+            @CachePut(cacheNames = USERS_BY_NAME, key = "#result.name")
+    })
+    <S extends User> S save(S user);
+
+    /**
+     * Deletes a user and evicts it from both caches. Users must be deleted through this method,
+     * {@code deleteById} does not know the name to evict.
+     */
+    @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = USERS_BY_ID, key = "#p0.id"),
+            @CacheEvict(cacheNames = USERS_BY_NAME, key = "#p0.name")
+    })
+    void delete(User user);
+
+    List<User> findByNameIn(Collection<String> names);
+
+    List<User> findAllByOrderByIdAsc(Pageable pageable);
+
+    /**
+     * Finds the next page of users after the given ID, in ID order.
+     *
+     * @param afterId  the last ID of the previous page
+     * @param pageable the page size
+     * @return the users whose ID sorts after the given one
+     */
+    List<User> findByIdGreaterThanOrderByIdAsc(UUID afterId, Pageable pageable);
+
+    /**
+     * Streams all users in ID order from a database cursor. Must be consumed inside a transaction.
+     *
+     * @return the stream of users
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select u from AppUser u order by u.id")
+    Stream<User> streamAllByOrderByIdAsc();
 }
 
@@ -0,0 +1,87 @@
+package com.example.lunchapp.repository;
+
+import com.example.lunchapp.util.UuidV7Generator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The VoteRepository writes and reads the ballots of the votes table directly with JDBC batches.
+ * A ballot is replaced as a whole: its old rows are deleted and the new ones inserted in one transaction.
+ */
+@Repository
+public class VoteRepository {
+
+    static final String DELETE_BALLOT = "DELETE FROM votes WHERE session_id = ? AND user_id = ?";
+
+    static final String DELETE_BY_SESSION = "DELETE FROM votes WHERE session_id = ?";
+
+    private static final String INSERT_VOTE =
+            "INSERT INTO votes (id, session_id, user_id, restaurant_id, preference) VALUES (?, ?, ?, ?, ?)";
+
+    static final String SELECT_BALLOTS =
+            "SELECT user_id, restaurant_id FROM votes WHERE session_id = ? ORDER BY user_id, preference";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public VoteRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Replaces the ballots of the given users, one JDBC batch for the deletes and one for the inserts.
+     *
+     * @param ballots the ranked restaurant IDs of each ballot, keyed by session ID and user ID
+     */
+    @Transactional
+    public void replaceBallots(Map<UUID, Map<UUID, List<UUID>>> ballots) {
+        List<Object[]> deletes = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        ballots.forEach((sessionId, byUser) -> byUser.forEach((userId, ballot) -> {
+            deletes.add(new Object[]{sessionId, userId});
+            for (int preference = 0; preference < ballot.size(); preference++) {
+                inserts.add(new Object[]{UuidV7Generator.next(), sessionId, userId, ballot.get(preference), preference});
+            }
+        }));
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_BALLOT, deletes);
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_VOTE, inserts);
+        }
+    }
+
+    /**
+     * Deletes all ballots of a session.
+     *
+     * @param sessionId the ID of the session
+     * @return the number of deleted vote rows
+     */
+    public int deleteBySession(UUID sessionId) {
+        return jdbcTemplate.update(DELETE_BY_SESSION, sessionId);
+    }
+
+    /**
+     * Reads all ballots of a session.
+     *
+     * @param sessionId the ID of the session
+     * @return the ranked restaurant IDs of each ballot, keyed by user ID
+     */
+    public Map<UUID, List<UUID>> findBallots(UUID sessionId) {
+        Map<UUID, List<UUID>> ballots = new LinkedHashMap<>();
+        jdbcTemplate.query(SELECT_BALLOTS, resultSet -> {
+            UUID userId = resultSet.getObject("user_id", UUID.class);
+            ballots.computeIfAbsent(userId, id -> new ArrayList<>())
+                    .add(resultSet.getObject("restaurant_id", UUID.class));
+        }, sessionId);
+        return ballots;
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.lunchapp.service;
+
+import com.example.lunchapp.model.Restaurant;
+import com.example.lunchapp.model.Session;
+import com.example.lunchapp.model.User;
+import com.example.lunchapp.util.UuidV7Generator;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The ActiveSession class holds the in-memory state of one active session together with the
+ * restaurants and participant and restaurant links that have not been written to the database yet.
+ * All access goes through {@link ActiveSessionEngine}: mutations are serialised by the session's {@link SessionMailbox},
+ * reads and flushes hold the instance monitor. The write lock is held from draining the pending writes until they are
+ * committed, and is always acquired before the monitor.
+ */
+public class ActiveSession {
+
+    private final Session session;
+
+    private final SessionMailbox mailbox = new SessionMailbox(this);
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final Set<String> restaurantNames = new HashSet<>();
+
+    // Written under the mailbox, read without any lock by membership checks
+    private final Set<UUID> participantIds = ConcurrentHashMap.newKeySet();
+
+    private List<Restaurant> pendingRestaurants = new ArrayList<>();
+
+    private List<UUID> pendingParticipantIds = new ArrayList<>();
+
+    private List<UUID> pendingRestaurantIds = new ArrayList<>();
+
+    // Completed once the pending writes are committed; replaced whenever they are drained
+    private CompletableFuture<Void> pendingFlush = new CompletableFuture<>();
+
+    private CompletableFuture<Void> lastFlush = CompletableFuture.completedFuture(null);
+
+    // Only written under the monitor, read without it
+    private volatile long version = 1;
+
+    ActiveSession(Session session) {
+        this.session = session;
+        Set<User> participants = new HashSet<>(session.getParticipants());
+        participants.forEach(participant -> participantIds.add(participant.getId()));
+        session.setParticipants(participants);
+        session.setRestaurants(new HashSet<>(session.getRestaurants()));
+        session.getRestaurants().forEach(restaurant -> restaurantNames.add(restaurant.getName()));
+    }
+
+    /**
+     * Returns the live session. Only valid inside {@link ActiveSessionEngine#update}.
+     *
+     * @return the session owned by this holder
+     */
+    public Session getSession() {
+        return session;
+    }
+
+    SessionMailbox getMailbox() {
+        return mailbox;
+    }
+
+    ReentrantLock getWriteLock() {
+        return writeLock;
+    }
+
+    /**
+     * Adds a participant and records the new link for the write-behind flush.
+     *
+     * @param user the user to add as a participant
+     * @return true if the user was not a participant yet
+     * @throws IllegalStateException if the session is not active
+     */
+    public boolean addParticipant(User user) {
+        if (!session.isActive()) {
+            throw new IllegalStateException("Session already ended.");
+        }
+        if (!session.getParticipants().add(user)) {
+            return false;
+        }
+        participantIds.add(user.getId());
+        pendingParticipantIds.add(user.getId());
+        version++;
+        return true;
+    }
+
+    /**
+     * Adds a restaurant and records the new link for the write-behind flush. A restaurant without an ID is new:
+     * it is given its ID here and its row is written by the same flush, ahead of the link.
+     *
+     * @param restaurant the restaurant to add
+     * @return true if the restaurant was not in the session yet
+     * @throws IllegalStateException if the session is not active
+     */
+    public boolean addRestaurant(Restaurant restaurant) {
+        if (!session.isActive()) {
+            throw new IllegalStateException("Session already ended.");
+        }
+        boolean isNew = restaurant.getId() == null;
+        if (isNew) {
+            restaurant.setId(UuidV7Generator.next());
+        }
+        if (!session.getRestaurants().add(restaurant)) {
+            return false;
+        }
+        restaurantNames.add(restaurant.getName());
+        if (isNew) {
+            pendingRestaurants.add(restaurant);
+        }
+        pendingRestaurantIds.add(restaurant.getId());
+        version++;
+        return true;
+    }
+
+    /**
+     * Tells whether the session already has a restaurant of the given name, without scanning its restaurants.
+     *
+     * @param name the restaurant name
+     * @return true if a restaurant of that name was added
+     */
+    public boolean hasRestaurantNamed(String name) {
+        return restaurantNames.contains(name);
+    }
+
+    /**
+     * Tells whether a user participates in the session, without touching the participant entities.
+     * It can be called without holding the monitor.
+     *
+     * @param userId the ID of the user
+     * @return true if the user is a participant
+     */
+    public boolean hasParticipant(UUID userId) {
+        return participantIds.contains(userId);
+    }
+
+    /**
+     * Returns the version of the session, increased by every participant or restaurant added. It can be read
+     * without holding the monitor.
+     */
+    long getVersion() {
+        return version;
+    }
+
+    boolean hasPendingWrites() {
+        return !pendingRestaurants.isEmpty() || !pendingParticipantIds.isEmpty() || !pendingRestaurantIds.isEmpty();
+    }
+
+    /**
+     * Returns a future that completes once the writes applied so far are committed, by a flush or by ending the
+     * session. Writes that are being flushed are covered by the future of that flush.
+     */
+    CompletableFuture<Void> whenFlushed() {
+        return hasPendingWrites() ? pendingFlush : lastFlush;
+    }
+
+    /**
+     * Hands over the future of the pending writes, which must be drained under the same hold of the monitor.
+     */
+    CompletableFuture<Void> drainPendingFlush() {
+        lastFlush = pendingFlush;
+        pendingFlush = new CompletableFuture<>();
+        return lastFlush;
+    }
+
+    List<Restaurant> drainPendingRestaurants() {
+        List<Restaurant> drained = pendingRestaurants;
+        pendingRestaurants = new ArrayList<>();
+        return drained;
+    }
+
+    List<UUID> drainPendingParticipantIds() {
+        List<UUID> drained = pendingParticipantIds;
+        pendingParticipantIds = new ArrayList<>();
+        return drained;
+    }
+
+    List<UUID> drainPendingRestaurantIds() {
+        List<UUID> drained = pendingRestaurantIds;
+        pendingRestaurantIds = new ArrayList<>();
+        return drained;
+    }
+
+    /**
+     * Puts restaurants and links back at the front of the queue after a failed flush. Their future becomes the
+     * future of the pending writes, so it also waits for the writes queued since.
+     */
+    void requeue(List<Restaurant> restaurants, List<UUID> participantIds, List<UUID> restaurantIds,
+                 CompletableFuture<Void> flush) {
+        CompletableFuture<Void> later = pendingFlush;
+        flush.thenRun(() -> later.complete(null));
+        pendingFlush = flush;
+        restaurants.addAll(pendingRestaurants);
+        pendingRestaurants = restaurants;
+        participantIds.addAll(pendingParticipantIds);
+        restaurantIds.addAll(pendingRestaurantIds);
+        pendingParticipantIds = participantIds;
+        pendingRestaurantIds = restaurantIds;
+    }
+
+    /**
+     * Returns a copy of the session whose collections can be read outside the lock.
+     */
+    Session snapshot() {
+        return Session.builder()
+                .id(session.getId())
+                .creator(session.getCreator())
+                .isActive(session.isActive())
+                .pickedRestaurant(session.getPickedRestaurant())
+                .votingMethod(session.getVotingMethod())
+                .createdAt(session.getCreatedAt())
+                .participants(new HashSet<>(session.getParticipants()))
+                .restaurants(new HashSet<>(session.getRestaurants()))
+                .build();
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.lunchapp.service;
+
+import com.example.lunchapp.dto.Versioned;
+import com.example.lunchapp.model.Restaurant;
+import com.example.lunchapp.model.Session;
+import com.example.lunchapp.repository.SessionMembershipRepository;
+import com.example.lunchapp.repository.SessionRepository;
+import com.example.lunchapp.util.ETags;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+
+/**
+ * The ActiveSessionEngine owns the state of active sessions in memory.
+ * Sessions are loaded from the database on a miss, reads and mutations are served from memory,
+ * and new restaurants and participant and restaurant links are persisted by a batched write-behind flush
+ * that writes everything queued since the previous flush in one transaction.
+ * Mutations of one session, including ending it, are applied one at a time through the session's
+ * {@link SessionMailbox}, so concurrent requests cannot overwrite each other's changes.
+ * A session is evicted when it ends.
+ * <p>
+ * Every session held in memory carries a version, and the engine counts the changes of all sessions; both are
+ * exposed as entity tags prefixed with the start time of the engine, so tags do not survive a restart.
+ */
+@Component
+@Log4j2
+public class ActiveSessionEngine {
+
+    private final SessionRepository sessionRepository;
+
+    private final SessionMembershipRepository membershipRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ConcurrentMap<UUID, ActiveSession> sessions = new ConcurrentHashMap<>();
+
+    private final Set<UUID> dirtySessionIds = ConcurrentHashMap.newKeySet();
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicLong changes = new AtomicLong();
+
+    // Serialises flushes; always acquired before any ActiveSession write lock.
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @Autowired
+    public ActiveSessionEngine(SessionRepository sessionRepository, SessionMembershipRepository membershipRepository,
+                               PlatformTransactionManager transactionManager) {
+        this.sessionRepository = sessionRepository;
+        this.membershipRepository = membershipRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Returns a snapshot of the session with the given ID.
+     *
+     * @param sessionId the ID of the session
+     * @return a copy of the session that is safe to read and serialise
+     * @throws RuntimeException if the session is not found
+     */
+    public Session getSession(UUID sessionId) {
+        ActiveSession activeSession = load(sessionId);
+        synchronized (activeSession) {
+            return activeSession.snapshot();
+        }
+    }
+
+    /**
+     * Tells whether a session is active, without copying it.
+     *
+     * @param sessionId the ID of the session
+     * @return true if the session is active
+     * @throws RuntimeException if the session is not found
+     */
+    public boolean isActive(UUID sessionId) {
+        ActiveSession activeSession = load(sessionId);
+        synchronized (activeSession) {
+            return activeSession.getSession().isActive();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the session if it is held in memory, without loading it on a miss.
+     *
+     * @param sessionId the ID of the session
+     * @return a copy of the session, or null if it is not held in memory
+     */
+    public Session findCachedSession(UUID sessionId) {
+        ActiveSession activeSession = sessions.get(sessionId);
+        if (activeSession == null) {
+            return null;
+        }
+        synchronized (activeSession) {
+            return activeSession.snapshot();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the session with the entity tag of its version, if it is held in memory,
+     * without loading it on a miss.
+     *
+     * @param sessionId the ID of the session
+     * @return a copy of the session and its tag, or null if it is not held in memory
+     */
+    public Versioned<Session> findVersionedSession(UUID sessionId) {
+        ActiveSession activeSession = sessions.get(sessionId);
+        if (activeSession == null) {
+            return null;
+        }
+        synchronized (activeSession) {
+            return new Versioned<>(activeSession.snapshot(), ETags.of(epoch, activeSession.getVersion()));
+        }
+    }
+
+    /**
+     * Returns the entity tag of the current version of a session held in memory. Neither loads the session
+     * nor waits for its mutations.
+     *
+     * @param sessionId the ID of the session
+     * @return the tag, or null if the session is not held in memory
+     */
+    public String findEtag(UUID sessionId) {
+        ActiveSession activeSession = sessions.get(sessionId);
+        return activeSession == null ? null : ETags.of(epoch, activeSession.getVersion());
+    }
+
+    /**
+     * Tells whether a user participates in a session held in memory. Neither loads the session
+     * nor waits for its mutations.
+     *
+     * @param sessionId the ID of the session
+     * @param userId    the ID of the user
+     * @return whether the user is a participant, or null if the session is not held in memory
+     */
+    public Boolean findParticipation(UUID sessionId, UUID userId) {
+        ActiveSession activeSession = sessions.get(sessionId);
+        return activeSession == null ? null : activeSession.hasParticipant(userId);
+    }
+
+    /**
+     * Returns the entity tag of the number of session changes so far: sessions created, ended, or given
+     * participants or restaurants.
+     *
+     * @return the tag
+     */
+    public String getChangesEtag() {
+        return ETags.of(epoch, changes.get());
+    }
+
+    /**
+     * Starts tracking a session that has just been persisted.
+     *
+     * @param session the persisted session
+     */
+    public void register(Session session) {
+        if (session.isActive() && session.getId() != null) {
+            sessions.put(session.getId(), new ActiveSession(session));
+            changes.incrementAndGet();
+        }
+    }
+
+    /**
+     * Applies a mutation to a session after the mutations already queued for it. Restaurants and links added
+     * through the {@link ActiveSession} are queued for the next write-behind flush, so the mutation must not
+     * write to the database itself.
+     *
+     * @param sessionId the ID of the session
+     * @param mutation  the mutation to apply
+     * @return the result of the mutation
+     * @throws RuntimeException if the session is not found, or the exception thrown by the mutation
+     */
+    public <T> T update(UUID sessionId, Function<ActiveSession, T> mutation) {
+        return load(sessionId).getMailbox().apply(activeSession -> {
+            long version = activeSession.getVersion();
+            T result = mutation.apply(activeSession);
+            if (activeSession.hasPendingWrites()) {
+                dirtySessionIds.add(sessionId);
+            }
+            if (activeSession.getVersion() != version) {
+                changes.incrementAndGet();
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Returns a future that completes once the restaurants and links queued for a session by the mutations applied
+     * before this call are committed, by a flush or by ending the session. A failed flush is retried, so the future
+     * only completes on success.
+     *
+     * @param sessionId the ID of the session
+     * @return the future, already completed if nothing is waiting to be written
+     * @throws RuntimeException if the session is not found
+     */
+    public CompletableFuture<Void> whenFlushed(UUID sessionId) {
+        return load(sessionId).getMailbox().apply(ActiveSession::whenFlushed);
+    }
+
+    /**
+     * Ends a session: once the mutations queued before it are applied, writes its pending restaurants and links,
+     * applies the finisher in one transaction and evicts the session. Mutations queued behind it see the ended
+     * session. The session stays cached if the finisher throws.
+     * <p>
+     * Only the session's write lock is held, so sessions end in parallel; a flush that is writing the session's links
+     * is waited for, and later flushes skip the session until it has ended.
+     *
+     * @param sessionId the ID of the session
+     * @param finisher  the function that ends the session
+     * @return the result of the finisher
+     * @throws RuntimeException if the session is not found
+     */
+    public <T> T end(UUID sessionId, Function<Session, T> finisher) {
+        ActiveSession activeSession = load(sessionId);
+        ReentrantLock writeLock = activeSession.getWriteLock();
+        writeLock.lock();
+        try {
+            // The write lock is taken before the mailbox runs the finisher, possibly on another caller's thread,
+            // so the lock order write lock then session monitor is kept
+            return activeSession.getMailbox().apply(held -> {
+                write(Map.of(sessionId, held));
+                T result = transactionTemplate.execute(status -> finisher.apply(held.getSession()));
+                sessions.remove(sessionId, held);
+                dirtySessionIds.remove(sessionId);
+                changes.incrementAndGet();
+                return result;
+            });
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the pending links of every dirty session in one batch. Sessions that are being ended write their own
+     * links and are skipped.
+     */
+    @Scheduled(fixedDelayString = "${session.engine.flush-interval-ms:250}")
+    public void flush() {
+        if (dirtySessionIds.isEmpty()) {
+            return;
+        }
+        flushLock.lock();
+        Map<UUID, ActiveSession> dirty = new HashMap<>();
+        try {
+            for (UUID sessionId : dirtySessionIds) {
+                dirtySessionIds.remove(sessionId);
+                ActiveSession activeSession = sessions.get(sessionId);
+                if (activeSession != null && activeSession.getWriteLock().tryLock()) {
+                    dirty.put(sessionId, activeSession);
+                }
+            }
+            if (!dirty.isEmpty()) {
+                write(dirty);
+            }
+        } catch (RuntimeException e) {
+            // already logged, the links are retried on the next flush
+        } finally {
+            dirty.values().forEach(activeSession -> activeSession.getWriteLock().unlock());
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.debug("Flushing {} dirty sessions before shutdown", dirtySessionIds.size());
+        flush();
+    }
+
+    private void write(Map<UUID, ActiveSession> dirty) {
+        Map<UUID, List<Restaurant>> newRestaurants = new HashMap<>();
+        Map<UUID, List<UUID>> participants = new HashMap<>();
+        Map<UUID, List<UUID>> restaurants = new HashMap<>();
+        Map<UUID, CompletableFuture<Void>> flushes = new HashMap<>();
+        dirty.forEach((sessionId, activeSession) -> {
+            synchronized (activeSession) {
+                flushes.put(sessionId, activeSession.drainPendingFlush());
+                newRestaurants.put(sessionId, activeSession.drainPendingRestaurants());
+                participants.put(sessionId, activeSession.drainPendingParticipantIds());
+                restaurants.put(sessionId, activeSession.drainPendingRestaurantIds());
+            }
+        });
+
+        try {
+            List<Restaurant> rows = newRestaurants.values().stream().flatMap(List::stream).toList();
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!rows.isEmpty()) {
+                    membershipRepository.insertRestaurants(rows);
+                }
+                membershipRepository.insertLinks(participants, restaurants);
+            });
+            log.debug("Flushed pending writes of {} sessions", dirty.size());
+            flushes.values().forEach(flush -> flush.complete(null));
+        } catch (RuntimeException e) {
+            log.error("Error occurred while flushing {} sessions, requeueing", dirty.size(), e);
+            dirty.forEach((sessionId, activeSession) -> {
+                synchronized (activeSession) {
+                    activeSession.requeue(newRestaurants.get(sessionId), participants.get(sessionId), restaurants.get(sessionId),
+                            flushes.get(sessionId));
+                }
+                dirtySessionIds.add(sessionId);
+            });
+            throw e;
+        }
+    }
+
+    private ActiveSession load(UUID sessionId) {
+        ActiveSession cached = sessions.get(sessionId);
+        if (cached != null) {
+            return cached;
+        }
+
+        Session session = sessionRepository.findWithParticipantsandRestaurantsById(sessionId);
+        if (session == null) {
+            throw new RuntimeException("Session not found");
+        }
+        ActiveSession loaded = new ActiveSession(session);
+        if (!session.isActive()) {
+            return loaded;
+        }
+        ActiveSession existing = sessions.putIfAbsent(sessionId, loaded);
+        return existing != null ? existing : loaded;
+    }
+}
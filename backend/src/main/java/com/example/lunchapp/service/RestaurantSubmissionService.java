@@ -0,0 +1,89 @@
+package com.example.lunchapp.service;
+
+import com.example.lunchapp.dto.SubmissionJob;
+import com.example.lunchapp.dto.SubmissionStatus;
+import com.example.lunchapp.model.Restaurant;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+
+/**
+ * The RestaurantSubmissionService tracks asynchronous restaurant submissions as jobs,
+ * so clients can poll the outcome of their submission instead of re-reading the whole session.
+ * A job is only reported as added once the write-behind flush of the {@link ActiveSessionEngine} has committed
+ * the restaurant, and only to the user who submitted it.
+ */
+@Service
+@Log4j2
+public class RestaurantSubmissionService {
+
+    private final SessionService sessionService;
+
+    private final ActiveSessionEngine sessionEngine;
+
+    private final SubmissionJobStore jobStore;
+
+    @Autowired
+    public RestaurantSubmissionService(SessionService sessionService, ActiveSessionEngine sessionEngine, SubmissionJobStore jobStore) {
+        this.sessionService = sessionService;
+        this.sessionEngine = sessionEngine;
+        this.jobStore = jobStore;
+    }
+
+    /**
+     * Starts adding a restaurant to a session and returns the pending job that tracks it.
+     *
+     * @param sessionId  the ID of the session
+     * @param userId     the ID of the submitting user
+     * @param restaurant the restaurant to add
+     * @return the pending job
+     * @throws TaskRejectedException if too many submissions are in progress; no job is kept in that case
+     */
+    public SubmissionJob submit(UUID sessionId, UUID userId, Restaurant restaurant) {
+        SubmissionJob job = jobStore.create(sessionId, userId, restaurant.getName());
+        try {
+            sessionService.addRestaurantAsync(sessionId, userId, restaurant)
+                    .thenCompose(added -> Boolean.TRUE.equals(added)
+                            // The restaurant is only in memory yet; the job stays pending until its flush commits
+                            ? sessionEngine.whenFlushed(sessionId).thenApply(flushed -> SubmissionStatus.ADDED)
+                            : CompletableFuture.completedFuture(SubmissionStatus.ALREADY_SUBMITTED))
+                    .whenComplete((status, error) -> {
+                        if (error != null) {
+                            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                            jobStore.complete(job.getJobId(), SubmissionStatus.FAILED, null, cause.getMessage());
+                        } else {
+                            jobStore.complete(job.getJobId(), status, status == SubmissionStatus.ADDED ? restaurant.getId() : null, null);
+                        }
+                    });
+        } catch (TaskRejectedException e) {
+            jobStore.remove(job.getJobId());
+            throw e;
+        }
+        log.debug("Submission job {} created for session id {} by user id {}", job.getJobId(), sessionId, userId);
+        return job;
+    }
+
+    /**
+     * Returns a submission job of a session to the user who submitted it.
+     *
+     * @param sessionId the ID of the session
+     * @param userId    the ID of the requesting user
+     * @param jobId     the ID of the job
+     * @return the job
+     * @throws RuntimeException if the job is unknown, expired, belongs to another session or was submitted by another user
+     */
+    public SubmissionJob getJob(UUID sessionId, UUID userId, UUID jobId) {
+        SubmissionJob job = jobStore.get(jobId);
+        // Another user's job is reported as missing, so job IDs cannot be probed
+        if (job == null || !job.getSessionId().equals(sessionId) || !job.getUserId().equals(userId)) {
+            throw new RuntimeException("Job not found");
+        }
+        return job;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.lunchapp.service;
+
+import com.example.lunchapp.dto.RestaurantSummary;
+import com.example.lunchapp.dto.SessionHistoryEntry;
+import com.example.lunchapp.dto.UserSummary;
+import com.example.lunchapp.model.Restaurant;
+import com.example.lunchapp.model.Session;
+import com.example.lunchapp.repository.SessionHistoryRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+
+/**
+ * The SessionArchiveService moves ended sessions into the session history and reads them back.
+ * History pages are addressed by an opaque cursor made of the end time and ID of the last entry of the previous page.
+ */
+@Service
+@Log4j2
+public class SessionArchiveService {
+
+    private static final char CURSOR_SEPARATOR = '_';
+
+    private final SessionHistoryRepository historyRepository;
+
+    @Autowired
+    public SessionArchiveService(SessionHistoryRepository historyRepository) {
+        this.historyRepository = historyRepository;
+    }
+
+    /**
+     * Appends the record of an ended session to the history.
+     *
+     * @param session the session that ended
+     * @param picked  the picked restaurant, or null if none was submitted
+     * @param endedAt the time the session ended
+     * @return the appended record
+     */
+    public SessionHistoryEntry archive(Session session, Restaurant picked, Instant endedAt) {
+        SessionHistoryEntry entry = SessionHistoryEntry.builder()
+                .id(session.getId())
+                .creatorId(session.getCreator().getId())
+                .creatorName(session.getCreator().getName())
+                .votingMethod(session.getVotingMethod())
+                .pickedRestaurantId(picked != null ? picked.getId() : null)
+                .pickedRestaurantName(picked != null ? picked.getName() : null)
+                .participants(session.getParticipants().stream()
+                        .map(user -> new UserSummary(user.getId(), user.getName()))
+                        .sorted(Comparator.comparing(UserSummary::getName, Comparator.nullsLast(Comparator.naturalOrder())))
+                        .collect(Collectors.toList()))
+                .candidates(session.getRestaurants().stream()
+                        .map(restaurant -> new RestaurantSummary(restaurant.getId(), restaurant.getName()))
+                        .sorted(Comparator.comparing(RestaurantSummary::getName, Comparator.nullsLast(Comparator.naturalOrder())))
+                        .collect(Collectors.toList()))
+                .createdAt(session.getCreatedAt())
+                .endedAt(endedAt)
+                .build();
+        historyRepository.append(entry);
+        log.debug("Archived session id {} with {} participants and {} candidates",
+                session.getId(), entry.getParticipants().size(), entry.getCandidates().size());
+        return entry;
+    }
+
+    /**
+     * Returns one page of the history, most recently ended first.
+     *
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param limit  the maximum number of entries to return
+     * @return the entries of the page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public List<SessionHistoryEntry> getHistory(String cursor, int limit) {
+        if (cursor == null || cursor.isEmpty()) {
+            return historyRepository.findPage(null, null, limit);
+        }
+        int separator = cursor.indexOf(CURSOR_SEPARATOR);
+        try {
+            Instant endedAt = Instant.ofEpochMilli(Long.parseLong(cursor.substring(0, separator)));
+            UUID id = UUID.fromString(cursor.substring(separator + 1));
+            return historyRepository.findPage(endedAt, id, limit);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid history cursor", e);
+        }
+    }
+
+    /**
+     * Returns the cursor that continues after the given entry.
+     *
+     * @param entry the last entry of a page
+     * @return the cursor of the next page
+     */
+    public static String cursorOf(SessionHistoryEntry entry) {
+        return entry.getEndedAt().toEpochMilli() + String.valueOf(CURSOR_SEPARATOR) + entry.getId();
+    }
+
+    /**
+     * Returns the archived record of a session.
+     *
+     * @param sessionId the ID of the session
+     * @return the record, or null if the session has not ended
+     */
+    public SessionHistoryEntry findArchived(UUID sessionId) {
+        return historyRepository.findById(sessionId);
+    }
+}
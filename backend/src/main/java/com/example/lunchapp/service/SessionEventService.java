@@ -0,0 +1,535 @@
+package com.example.lunchapp.service;
+
+import com.example.lunchapp.dto.SessionChanges;
+import com.example.lunchapp.dto.SessionEvent;
+import com.example.lunchapp.dto.SessionEventType;
+import com.example.lunchapp.repository.SessionEventRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * The SessionEventService pushes session changes to subscribed clients over server-sent events and serves them as
+ * a change feed that clients poll with their last seen sequence.
+ * The most recent events of every session are kept in a bounded buffer so that a client reconnecting with
+ * its last seen sequence receives only what it missed. Every event is also written behind to the session_event
+ * table, which answers feed cursors older than the buffer and continues the numbering after a restart.
+ * If the cursor is covered by neither, the client is told to resync from a full snapshot.
+ * <p>
+ * Events are recorded inside the session mutation that caused them, so their sequence follows the order of the
+ * session's mailbox, and delivered to the subscribers afterwards, in sequence order and outside the log's monitor.
+ * The log of an ended session is kept until its events are stored, so the numbering is never continued from a table
+ * that is still behind. The log of a session nobody follows is evicted by the heartbeat once it has stayed idle for a
+ * whole interval with its events stored, and is recreated from the table by the next event. Subscribers and change
+ * feed requests never recreate the log of an ended session; they are answered from the table.
+ */
+@Service
+@Log4j2
+public class SessionEventService {
+
+    static final String RESYNC_EVENT = "resync";
+
+    private final int bufferSize;
+
+    private final long emitterTimeout;
+
+    private final int pageSize;
+
+    private final Duration retention;
+
+    private final SessionEventRepository eventRepository;
+
+    private final ConcurrentMap<UUID, SessionEventLog> logs = new ConcurrentHashMap<>();
+
+    private final Queue<SessionEvent> unsaved = new ConcurrentLinkedQueue<>();
+
+    @Autowired
+    public SessionEventService(SessionEventRepository eventRepository,
+                               @Value("${session.events.buffer-size:256}") int bufferSize,
+                               @Value("${session.events.timeout-ms:1800000}") long emitterTimeout,
+                               @Value("${session.events.page-size:500}") int pageSize,
+                               @Value("${session.events.retention-days:7}") int retentionDays) {
+        this.eventRepository = eventRepository;
+        this.bufferSize = bufferSize;
+        this.emitterTimeout = emitterTimeout;
+        this.pageSize = pageSize;
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    /**
+     * Records an event for the session and sends it to every subscriber, like {@link #record} followed by
+     * {@link #deliver}. Only for events that cannot race with a mutation of the session, such as its end.
+     *
+     * @param sessionId the ID of the session
+     * @param type      the type of the event
+     * @param targetId  the ID of the added user or restaurant, if any
+     * @param name      the name of the added user or restaurant, or the picked restaurant
+     * @return the recorded event
+     */
+    public SessionEvent publish(UUID sessionId, SessionEventType type, UUID targetId, String name) {
+        SessionEvent event = record(sessionId, type, targetId, name);
+        deliver(sessionId);
+        return event;
+    }
+
+    /**
+     * Records an event for the session: numbers it, buffers it, queues it for storing and completes the waiting
+     * change feed requests. Called from the session mutation that caused the event, so the sequence follows the
+     * order of the mutations; the subscribers receive it on the next {@link #deliver}.
+     * A {@code SESSION_ENDED} event marks the log to be released once its events are stored.
+     *
+     * @param sessionId the ID of the session
+     * @param type      the type of the event
+     * @param targetId  the ID of the added user or restaurant, if any
+     * @param name      the name of the added user or restaurant, or the picked restaurant
+     * @return the recorded event
+     */
+    public SessionEvent record(UUID sessionId, SessionEventType type, UUID targetId, String name) {
+        while (true) {
+            SessionEventLog eventLog = logFor(sessionId, true);
+            synchronized (eventLog) {
+                // A log evicted after it was looked up is replaced by a new one, numbered from the table
+                if (eventLog.removed) {
+                    continue;
+                }
+                eventLog.idle = false;
+                SessionEvent event = SessionEvent.builder()
+                        .sequence(++eventLog.lastSequence)
+                        .type(type)
+                        .sessionId(sessionId)
+                        .targetId(targetId)
+                        .name(name)
+                        .occurredAt(Instant.now())
+                        .build();
+                eventLog.events.addLast(event);
+                if (eventLog.events.size() > bufferSize) {
+                    eventLog.events.removeFirst();
+                }
+                unsaved.add(event);
+                eventLog.undelivered.add(event);
+
+                // Waiters are only registered while they are up to date, so this event is all they missed
+                SessionChanges changes = new SessionChanges(List.of(event), event.getSequence(), false);
+                eventLog.waiters.forEach(waiter -> waiter.complete(changes));
+
+                if (type == SessionEventType.SESSION_ENDED) {
+                    eventLog.ended = true;
+                }
+                log.debug("Recorded event {} #{} for session id {}", type, event.getSequence(), sessionId);
+                return event;
+            }
+        }
+    }
+
+    /**
+     * Sends the recorded events of the session that no subscriber has received yet, in sequence order.
+     * A {@code SESSION_ENDED} event also completes all subscriptions.
+     *
+     * @param sessionId the ID of the session
+     */
+    public void deliver(UUID sessionId) {
+        SessionEventLog eventLog = logs.get(sessionId);
+        if (eventLog == null) {
+            return;
+        }
+        // Sending blocks on slow clients, so it holds the send lock only and recording goes on meanwhile
+        eventLog.sendLock.lock();
+        try {
+            SessionEvent event;
+            while ((event = eventLog.undelivered.poll()) != null) {
+                for (SseEmitter emitter : eventLog.emitters) {
+                    send(eventLog, emitter, event);
+                }
+                eventLog.lastDelivered = event.getSequence();
+                if (event.getType() == SessionEventType.SESSION_ENDED) {
+                    eventLog.closed = true;
+                    eventLog.emitters.forEach(SseEmitter::complete);
+                    eventLog.emitters.clear();
+                }
+            }
+        } finally {
+            eventLog.sendLock.unlock();
+        }
+        release(sessionId, eventLog);
+    }
+
+    /**
+     * Subscribes to the events of a session. Events after the given sequence are replayed first. A session that has
+     * ended and whose log is released gets its stored events replayed and the subscription completed.
+     *
+     * @param sessionId the ID of the session
+     * @param after     the last sequence the client has seen, or 0 for a new subscription
+     * @return the emitter streaming the events
+     */
+    public SseEmitter subscribe(UUID sessionId, long after) {
+        SseEmitter emitter = new SseEmitter(emitterTimeout);
+        SessionEventLog eventLog = logFor(sessionId, false);
+        while (eventLog != null && !attach(eventLog, emitter, after)) {
+            eventLog = logFor(sessionId, false);
+        }
+        if (eventLog == null) {
+            SessionChanges changes = getChanges(sessionId, after);
+            if (changes.isResync()) {
+                sendResync(emitter, changes.getCursor());
+            } else {
+                changes.getEvents().forEach(event -> send(emitter, event));
+            }
+            emitter.complete();
+            log.debug("Replayed the stored events of ended session id {} after sequence {}", sessionId, after);
+            return emitter;
+        }
+
+        SessionEventLog attached = eventLog;
+        emitter.onCompletion(() -> attached.emitters.remove(emitter));
+        emitter.onTimeout(() -> attached.emitters.remove(emitter));
+        emitter.onError(e -> attached.emitters.remove(emitter));
+        log.debug("Subscribed to session id {} after sequence {}", sessionId, after);
+        return emitter;
+    }
+
+    /**
+     * Returns the events of a session after the given sequence, at most one page of them. Recent events are read
+     * from the buffer, older ones and those of sessions no longer held in memory from the session_event table.
+     *
+     * @param sessionId the ID of the session
+     * @param after     the last sequence the client has seen, or 0 for all events
+     * @return the events after the cursor, or a resync if some of them are no longer available
+     */
+    public SessionChanges getChanges(UUID sessionId, long after) {
+        SessionEventLog eventLog = logs.get(sessionId);
+        long lastSequence = -1;
+        if (eventLog != null) {
+            synchronized (eventLog) {
+                SessionChanges buffered = fromBuffer(eventLog, after);
+                if (buffered != null) {
+                    return buffered;
+                }
+                lastSequence = eventLog.lastSequence;
+            }
+        }
+
+        List<SessionEvent> stored = eventRepository.findAfter(sessionId, after, pageSize);
+        if (!stored.isEmpty() && stored.get(0).getSequence() == after + 1) {
+            return new SessionChanges(stored, stored.get(stored.size() - 1).getSequence(), false);
+        }
+        if (lastSequence < 0) {
+            lastSequence = eventRepository.findLastSequence(sessionId);
+        }
+        if (stored.isEmpty() && after == lastSequence) {
+            return new SessionChanges(List.of(), after, false);
+        }
+        // The events right after the cursor were purged, or evicted from the buffer before they were stored
+        return new SessionChanges(List.of(), lastSequence, true);
+    }
+
+    /**
+     * Returns the events of a session after the given sequence like {@link #getChanges}, but if the client has
+     * already seen every event, completes with the next event instead, or with no events once the wait is over.
+     *
+     * @param sessionId  the ID of the session
+     * @param after      the last sequence the client has seen, or 0 for all events
+     * @param waitMillis the longest time to wait for the next event
+     * @return the future completing with the changes
+     */
+    public CompletableFuture<SessionChanges> awaitChanges(UUID sessionId, long after, long waitMillis) {
+        CompletableFuture<SessionChanges> next = new CompletableFuture<>();
+        SessionEventLog eventLog;
+        while (true) {
+            eventLog = logFor(sessionId, false);
+            if (eventLog == null) {
+                next = null;
+                break;
+            }
+            synchronized (eventLog) {
+                if (eventLog.removed) {
+                    continue;
+                }
+                eventLog.idle = false;
+                // An ended session has no next event to wait for
+                if (eventLog.ended || after != eventLog.lastSequence) {
+                    next = null;
+                } else {
+                    eventLog.waiters.add(next);
+                }
+                break;
+            }
+        }
+        if (next == null) {
+            return CompletableFuture.completedFuture(getChanges(sessionId, after));
+        }
+
+        CompletableFuture<SessionChanges> waiter = next;
+        SessionEventLog waitedOn = eventLog;
+        waiter.whenComplete((changes, e) -> waitedOn.waiters.remove(waiter));
+        return waiter.completeOnTimeout(new SessionChanges(List.of(), after, false), waitMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes the events published since the previous flush in one batch. A failed batch is retried on the next flush.
+     */
+    @Scheduled(fixedDelayString = "${session.events.flush-interval-ms:250}")
+    public void flush() {
+        List<SessionEvent> batch = new ArrayList<>();
+        SessionEvent event;
+        while ((event = unsaved.poll()) != null) {
+            batch.add(event);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            eventRepository.insertAll(batch);
+            log.debug("Stored {} session events", batch.size());
+        } catch (RuntimeException e) {
+            log.error("Error occurred while storing {} session events, requeueing", batch.size(), e);
+            unsaved.addAll(batch);
+            return;
+        }
+
+        Map<UUID, Long> lastStored = new HashMap<>();
+        batch.forEach(stored -> lastStored.merge(stored.getSessionId(), stored.getSequence(), Math::max));
+        lastStored.forEach((sessionId, sequence) -> {
+            SessionEventLog eventLog = logs.get(sessionId);
+            if (eventLog != null) {
+                synchronized (eventLog) {
+                    eventLog.lastStored = Math.max(eventLog.lastStored, sequence);
+                }
+                release(sessionId, eventLog);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Deletes the stored events older than the retention period.
+     */
+    @Scheduled(cron = "${session.events.purge-cron:0 30 3 * * *}", zone = "UTC")
+    public void purge() {
+        int deleted = eventRepository.deleteOlderThan(Instant.now().minus(retention));
+        log.debug("Purged {} session events older than {}", deleted, retention);
+    }
+
+    /**
+     * Sends a comment to every subscriber so idle connections are kept open and dead ones are detected, and evicts
+     * the logs that have had no subscriber, waiter or new event since the previous heartbeat and whose events are
+     * stored and delivered, such as those of abandoned sessions.
+     */
+    @Scheduled(fixedDelayString = "${session.events.heartbeat-ms:15000}")
+    public void heartbeat() {
+        logs.forEach((sessionId, eventLog) -> {
+            for (SseEmitter emitter : eventLog.emitters) {
+                try {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } catch (IOException | IllegalStateException e) {
+                    eventLog.emitters.remove(emitter);
+                }
+            }
+            evictIfIdle(sessionId, eventLog);
+        });
+    }
+
+    /**
+     * Returns the log of a session, creating it numbered from the stored events if there is none. Subscribers and
+     * change feed requests do not create the log of an ended session, which would never be released.
+     *
+     * @return the log, or null if the session has ended and the log is not to be created
+     */
+    private SessionEventLog logFor(UUID sessionId, boolean recording) {
+        SessionEventLog eventLog = logs.get(sessionId);
+        if (eventLog != null) {
+            return eventLog;
+        }
+        // Continue the numbering of the events stored before a restart or the eviction of the log, which waits for
+        // all of them to be stored; read outside the map so no bin is locked
+        SessionEvent last = eventRepository.findLast(sessionId);
+        if (!recording && last != null && last.getType() == SessionEventType.SESSION_ENDED) {
+            return null;
+        }
+        SessionEventLog created = new SessionEventLog(last == null ? 0 : last.getSequence());
+        eventLog = logs.putIfAbsent(sessionId, created);
+        return eventLog != null ? eventLog : created;
+    }
+
+    /**
+     * Adds a subscriber to the log, first replaying what was delivered already; the events recorded after that
+     * follow with the next delivery.
+     *
+     * @return false if the log was evicted meanwhile and nothing was sent
+     */
+    private boolean attach(SessionEventLog eventLog, SseEmitter emitter, long after) {
+        eventLog.sendLock.lock();
+        try {
+            boolean resync;
+            List<SessionEvent> missed = new ArrayList<>();
+            synchronized (eventLog) {
+                if (eventLog.removed) {
+                    return false;
+                }
+                eventLog.idle = false;
+                long oldest = eventLog.events.isEmpty() ? eventLog.lastSequence + 1 : eventLog.events.getFirst().getSequence();
+                resync = after > eventLog.lastSequence || (after > 0 && after < oldest - 1);
+                if (!resync) {
+                    for (SessionEvent event : eventLog.events) {
+                        if (event.getSequence() > after && event.getSequence() <= eventLog.lastDelivered) {
+                            missed.add(event);
+                        }
+                    }
+                }
+            }
+            if (resync) {
+                sendResync(emitter, eventLog.lastDelivered);
+            } else {
+                missed.forEach(event -> send(eventLog, emitter, event));
+            }
+            if (eventLog.closed) {
+                emitter.complete();
+            } else {
+                eventLog.emitters.add(emitter);
+            }
+            return true;
+        } finally {
+            eventLog.sendLock.unlock();
+        }
+    }
+
+    /**
+     * Releases the log of an ended session once all its events are stored and delivered.
+     */
+    private void release(UUID sessionId, SessionEventLog eventLog) {
+        synchronized (eventLog) {
+            if (eventLog.ended && eventLog.lastStored == eventLog.lastSequence && eventLog.undelivered.isEmpty()) {
+                eventLog.removed = true;
+                logs.remove(sessionId, eventLog);
+            }
+        }
+    }
+
+    /**
+     * Evicts a log that was found idle by the previous heartbeat and still is. The send lock is only tried, since a
+     * log that is sending is not idle; holding it keeps subscribers from attaching meanwhile.
+     */
+    private void evictIfIdle(UUID sessionId, SessionEventLog eventLog) {
+        if (!eventLog.sendLock.tryLock()) {
+            return;
+        }
+        try {
+            synchronized (eventLog) {
+                boolean idle = eventLog.emitters.isEmpty() && eventLog.waiters.isEmpty() && eventLog.undelivered.isEmpty()
+                        && eventLog.lastStored == eventLog.lastSequence;
+                if (idle && eventLog.idle) {
+                    eventLog.removed = true;
+                    logs.remove(sessionId, eventLog);
+                    log.debug("Evicted the idle event log of session id {}", sessionId);
+                }
+                eventLog.idle = idle;
+            }
+        } finally {
+            eventLog.sendLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the buffered events after the cursor, or null if the cursor is older than the buffer.
+     */
+    private SessionChanges fromBuffer(SessionEventLog eventLog, long after) {
+        if (after > eventLog.lastSequence) {
+            return new SessionChanges(List.of(), eventLog.lastSequence, true);
+        }
+        long oldest = eventLog.events.isEmpty() ? eventLog.lastSequence + 1 : eventLog.events.getFirst().getSequence();
+        if (after < oldest - 1) {
+            return null;
+        }
+        List<SessionEvent> events = new ArrayList<>();
+        for (SessionEvent event : eventLog.events) {
+            if (event.getSequence() > after && events.size() < pageSize) {
+                events.add(event);
+            }
+        }
+        return new SessionChanges(events, events.isEmpty() ? after : events.get(events.size() - 1).getSequence(), false);
+    }
+
+    private void send(SessionEventLog eventLog, SseEmitter emitter, SessionEvent event) {
+        if (!send(emitter, event)) {
+            log.debug("Dropping subscriber of session id {}", event.getSessionId());
+            eventLog.emitters.remove(emitter);
+        }
+    }
+
+    private boolean send(SseEmitter emitter, SessionEvent event) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .id(Long.toString(event.getSequence()))
+                    .name(event.getType().name())
+                    .data(event, MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            return false;
+        }
+    }
+
+    private void sendResync(SseEmitter emitter, long lastSequence) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .id(Long.toString(lastSequence))
+                    .name(RESYNC_EVENT)
+                    .data(lastSequence));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    private static class SessionEventLog {
+        private final Deque<SessionEvent> events = new ArrayDeque<>();
+        private final Set<SseEmitter> emitters = new CopyOnWriteArraySet<>();
+        private final Set<CompletableFuture<SessionChanges>> waiters = ConcurrentHashMap.newKeySet();
+        // Added to in sequence order under the monitor, drained under the send lock
+        private final Queue<SessionEvent> undelivered = new ConcurrentLinkedQueue<>();
+        private final ReentrantLock sendLock = new ReentrantLock();
+        private long lastSequence;
+        private long lastStored;
+        private boolean ended;
+        // Set once the log is taken out of the map; whoever finds it set looks the log up again
+        private boolean removed;
+        // Whether the previous heartbeat found the log idle; cleared by any use of it
+        private boolean idle;
+        // Guarded by the send lock
+        private long lastDelivered;
+        private boolean closed;
+
+        private SessionEventLog(long lastSequence) {
+            this.lastSequence = lastSequence;
+            this.lastStored = lastSequence;
+            this.lastDelivered = lastSequence;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.lunchapp.service;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * The SessionMailbox applies the mutations of one session one at a time, in arrival order.
+ * A caller enqueues its mutation and, if no other thread is draining the mailbox, drains it itself: it applies its own
+ * mutation and every mutation queued behind it while holding the session monitor once. Otherwise the caller waits
+ * until the draining thread has applied its mutation. Mailboxes of different sessions are drained independently,
+ * so sessions progress in parallel on their callers' threads and no thread pool is involved.
+ * <p>
+ * Mutations must stay in memory: anything they persist is queued on the {@link ActiveSession} and written by the
+ * engine's next flush, so one drained batch ends up in one transaction.
+ */
+final class SessionMailbox {
+
+    private final ActiveSession activeSession;
+
+    private final Queue<Task<?>> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    SessionMailbox(ActiveSession activeSession) {
+        this.activeSession = activeSession;
+    }
+
+    /**
+     * Applies a mutation after all mutations enqueued before it.
+     *
+     * @param mutation the mutation to apply
+     * @return the result of the mutation
+     * @throws RuntimeException the exception thrown by the mutation, unwrapped
+     */
+    <T> T apply(Function<ActiveSession, T> mutation) {
+        Task<T> task = new Task<>(mutation);
+        queue.add(task);
+        drain();
+        try {
+            return task.result.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private void drain() {
+        // Re-check after releasing the flag: a task enqueued while the flag was held has to be drained by someone
+        while (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+            try {
+                synchronized (activeSession) {
+                    Task<?> task;
+                    while ((task = queue.poll()) != null) {
+                        task.run(activeSession);
+                    }
+                }
+            } finally {
+                draining.set(false);
+            }
+        }
+    }
+
+    private static final class Task<T> {
+
+        private final Function<ActiveSession, T> mutation;
+
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private Task(Function<ActiveSession, T> mutation) {
+            this.mutation = mutation;
+        }
+
+        private void run(ActiveSession activeSession) {
+            try {
+                result.complete(mutation.apply(activeSession));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+}
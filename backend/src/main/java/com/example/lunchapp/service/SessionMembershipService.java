@@ -0,0 +1,46 @@
+package com.example.lunchapp.service;
+
+import com.example.lunchapp.repository.SessionMembershipRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+/**
+ * The SessionMembershipService answers whether a user participates in a session without loading the session's
+ * participants. A session held by the {@link ActiveSessionEngine} is answered from its set of participant IDs;
+ * any other session with one indexed EXISTS query on session_users.
+ */
+@Service
+@Log4j2
+public class SessionMembershipService {
+
+    private final ActiveSessionEngine sessionEngine;
+
+    private final SessionMembershipRepository membershipRepository;
+
+    @Autowired
+    public SessionMembershipService(ActiveSessionEngine sessionEngine, SessionMembershipRepository membershipRepository) {
+        this.sessionEngine = sessionEngine;
+        this.membershipRepository = membershipRepository;
+    }
+
+    /**
+     * Tells whether a user participates in a session.
+     *
+     * @param sessionId the ID of the session
+     * @param userId    the ID of the user
+     * @return true if the user is a participant, false if not or if the session does not exist
+     */
+    public boolean isParticipant(UUID sessionId, UUID userId) {
+        Boolean participation = sessionEngine.findParticipation(sessionId, userId);
+        if (participation != null) {
+            return participation;
+        }
+        // Sessions that are not held in memory have no pending participant links, so the table is complete for them
+        boolean participant = membershipRepository.existsParticipant(sessionId, userId);
+        log.debug("Checked membership of user id {} in session id {} in the database: {}", userId, sessionId, participant);
+        return participant;
+    }
+}
@@ -1,20 +1,43 @@
 package com.example.lunchapp.service;
 
+import com.example.lunchapp.dto.InviteResult;
+import com.example.lunchapp.dto.InviteStatus;
+import com.example.lunchapp.dto.SessionChanges;
+import com.example.lunchapp.dto.SessionEventType;
+import com.example.lunchapp.dto.SessionHistoryEntry;
+import com.example.lunchapp.dto.SessionResponse;
+import com.example.lunchapp.dto.SessionSummary;
+import com.example.lunchapp.dto.Versioned;
 import com.example.lunchapp.model.Restaurant;
 import com.example.lunchapp.model.Session;
 import com.example.lunchapp.model.User;
+import com.example.lunchapp.model.VotingMethod;
 import com.example.lunchapp.repository.RestaurantRepository;
+import com.example.lunchapp.repository.SessionMembershipRepository;
 import com.example.lunchapp.repository.SessionRepository;
 import com.example.lunchapp.repository.UserRepository;
+import com.example.lunchapp.service.voting.VotingService;
+import com.example.lunchapp.util.ReadFromReplica;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import lombok.extern.log4j.Log4j2;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
 /**
@@ -22,6 +45,7 @@ import java.util.concurrent.CompletableFuture;
  */
 @Service
 @Log4j2
+@Timed(value = "lunchapp.service", description = "Time spent in service methods")
 public class SessionService {
 
     private final SessionRepository sessionRepository;
@@ -29,20 +53,192 @@ public class SessionService {
 
     private final UserRepository userRepository;
 
+    private final ActiveSessionEngine sessionEngine;
+
+    private final SessionEventService sessionEventService;
+
+    private final SessionMembershipRepository membershipRepository;
+
+    private final VotingService votingService;
+
+    private final SessionArchiveService archiveService;
+
     @Autowired
-    public SessionService(SessionRepository sessionRepository, RestaurantRepository restaurantRepository, UserRepository userRepository) {
+    public SessionService(SessionRepository sessionRepository, RestaurantRepository restaurantRepository, UserRepository userRepository,
+                          ActiveSessionEngine sessionEngine, SessionEventService sessionEventService,
+                          SessionMembershipRepository membershipRepository, VotingService votingService,
+                          SessionArchiveService archiveService) {
         this.sessionRepository = sessionRepository;
         this.restaurantRepository = restaurantRepository;
         this.userRepository = userRepository;
+        this.sessionEngine = sessionEngine;
+        this.sessionEventService = sessionEventService;
+        this.membershipRepository = membershipRepository;
+        this.votingService = votingService;
+        this.archiveService = archiveService;
+    }
+
+    /**
+     * Returns one page of session summaries in ID order. Only sessions that have not ended are listed,
+     * ended sessions are paged through {@link #getSessionHistory}.
+     * <p>
+     * Read from the primary: the page is served under the in-memory {@link #getSessionListEtag tag}, and a page read
+     * from a lagging replica under a newer tag would be revalidated as current until the next change.
+     *
+     * @param afterId the last session ID of the previous page, or null for the first page
+     * @param limit   the maximum number of sessions to return
+     * @return the session summaries of the page
+     */
+    public List<SessionSummary> getSessions(UUID afterId, int limit) {
+        PageRequest page = PageRequest.of(0, limit);
+        return afterId == null
+                ? sessionRepository.findSummaries(page)
+                : sessionRepository.findSummariesAfter(afterId, page);
     }
 
-    public List<Session> getAllSessions() {
-        return sessionRepository.findAll();
+    /**
+     * Returns the entity tag of the session listing, read from memory. It changes whenever a session is created,
+     * ended, or given a participant or restaurant; read it before the listing it describes.
+     *
+     * @return the tag
+     */
+    public String getSessionListEtag() {
+        return sessionEngine.getChangesEtag();
+    }
+
+    /**
+     * Passes every session summary to the consumer, reading them from a database cursor.
+     * Projections are not managed by the persistence context, so memory use does not grow with the table.
+     *
+     * @param consumer the consumer of the session summaries
+     */
+    @ReadFromReplica
+    public void streamAllSessions(Consumer<SessionSummary> consumer) {
+        try (Stream<SessionSummary> sessions = sessionRepository.streamSummaries()) {
+            sessions.forEach(consumer);
+        }
+    }
+
+    /**
+     * Returns one page of the history of ended sessions, most recently ended first.
+     *
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param limit  the maximum number of entries to return
+     * @return the entries of the page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public List<SessionHistoryEntry> getSessionHistory(String cursor, int limit) {
+        return archiveService.getHistory(cursor, limit);
+    }
+
+    /**
+     * Returns the read model of a session. Active sessions held in memory are answered from memory,
+     * other live sessions from projection queries without loading the Session entity, and ended sessions
+     * from the session history.
+     *
+     * @param sessionId the ID of the session
+     * @return the session read model
+     * @throws RuntimeException if the session is not found
+     */
+    @ReadFromReplica
+    public SessionResponse getSessionResponse(UUID sessionId) {
+        Session cached = sessionEngine.findCachedSession(sessionId);
+        if (cached != null) {
+            return SessionResponse.of(cached);
+        }
+
+        SessionSummary summary = sessionRepository.findSummaryById(sessionId);
+        if (summary == null) {
+            SessionHistoryEntry archived = archiveService.findArchived(sessionId);
+            if (archived == null) {
+                throw new RuntimeException("Session not found");
+            }
+            return SessionResponse.of(archived);
+        }
+        return SessionResponse.of(summary,
+                sessionRepository.findParticipantIds(sessionId),
+                sessionRepository.findRestaurantSummaries(sessionId));
+    }
+
+    /**
+     * Returns the read model of a session with the entity tag of the version it reflects. Only sessions held in
+     * memory are versioned; the tag of other sessions is null.
+     *
+     * @param sessionId the ID of the session
+     * @return the session read model and its tag
+     * @throws RuntimeException if the session is not found
+     */
+    @ReadFromReplica
+    public Versioned<SessionResponse> getVersionedSessionResponse(UUID sessionId) {
+        Versioned<Session> cached = sessionEngine.findVersionedSession(sessionId);
+        if (cached != null) {
+            return new Versioned<>(SessionResponse.of(cached.getValue()), cached.getEtag());
+        }
+        return new Versioned<>(getSessionResponse(sessionId), null);
+    }
+
+    /**
+     * Returns the entity tag of the current version of a session from memory, without loading the session.
+     *
+     * @param sessionId the ID of the session
+     * @return the tag, or null if the session is not held in memory
+     */
+    public String getSessionEtag(UUID sessionId) {
+        return sessionEngine.findEtag(sessionId);
     }
 
     public Session getSessionById(UUID sessionId) {
-        return sessionRepository.findById(sessionId)
-                .orElseThrow(() -> new RuntimeException("Session not found"));
+        return sessionEngine.getSession(sessionId);
+    }
+
+    /**
+     * Tells whether a session is active, without reading its participants and restaurants.
+     *
+     * @param sessionId the ID of the session
+     * @return true if the session is active
+     * @throws RuntimeException if the session is not found
+     */
+    public boolean isSessionActive(UUID sessionId) {
+        return sessionEngine.isActive(sessionId);
+    }
+
+    /**
+     * Subscribes to the changes of an active session.
+     *
+     * @param sessionId the ID of the session
+     * @param after     the last event sequence the client has seen, or 0
+     * @return the emitter streaming the session events
+     * @throws RuntimeException      if the session is not found
+     * @throws IllegalStateException if the session has already ended
+     */
+    public SseEmitter subscribeToSessionEvents(UUID sessionId, long after) {
+        if (!sessionEngine.getSession(sessionId).isActive()) {
+            throw new IllegalStateException("Session is not active");
+        }
+        return sessionEventService.subscribe(sessionId, after);
+    }
+
+    /**
+     * Returns the changes of a session after the given sequence. If the client has seen every change of a running
+     * session, waits up to the given time for the next one. Ended sessions do not change any more and are answered
+     * at once.
+     *
+     * @param sessionId  the ID of the session
+     * @param after      the last event sequence the client has seen, or 0
+     * @param waitMillis the longest time to wait for the next change, or 0 not to wait
+     * @return the future completing with the changes
+     * @throws RuntimeException if the session is not found
+     */
+    public CompletableFuture<SessionChanges> getSessionChanges(UUID sessionId, long after, long waitMillis) {
+        // Ended sessions are removed from the live tables, so a session row means the session is running
+        boolean running = sessionEngine.findEtag(sessionId) != null || sessionRepository.existsById(sessionId);
+        if (!running && archiveService.findArchived(sessionId) == null) {
+            throw new RuntimeException("Session not found");
+        }
+        if (!running || waitMillis <= 0) {
+            return CompletableFuture.completedFuture(sessionEventService.getChanges(sessionId, after));
+        }
+        return sessionEventService.awaitChanges(sessionId, after, waitMillis);
     }
 
     /**
@@ -53,6 +249,18 @@ public class SessionService {
      * @throws RuntimeException if the user is not found or an error occurs during creation
      */
     public Session createSession(UUID creatorId) {
+        return createSession(creatorId, VotingMethod.WEIGHTED_RANDOM);
+    }
+
+    /**
+     * Creates a new session for the given creator ID that picks its restaurant with the given voting method.
+     *
+     * @param creatorId    the UUID of the creator
+     * @param votingMethod the voting method of the session
+     * @return the created Session
+     * @throws RuntimeException if the user is not found or an error occurs during creation
+     */
+    public Session createSession(UUID creatorId, VotingMethod votingMethod) {
         log.debug("Starting creating session for creator id {}", creatorId);
         Session session;
         try {
@@ -64,9 +272,12 @@ public class SessionService {
             session = Session.builder()
                     .creator(creator)
                     .isActive(true)
+                    .votingMethod(votingMethod)
+                    .createdAt(Instant.now())
                     .build();
             addParticipant(session, creator);
             sessionRepository.save(session);
+            sessionEngine.register(session);
             log.debug("Finished creating session for creator id {}", creatorId);
         } catch (Exception e) {
             log.error("Error occurred while creating session for creator id {}", creatorId, e);
@@ -89,34 +300,21 @@ public class SessionService {
         log.debug("Starting inviting user to session for session id {}, inviter id {}, and invitee id {}", sessionId, inviterId, inviteeId);
 
         try {
-            Session session = sessionRepository.findWithParticipantsandRestaurantsById(sessionId);
-            if (session == null) {
-                throw new RuntimeException("Session not found");
-            }
-
-            if (!session.isActive()) {
-                throw new IllegalStateException("Cannot invite a user in a session that has already ended.");
-            }
-
-            User inviter = userRepository.findById(inviterId)
-                    .orElseThrow(() -> {
-                        log.error("User not found with id {}", inviterId);
-                        return new RuntimeException("User not found");
-                    });
-
-            // Check if the inviter is the creator of the session
-            if (!session.getCreator().equals(inviter)) {
-                log.error("Invitation attempt by non-creator for session id {} and inviter id {}", sessionId, inviterId);
-                throw new IllegalStateException("Only the session creator can invite users.");
-            }
-
             User invitee = userRepository.findById(inviteeId)
                     .orElseThrow(() -> {
                         log.error("User not found with id {}", inviteeId);
                         return new RuntimeException("User not found");
                     });
-            addParticipant(session, invitee);
-            sessionRepository.save(session);
+
+            sessionEngine.update(sessionId, activeSession -> {
+                checkInviter(activeSession.getSession(), inviterId);
+                if (!activeSession.addParticipant(invitee)) {
+                    return false;
+                }
+                sessionEventService.record(sessionId, SessionEventType.PARTICIPANT_JOINED, invitee.getId(), invitee.getName());
+                return true;
+            });
+            sessionEventService.deliver(sessionId);
 
             log.debug("Finished inviting user to session for session id {}, inviter id {}, and invitee id {}", sessionId, inviterId, inviteeId);
         } catch (Exception e) {
@@ -126,48 +324,136 @@ public class SessionService {
     }
 
     /**
-     * Asynchronously adds a restaurant to a session.
+     * Invites several users to a session at once. Invitees are resolved with one query per kind of identifier,
+     * and the new links are written together by the engine's next batched flush.
+     *
+     * @param sessionId    the ID of the session
+     * @param inviterId    the ID of the user sending the invitations
+     * @param inviteeIds   the IDs of the users to invite
+     * @param inviteeNames the names of the users to invite
+     * @return one result per requested invitee, in request order
+     * @throws RuntimeException      if the session is not found
+     * @throws IllegalStateException if the session has ended or the inviter is not the creator of the session
+     */
+    public List<InviteResult> inviteUsersToSession(UUID sessionId, UUID inviterId, List<UUID> inviteeIds, List<String> inviteeNames) {
+        log.debug("Starting bulk invite to session id {} by inviter id {} for {} ids and {} names",
+                sessionId, inviterId, inviteeIds.size(), inviteeNames.size());
+
+        Map<UUID, User> usersById = userRepository.findAllById(new LinkedHashSet<>(inviteeIds)).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<String, User> usersByName = inviteeNames.isEmpty() ? Map.of()
+                : userRepository.findByNameIn(new LinkedHashSet<>(inviteeNames)).stream()
+                .collect(Collectors.toMap(User::getName, Function.identity()));
+
+        List<InviteResult> results = new ArrayList<>();
+        List<User> added = new ArrayList<>();
+        sessionEngine.update(sessionId, activeSession -> {
+            checkInviter(activeSession.getSession(), inviterId);
+            inviteeIds.forEach(id -> results.add(invite(activeSession, id.toString(), usersById.get(id), added)));
+            inviteeNames.forEach(name -> results.add(invite(activeSession, name, usersByName.get(name), added)));
+            added.forEach(user -> sessionEventService.record(sessionId, SessionEventType.PARTICIPANT_JOINED, user.getId(), user.getName()));
+            return null;
+        });
+        sessionEventService.deliver(sessionId);
+
+        log.debug("Finished bulk invite to session id {}, {} users added", sessionId, added.size());
+        return results;
+    }
+
+    private InviteResult invite(ActiveSession activeSession, String invitee, User user, List<User> added) {
+        if (user == null) {
+            return new InviteResult(invitee, null, InviteStatus.NOT_FOUND);
+        }
+        if (!activeSession.addParticipant(user)) {
+            return new InviteResult(invitee, user.getId(), InviteStatus.ALREADY_PARTICIPANT);
+        }
+        added.add(user);
+        return new InviteResult(invitee, user.getId(), InviteStatus.ADDED);
+    }
+
+    private void checkInviter(Session session, UUID inviterId) {
+        if (!session.isActive()) {
+            throw new IllegalStateException("Cannot invite a user in a session that has already ended.");
+        }
+
+        // Check if the inviter is the creator of the session
+        if (!session.getCreator().getId().equals(inviterId)) {
+            log.error("Invitation attempt by non-creator for session id {} and inviter id {}", session.getId(), inviterId);
+            throw new IllegalStateException("Only the session creator can invite users.");
+        }
+    }
+
+    /**
+     * Asynchronously adds a restaurant to a session on the {@code taskExecutor}.
      *
      * @param sessionId  the ID of the session to add the restaurant to
      * @param userId     the ID of the user adding the restaurant
      * @param restaurant the restaurant to add
-     * @return a CompletableFuture that completes when the restaurant is added successfully or throws an exception if an error occurs
+     * @return a CompletableFuture that completes with true if the restaurant was added, false if the session
+     * already has a restaurant of that name, or exceptionally if the submission failed
      */
-    @Async
-    public CompletableFuture<Void> addRestaurantAsync(UUID sessionId, UUID userId, Restaurant restaurant) {
-        return CompletableFuture.runAsync(() -> {
-            log.debug("Adding restaurant to session {}, by user id {}", sessionId, userId);
-            try {
-                Session session = sessionRepository.findWithParticipantsandRestaurantsById(sessionId);
-                if (session == null) {
-                    throw new RuntimeException("Session not found");
-                }
-
-                User user = userRepository.findById(userId).orElseThrow(() -> {
-                    log.error("User not authorized with id {}", userId);
-                    return new RuntimeException("User not authorized");
-                });
-
-                if (!session.getParticipants().contains(user)) {
+    @Async("taskExecutor")
+    public CompletableFuture<Boolean> addRestaurantAsync(UUID sessionId, UUID userId, Restaurant restaurant) {
+        // Runs on the configured taskExecutor; a saturated executor rejects the call before it gets here
+        log.debug("Adding restaurant to session {}, by user id {}", sessionId, userId);
+        try {
+            boolean added = sessionEngine.update(sessionId, activeSession -> {
+                Session session = activeSession.getSession();
+                if (!activeSession.hasParticipant(userId)) {
                     log.error("Non-participant user attempted to add restaurant for session id {} and user id {}", sessionId, userId);
                     throw new IllegalStateException("Only participants of the session can add restaurants.");
                 }
+                if (!session.isActive()) {
+                    throw new IllegalStateException("Session already ended.");
+                }
 
-                Restaurant existingRestaurant = restaurantRepository.findByName(restaurant.getName());
-                // When adding a new restaurant
-                if (existingRestaurant == null) {
-                    addRestaurant(session, restaurant);
-                    restaurantRepository.save(restaurant);
+                // Restaurant names are unique within a session
+                boolean existingRestaurant = activeSession.hasRestaurantNamed(restaurant.getName());
+                // A new restaurant gets its ID in memory; its row and session link are written by the next flush
+                if (existingRestaurant || !activeSession.addRestaurant(restaurant)) {
+                    return false;
                 }
-                // save session
-                sessionRepository.save(session);
-            } catch (Exception e) {
-                throw new RuntimeException("Error occurred during adding restaurant", e);
-            }
-        }).exceptionally(e -> {
+                sessionEventService.record(sessionId, SessionEventType.RESTAURANT_ADDED, restaurant.getId(), restaurant.getName());
+                return true;
+            });
+            sessionEventService.deliver(sessionId);
+            return CompletableFuture.completedFuture(added);
+        } catch (Exception e) {
             log.error("Error occurred while adding restaurant to session id {} by user id {}", sessionId, userId, e);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Casts or replaces the ballot of a participant. Approval and weighted random voting treat the ballot as a set,
+     * ranked choice voting uses its order.
+     *
+     * @param sessionId     the ID of the session
+     * @param userId        the ID of the voting user
+     * @param restaurantIds the restaurant IDs the user votes for, most preferred first
+     * @throws RuntimeException         if the session is not found
+     * @throws IllegalStateException    if the session already ended or the user is not a participant
+     * @throws IllegalArgumentException if a restaurant does not belong to the session
+     */
+    public void castVote(UUID sessionId, UUID userId, List<UUID> restaurantIds) {
+        List<UUID> ballot = new ArrayList<>(new LinkedHashSet<>(restaurantIds));
+        sessionEngine.update(sessionId, activeSession -> {
+            Session session = activeSession.getSession();
+            if (!session.isActive()) {
+                throw new IllegalStateException("Session already ended.");
+            }
+            if (!activeSession.hasParticipant(userId)) {
+                throw new IllegalStateException("Only participants of the session can vote.");
+            }
+            Set<UUID> candidateIds = session.getRestaurants().stream().map(Restaurant::getId).collect(Collectors.toSet());
+            if (!candidateIds.containsAll(ballot)) {
+                throw new IllegalArgumentException("Only restaurants of the session can be voted for.");
+            }
+            // Cast in the mailbox, so the ballot is either in the tally the end picks from or rejected as too late
+            votingService.castVote(sessionId, userId, ballot);
             return null;
         });
+        log.debug("User id {} voted in session id {} for {} restaurants", userId, sessionId, ballot.size());
     }
 
     /**
@@ -177,17 +463,21 @@ public class SessionService {
      * @param userId    the ID of the user
      * @return the restaurant that was picked in the session
      * @throws RuntimeException      if the session is not found
-     * @throws IllegalStateException if the user is not the creator of the session
+     * @throws IllegalStateException if the user is not the creator of the session or the session already ended
      */
     public String endSession(UUID sessionId, UUID userId) {
         log.debug("Starting endSession for session Id {} and user Id {}", sessionId, userId);
-        Session session = sessionRepository.findById(sessionId)
-                .orElseThrow(() -> new RuntimeException("Session not found"));
-        if (!session.getCreator().getId().equals(userId)) {
-            throw new IllegalStateException("Only the creator of the session can end the session.");
+        if (sessionEngine.findCachedSession(sessionId) == null && archiveService.findArchived(sessionId) != null) {
+            throw new IllegalStateException("Session already ended.");
         }
-
-        String pickedRestaurant = endSession(session);
+        String pickedRestaurant = sessionEngine.end(sessionId, session -> {
+            if (!session.getCreator().getId().equals(userId)) {
+                throw new IllegalStateException("Only the creator of the session can end the session.");
+            }
+            return endSession(session);
+        });
+        // The session has left the engine, so no mutation can record an event after this one
+        sessionEventService.publish(sessionId, SessionEventType.SESSION_ENDED, null, pickedRestaurant);
         log.debug("Finished endSession for session Id {} and user Id {}. Picked Restaurant: {}.", sessionId, userId, pickedRestaurant);
         return pickedRestaurant;
     }
@@ -221,10 +511,14 @@ public class SessionService {
     }
 
     /**
-     * Ends the given session by setting it to inactive, picking a random restaurant from the session's restaurant list,
-     * clearing the restaurant list, saving the session, and deleting all restaurants.
+     * Ends the given session by setting it to inactive and picking a restaurant from the session's restaurant list
+     * with the session's voting method.
+     * The summary of the session is appended to the session history, then the session, its links, its ballots and its
+     * restaurants are removed from the live tables with bulk deletes, so those tables only hold sessions that are still running.
+     * Must run inside a transaction, which {@link ActiveSessionEngine#end} provides.
      *
      * @param session the session to be ended
+     * @return the name of the picked restaurant, or an empty string if no restaurant was submitted
      * @throws IllegalStateException if the session is already ended
      */
     public String endSession(Session session) {
@@ -232,26 +526,21 @@ public class SessionService {
             throw new IllegalStateException("Session already ended.");
         }
 
-        session.setActive(false);
-        String pickedRestaurant = "";
-        int size = session.getRestaurants().size();
-        if (size > 0) {
-            int itemIndex = new Random().nextInt(size);
-            int i = 0;
-            for (Restaurant restaurant : session.getRestaurants()) {
-                if (i == itemIndex) {
-                    pickedRestaurant = restaurant.getName();
-                    break;
-                }
-                i++;
-            }
+        Restaurant pickedRestaurant = votingService.pick(session.getId(), session.getVotingMethod(),
+                new ArrayList<>(session.getRestaurants()));
 
-//            session.setRestaurants(new HashSet<>());
-//            sessionRepository.saveAndFlush(session);
+        archiveService.archive(session, pickedRestaurant, Instant.now());
+        membershipRepository.deleteLinks(session.getId());
+        sessionRepository.deleteSession(session.getId());
+        List<UUID> restaurantIds = session.getRestaurants().stream()
+                .map(Restaurant::getId)
+                .collect(Collectors.toList());
+        if (!restaurantIds.isEmpty()) {
+            restaurantRepository.deleteAllByIdIn(restaurantIds);
         }
-        sessionRepository.delete(session);
 
-        restaurantRepository.deleteAll();
-        return pickedRestaurant;
+        session.setActive(false);
+        session.setPickedRestaurant(pickedRestaurant);
+        return pickedRestaurant == null ? "" : pickedRestaurant.getName();
     }
 }
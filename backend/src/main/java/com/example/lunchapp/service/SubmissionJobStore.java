@@ -0,0 +1,136 @@
+package com.example.lunchapp.service;
+
+import com.example.lunchapp.dto.SubmissionJob;
+import com.example.lunchapp.dto.SubmissionStatus;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+
+/**
+ * The SubmissionJobStore keeps the state of asynchronous restaurant submissions in memory.
+ * It holds at most {@code maxJobs} jobs, evicting the oldest first, and drops jobs {@code ttl} after they were created.
+ */
+@Component
+@Log4j2
+public class SubmissionJobStore {
+
+    private final Duration ttl;
+
+    private final Clock clock;
+
+    // Insertion order is creation order, so the eldest entry is always the first to expire
+    private final LinkedHashMap<UUID, SubmissionJob> jobs;
+
+    @Autowired
+    public SubmissionJobStore(@Value("${submissions.max-jobs:10000}") int maxJobs,
+                              @Value("${submissions.job-ttl-ms:600000}") long ttlMillis) {
+        this(maxJobs, Duration.ofMillis(ttlMillis), Clock.systemUTC());
+    }
+
+    SubmissionJobStore(int maxJobs, Duration ttl, Clock clock) {
+        this.ttl = ttl;
+        this.clock = clock;
+        this.jobs = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, SubmissionJob> eldest) {
+                return size() > maxJobs;
+            }
+        };
+    }
+
+    /**
+     * Creates a pending job.
+     *
+     * @param sessionId      the ID of the session
+     * @param userId         the ID of the submitting user
+     * @param restaurantName the name of the submitted restaurant
+     * @return the created job
+     */
+    public synchronized SubmissionJob create(UUID sessionId, UUID userId, String restaurantName) {
+        Instant now = clock.instant();
+        SubmissionJob job = SubmissionJob.builder()
+                .jobId(UUID.randomUUID())
+                .sessionId(sessionId)
+                .userId(userId)
+                .restaurantName(restaurantName)
+                .status(SubmissionStatus.PENDING)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+        jobs.put(job.getJobId(), job);
+        return job;
+    }
+
+    /**
+     * Records the outcome of a job. Jobs that were evicted in the meantime are ignored.
+     *
+     * @param jobId        the ID of the job
+     * @param status       the final status
+     * @param restaurantId the ID of the added restaurant, or null
+     * @param message      the reason of a failure, or null
+     */
+    public synchronized void complete(UUID jobId, SubmissionStatus status, UUID restaurantId, String message) {
+        SubmissionJob job = jobs.get(jobId);
+        if (job == null) {
+            log.debug("Submission job {} completed after it was evicted", jobId);
+            return;
+        }
+        // replace keeps the insertion position, so completing a job does not extend its lifetime
+        jobs.replace(jobId, job.toBuilder()
+                .status(status)
+                .restaurantId(restaurantId)
+                .message(message)
+                .updatedAt(clock.instant())
+                .build());
+    }
+
+    /**
+     * Returns a job, or null if it is unknown or expired.
+     *
+     * @param jobId the ID of the job
+     * @return the job, or null
+     */
+    public synchronized SubmissionJob get(UUID jobId) {
+        SubmissionJob job = jobs.get(jobId);
+        if (job != null && isExpired(job, clock.instant())) {
+            jobs.remove(jobId);
+            return null;
+        }
+        return job;
+    }
+
+    public synchronized void remove(UUID jobId) {
+        jobs.remove(jobId);
+    }
+
+    /**
+     * Drops expired jobs, oldest first, stopping at the first job that is still alive.
+     */
+    @Scheduled(fixedDelayString = "${submissions.purge-interval-ms:60000}")
+    public synchronized void purgeExpired() {
+        Instant now = clock.instant();
+        Iterator<SubmissionJob> iterator = jobs.values().iterator();
+        while (iterator.hasNext() && isExpired(iterator.next(), now)) {
+            iterator.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return jobs.size();
+    }
+
+    private boolean isExpired(SubmissionJob job, Instant now) {
+        return !job.getCreatedAt().plus(ttl).isAfter(now);
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.lunchapp.service;
+
+import com.example.lunchapp.dto.UserImportResult;
+import com.example.lunchapp.dto.UserImportStatus;
+import com.example.lunchapp.model.User;
+import com.example.lunchapp.repository.UserImportRepository;
+import com.example.lunchapp.util.JwtUtil;
+import com.example.lunchapp.util.UuidV7Generator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * The UserImportService creates users in bulk from an uploaded CSV or NDJSON file. The file is read one line at a
+ * time and the valid rows are inserted in JDBC batches, each in its own transaction, so memory use does not grow
+ * with the file. If the upload breaks off, the rows already reported as created stay created and the pending batch
+ * is dropped.
+ * <p>
+ * Every row gets one result with its line number. Invalid rows are reported as soon as they are read, the others
+ * once their batch is written.
+ */
+@Service
+@Log4j2
+public class UserImportService {
+
+    /**
+     * The formats an import can be uploaded in.
+     */
+    public enum Format {
+        /**
+         * Comma-separated name and email, optionally with a header line naming the columns.
+         */
+        CSV,
+        /**
+         * One JSON object with name and email per line.
+         */
+        NDJSON
+    }
+
+    static final int MAX_LENGTH = 255;
+
+    private final UserImportRepository userImportRepository;
+
+    private final UserSearchIndex userSearchIndex;
+
+    private final JwtUtil jwtUtil;
+
+    private final ObjectMapper objectMapper;
+
+    private final int batchSize;
+
+    @Autowired
+    public UserImportService(UserImportRepository userImportRepository, UserSearchIndex userSearchIndex,
+                             JwtUtil jwtUtil, ObjectMapper objectMapper,
+                             @Value("${users.import.batch-size:500}") int batchSize) {
+        this.userImportRepository = userImportRepository;
+        this.userSearchIndex = userSearchIndex;
+        this.jwtUtil = jwtUtil;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Imports the users of a file and passes the result of every row to the consumer.
+     *
+     * @param reader      the file
+     * @param format      the format of the file
+     * @param issueTokens whether to issue a JWT for every created user
+     * @param results     the consumer of the row results
+     */
+    public void importUsers(BufferedReader reader, Format format, boolean issueTokens, Consumer<UserImportResult> results) {
+        log.debug("Starting {} user import, tokens {}", format, issueTokens);
+        List<Long> lines = new ArrayList<>(batchSize);
+        List<User> batch = new ArrayList<>(batchSize);
+        int[] columns = null;
+        long lineNumber = 0;
+        long created = 0;
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                User user;
+                try {
+                    if (format == Format.NDJSON) {
+                        user = parseJson(line);
+                    } else if (columns == null) {
+                        // The first line is either a header naming the columns or a row in name, email order
+                        List<String> fields = parseCsv(line);
+                        columns = headerColumns(fields);
+                        if (columns != null) {
+                            continue;
+                        }
+                        columns = new int[]{0, 1};
+                        user = toUser(fields, columns);
+                    } else {
+                        user = toUser(parseCsv(line), columns);
+                    }
+                } catch (IllegalArgumentException e) {
+                    results.accept(new UserImportResult(lineNumber, null, null, UserImportStatus.INVALID, e.getMessage(), null));
+                    continue;
+                }
+                String problem = validate(user);
+                if (problem != null) {
+                    results.accept(new UserImportResult(lineNumber, user.getName(), null, UserImportStatus.INVALID, problem, null));
+                    continue;
+                }
+                lines.add(lineNumber);
+                batch.add(user);
+                if (batch.size() >= batchSize) {
+                    created += flush(lines, batch, issueTokens, results);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        created += flush(lines, batch, issueTokens, results);
+        log.debug("Finished user import, {} lines read, {} users created", lineNumber, created);
+    }
+
+    private int flush(List<Long> lines, List<User> batch, boolean issueTokens, Consumer<UserImportResult> results) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        int[] counts = userImportRepository.insertAll(batch);
+        int created = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            User user = batch.get(i);
+            if (counts[i] > 0) {
+                created++;
+                userSearchIndex.add(user);
+                String token = issueTokens ? jwtUtil.generateToken(user.getId().toString()) : null;
+                results.accept(new UserImportResult(lines.get(i), user.getName(), user.getId(), UserImportStatus.CREATED, null, token));
+            } else {
+                results.accept(new UserImportResult(lines.get(i), user.getName(), null, UserImportStatus.DUPLICATE,
+                        "A user with the same name already exists.", null));
+            }
+        }
+        lines.clear();
+        batch.clear();
+        return created;
+    }
+
+    private User parseJson(String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON");
+        }
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        return newUser(text(node.get("name")), text(node.get("email")));
+    }
+
+    private static String text(JsonNode node) {
+        return node == null || node.isNull() ? null : node.asText();
+    }
+
+    private static int[] headerColumns(List<String> fields) {
+        int name = -1;
+        int email = -1;
+        for (int i = 0; i < fields.size(); i++) {
+            String field = fields.get(i).trim().toLowerCase(Locale.ROOT);
+            if (field.equals("name")) {
+                name = i;
+            } else if (field.equals("email")) {
+                email = i;
+            }
+        }
+        return name < 0 ? null : new int[]{name, email};
+    }
+
+    private static User toUser(List<String> fields, int[] columns) {
+        return newUser(field(fields, columns[0]), field(fields, columns[1]));
+    }
+
+    private static String field(List<String> fields, int column) {
+        return column < 0 || column >= fields.size() ? null : fields.get(column).trim();
+    }
+
+    private static User newUser(String name, String email) {
+        return User.builder()
+                .id(UuidV7Generator.next())
+                .name(name)
+                .email(email == null || email.isBlank() ? null : email)
+                .build();
+    }
+
+    /**
+     * Splits one CSV line into its fields. Fields may be quoted, with quotes inside doubled; a quoted field
+     * cannot span lines.
+     */
+    static List<String> parseCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Checks a row against the constraints of the app_user table, so one bad row cannot fail its whole batch.
+     *
+     * @return the problem with the row, or null if it is valid
+     */
+    private static String validate(User user) {
+        if (user.getName() == null || user.getName().isBlank()) {
+            return "Name is mandatory";
+        }
+        if (user.getName().length() > MAX_LENGTH) {
+            return "Name is longer than " + MAX_LENGTH + " characters";
+        }
+        if (user.getEmail() != null && user.getEmail().length() > MAX_LENGTH) {
+            return "Email is longer than " + MAX_LENGTH + " characters";
+        }
+        return null;
+    }
+}
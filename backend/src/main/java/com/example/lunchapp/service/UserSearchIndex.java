@@ -0,0 +1,147 @@
+package com.example.lunchapp.service;
+
+import com.example.lunchapp.model.User;
+import com.example.lunchapp.repository.UserRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * The UserSearchIndex answers prefix searches over user names and emails from memory, for invite autocomplete.
+ * Every user is indexed under its whole name, each word of its name and its email, folded to lower case without
+ * accents. The keys are kept sorted in skip lists, so a prefix is a range scan that stops after the requested number
+ * of users, and searches run concurrently with incremental updates without locks.
+ * <p>
+ * Matches of the name come before matches of the email, each in key order. The index is built from the database at
+ * startup and kept up to date by {@link UserService}.
+ */
+@Component
+@Log4j2
+public class UserSearchIndex {
+
+    // Separates the indexed key from the user ID, and sorts before any character a key can contain
+    private static final char SEPARATOR = '\u0000';
+
+    private static final Pattern WORD_SEPARATORS = Pattern.compile("[\\s._@-]+");
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final UserRepository userRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final NavigableMap<String, User> names = new ConcurrentSkipListMap<>();
+
+    private final NavigableMap<String, User> emails = new ConcurrentSkipListMap<>();
+
+    @Autowired
+    public UserSearchIndex(UserRepository userRepository, PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Indexes every stored user, reading them from a database cursor.
+     */
+    @PostConstruct
+    public void build() {
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (var users = userRepository.streamAllByOrderByIdAsc()) {
+                users.forEach(this::add);
+            }
+        });
+        log.info("Indexed {} user keys for search in {} ms", names.size() + emails.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Adds a user to the index.
+     *
+     * @param user the user to add, with its ID
+     */
+    public void add(User user) {
+        for (String key : nameKeys(user)) {
+            names.put(key + SEPARATOR + user.getId(), user);
+        }
+        if (user.getEmail() != null && !user.getEmail().isBlank()) {
+            emails.put(normalize(user.getEmail()) + SEPARATOR + user.getId(), user);
+        }
+    }
+
+    /**
+     * Removes a user from the index.
+     *
+     * @param user the user to remove, as it was added
+     */
+    public void remove(User user) {
+        for (String key : nameKeys(user)) {
+            names.remove(key + SEPARATOR + user.getId());
+        }
+        if (user.getEmail() != null && !user.getEmail().isBlank()) {
+            emails.remove(normalize(user.getEmail()) + SEPARATOR + user.getId());
+        }
+    }
+
+    /**
+     * Finds the users whose name, a word of their name, or email starts with the query, ignoring case and accents.
+     *
+     * @param query the prefix typed so far
+     * @param limit the maximum number of users to return
+     * @return the matching users, name matches first
+     */
+    public List<User> search(String query, int limit) {
+        String prefix = query == null ? "" : normalize(query.trim());
+        if (prefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Map<UUID, User> found = new LinkedHashMap<>();
+        collect(names, prefix, limit, found);
+        collect(emails, prefix, limit, found);
+        return new ArrayList<>(found.values());
+    }
+
+    private static void collect(NavigableMap<String, User> keys, String prefix, int limit, Map<UUID, User> found) {
+        // Every key starting with the prefix sorts between the prefix and the prefix followed by the highest char
+        for (User user : keys.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            if (found.size() >= limit) {
+                return;
+            }
+            found.putIfAbsent(user.getId(), user);
+        }
+    }
+
+    private static List<String> nameKeys(User user) {
+        if (user.getName() == null || user.getName().isBlank()) {
+            return List.of();
+        }
+        String name = normalize(user.getName());
+        List<String> keys = new ArrayList<>();
+        keys.add(name);
+        for (String word : WORD_SEPARATORS.split(name)) {
+            if (!word.isEmpty() && !word.equals(name) && !keys.contains(word)) {
+                keys.add(word);
+            }
+        }
+        return keys;
+    }
+
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
@@ -2,14 +2,21 @@ package com.example.lunchapp.service;
 
 import com.example.lunchapp.model.User;
 import com.example.lunchapp.repository.UserRepository;
+import com.example.lunchapp.util.ReadFromReplica;
 import lombok.extern.log4j.Log4j2;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import javax.persistence.EntityExistsException;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 
 /**
@@ -17,21 +24,56 @@ import java.util.UUID;
  */
 @Service
 @Log4j2
+@Timed(value = "lunchapp.service", description = "Time spent in service methods")
 public class UserService {
 
     private final UserRepository userRepository;
 
+    private final UserSearchIndex userSearchIndex;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @Autowired
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, UserSearchIndex userSearchIndex) {
         this.userRepository = userRepository;
+        this.userSearchIndex = userSearchIndex;
     }
 
-    public List<User> getAllUsers() {
-        List<User> users = userRepository.findAll();
-        log.debug("Found {} users", users.size());
+    /**
+     * Returns one page of users in ID order.
+     *
+     * @param afterId the last user ID of the previous page, or null for the first page
+     * @param limit   the maximum number of users to return
+     * @return the users of the page
+     */
+    @ReadFromReplica
+    public List<User> getUsers(UUID afterId, int limit) {
+        PageRequest page = PageRequest.of(0, limit);
+        List<User> users = afterId == null
+                ? userRepository.findAllByOrderByIdAsc(page)
+                : userRepository.findByIdGreaterThanOrderByIdAsc(afterId, page);
+        log.debug("Found {} users after id {}", users.size(), afterId);
         return users;
     }
 
+    /**
+     * Passes every user to the consumer, reading them from a database cursor.
+     * The persistence context is cleared after each user, so memory use does not grow with the table.
+     *
+     * @param consumer the consumer of the users
+     */
+    @ReadFromReplica
+    public void streamAllUsers(Consumer<User> consumer) {
+        try (Stream<User> users = userRepository.streamAllByOrderByIdAsc()) {
+            users.forEach(user -> {
+                consumer.accept(user);
+                entityManager.clear();
+            });
+        }
+    }
+
+    @ReadFromReplica
     public User getUserById(UUID id) {
         log.debug("Executing getUserById for id {}", id);
         User user = userRepository.findById(id).orElseThrow(() -> {
@@ -49,6 +91,7 @@ public class UserService {
      * @return The User object found.
      * @throws RuntimeException If the user with the given name is not found.
      */
+    @ReadFromReplica
     public User getUserByName(String name) {
         log.debug("Executing getUserByName for name {}", name);
         User user = userRepository.findByName(name);
@@ -60,10 +103,24 @@ public class UserService {
         return user;
     }
 
+    /**
+     * Finds the users whose name, a word of their name, or email starts with the query, from the in-memory index.
+     *
+     * @param query the prefix typed so far
+     * @param limit the maximum number of users to return
+     * @return the matching users, name matches first
+     */
+    public List<User> searchUsers(String query, int limit) {
+        List<User> users = userSearchIndex.search(query, limit);
+        log.debug("Found {} users matching {}", users.size(), query);
+        return users;
+    }
+
     public User createUser(User user) {
         log.debug("Executing createUser for user {}", user);
         try {
             User savedUser = userRepository.save(user);
+            userSearchIndex.add(savedUser);
             log.debug("Created user with id {}", savedUser.getId());
             return savedUser;
         } catch (DataIntegrityViolationException e) {
@@ -75,12 +132,12 @@ public class UserService {
 
     public void deleteUser(UUID id) {
         log.debug("Executing deleteUser for id {}", id);
-        if (userRepository.existsById(id)) {
-            userRepository.deleteById(id);
-            log.debug("Deleted user with id {}", id);
-        } else {
+        User user = userRepository.findById(id).orElseThrow(() -> {
             log.error("User with id {} not found", id);
-            throw new RuntimeException("User not found");
-        }
+            return new RuntimeException("User not found");
+        });
+        userRepository.delete(user);
+        userSearchIndex.remove(user);
+        log.debug("Deleted user with id {}", id);
     }
 }
@@ -0,0 +1,39 @@
+package com.example.lunchapp.service.voting;
+
+import com.example.lunchapp.model.Restaurant;
+import com.example.lunchapp.model.VotingMethod;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks the restaurant with the most approvals. Ties are broken uniformly at random in the same pass.
+ */
+@Component
+public class ApprovalPickStrategy implements PickStrategy {
+
+    @Override
+    public VotingMethod getMethod() {
+        return VotingMethod.APPROVAL;
+    }
+
+    @Override
+    public Restaurant pick(List<Restaurant> candidates, VoteTally tally) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Restaurant picked = null;
+        long most = -1;
+        int ties = 0;
+        for (Restaurant candidate : candidates) {
+            long approvals = tally.approvals(candidate.getId());
+            if (approvals > most) {
+                most = approvals;
+                picked = candidate;
+                ties = 1;
+            } else if (approvals == most && random.nextInt(++ties) == 0) {
+                picked = candidate;
+            }
+        }
+        return picked;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.lunchapp.service.voting;
+
+import com.example.lunchapp.model.Restaurant;
+import com.example.lunchapp.model.VotingMethod;
+
+import java.util.List;
+
+/**
+ * A PickStrategy picks the restaurant of an ending session from its candidates and the cast votes.
+ * Every {@link VotingMethod} has exactly one strategy bean.
+ */
+public interface PickStrategy {
+
+    /**
+     * Returns the voting method this strategy implements.
+     */
+    VotingMethod getMethod();
+
+    /**
+     * Picks one of the candidates. Without any votes for a candidate, every candidate is equally likely.
+     *
+     * @param candidates the restaurants of the session, not empty
+     * @param tally      the votes cast in the session
+     * @return the picked restaurant
+     */
+    Restaurant pick(List<Restaurant> candidates, VoteTally tally);
+}
@@ -0,0 +1,79 @@
+package com.example.lunchapp.service.voting;
+
+import com.example.lunchapp.model.Restaurant;
+import com.example.lunchapp.model.VotingMethod;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks a restaurant by instant-runoff: every ballot counts for its most preferred remaining restaurant,
+ * and the restaurant with the fewest votes is eliminated until one has a majority of the counted ballots.
+ * Ties for the last place are broken at random, and all restaurants without any vote are eliminated in one round.
+ */
+@Component
+public class RankedChoicePickStrategy implements PickStrategy {
+
+    @Override
+    public VotingMethod getMethod() {
+        return VotingMethod.RANKED_CHOICE;
+    }
+
+    @Override
+    public Restaurant pick(List<Restaurant> candidates, VoteTally tally) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Map<UUID, Restaurant> remaining = new HashMap<>();
+        candidates.forEach(candidate -> remaining.put(candidate.getId(), candidate));
+
+        while (remaining.size() > 1) {
+            Map<UUID, Long> counts = new HashMap<>();
+            remaining.keySet().forEach(id -> counts.put(id, 0L));
+            long counted = 0;
+            for (List<UUID> ballot : tally.ballots()) {
+                for (UUID restaurantId : ballot) {
+                    if (remaining.containsKey(restaurantId)) {
+                        counts.merge(restaurantId, 1L, Long::sum);
+                        counted++;
+                        break;
+                    }
+                }
+            }
+            if (counted == 0) {
+                break;
+            }
+
+            UUID last = null;
+            long fewest = Long.MAX_VALUE;
+            int ties = 0;
+            for (Map.Entry<UUID, Long> entry : counts.entrySet()) {
+                if (entry.getValue() * 2 > counted) {
+                    return remaining.get(entry.getKey());
+                }
+                if (entry.getValue() < fewest) {
+                    fewest = entry.getValue();
+                    last = entry.getKey();
+                    ties = 1;
+                } else if (entry.getValue() == fewest && random.nextInt(++ties) == 0) {
+                    last = entry.getKey();
+                }
+            }
+            if (fewest == 0) {
+                // restaurants without a first preference cannot affect the outcome, so they go in one round
+                counts.forEach((id, count) -> {
+                    if (count == 0) {
+                        remaining.remove(id);
+                    }
+                });
+            } else {
+                remaining.remove(last);
+            }
+        }
+
+        List<Restaurant> left = List.copyOf(remaining.values());
+        return left.get(random.nextInt(left.size()));
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.lunchapp.service.voting;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The VoteTally keeps the ballots of one session and the number of approvals of each restaurant.
+ * Approval counts are maintained incrementally with one {@link LongAdder} per restaurant, so casting a vote
+ * never locks the session and reading a count does not scan the ballots.
+ */
+public class VoteTally {
+
+    private final ConcurrentMap<UUID, List<UUID>> ballots = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<UUID, LongAdder> approvals = new ConcurrentHashMap<>();
+
+    private final Set<UUID> pendingUserIds = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean closed;
+
+    /**
+     * Creates a tally from ballots that are already persisted.
+     *
+     * @param ballots the ranked restaurant IDs of each ballot, keyed by user ID
+     * @return the tally
+     */
+    public static VoteTally of(Map<UUID, List<UUID>> ballots) {
+        VoteTally tally = new VoteTally();
+        ballots.forEach(tally::apply);
+        return tally;
+    }
+
+    /**
+     * Casts or replaces the ballot of a user and queues it for the next flush.
+     *
+     * @param userId the ID of the voting user
+     * @param ballot the restaurant IDs the user votes for, most preferred first
+     * @throws IllegalStateException if voting is closed
+     */
+    public void cast(UUID userId, List<UUID> ballot) {
+        if (closed) {
+            throw new IllegalStateException("Session already ended.");
+        }
+        apply(userId, List.copyOf(ballot));
+        pendingUserIds.add(userId);
+    }
+
+    private void apply(UUID userId, List<UUID> ballot) {
+        // compute is atomic per user, so a replaced ballot is always subtracted exactly once
+        ballots.compute(userId, (id, previous) -> {
+            if (previous != null) {
+                previous.forEach(restaurantId -> approvals.get(restaurantId).decrement());
+            }
+            ballot.forEach(restaurantId -> approvals.computeIfAbsent(restaurantId, key -> new LongAdder()).increment());
+            return ballot;
+        });
+    }
+
+    /**
+     * Returns the number of ballots that contain the given restaurant.
+     *
+     * @param restaurantId the ID of the restaurant
+     * @return the number of approvals
+     */
+    public long approvals(UUID restaurantId) {
+        LongAdder counter = approvals.get(restaurantId);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Returns the cast ballots, most preferred restaurant first.
+     */
+    public Collection<List<UUID>> ballots() {
+        return ballots.values();
+    }
+
+    /**
+     * Stops accepting ballots; called when the session ends.
+     */
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * Accepts ballots again after ending the session failed.
+     */
+    public void reopen() {
+        closed = false;
+    }
+
+    /**
+     * Removes and returns the ballots cast since the last call, keyed by user ID.
+     */
+    Map<UUID, List<UUID>> drainPending() {
+        Map<UUID, List<UUID>> pending = new HashMap<>();
+        for (UUID userId : pendingUserIds) {
+            pendingUserIds.remove(userId);
+            pending.put(userId, ballots.get(userId));
+        }
+        return pending;
+    }
+
+    void requeue(Collection<UUID> userIds) {
+        pendingUserIds.addAll(userIds);
+    }
+
+    boolean hasPending() {
+        return !pendingUserIds.isEmpty();
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.lunchapp.service.voting;
+
+import com.example.lunchapp.model.Restaurant;
+import com.example.lunchapp.model.VotingMethod;
+import com.example.lunchapp.repository.VoteRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * The VotingService keeps the vote tallies of active sessions in memory and picks the restaurant of an ending session
+ * with the {@link PickStrategy} of its voting method. Tallies are loaded from the votes table on a miss,
+ * and cast ballots are persisted by a batched write-behind flush.
+ */
+@Service
+@Log4j2
+public class VotingService {
+
+    private final VoteRepository voteRepository;
+
+    private final Map<VotingMethod, PickStrategy> strategies = new EnumMap<>(VotingMethod.class);
+
+    private final ConcurrentMap<UUID, VoteTally> tallies = new ConcurrentHashMap<>();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @Autowired
+    public VotingService(VoteRepository voteRepository, List<PickStrategy> pickStrategies) {
+        this.voteRepository = voteRepository;
+        pickStrategies.forEach(strategy -> strategies.put(strategy.getMethod(), strategy));
+    }
+
+    /**
+     * Casts or replaces the ballot of a user. The caller checks that the user and the restaurants belong to the session,
+     * and calls it from the session's mailbox, so ballots are ordered with {@link #pick}.
+     *
+     * @param sessionId the ID of the session
+     * @param userId    the ID of the voting user
+     * @param ballot    the restaurant IDs the user votes for, most preferred first
+     * @throws IllegalStateException if the session already ended
+     */
+    public void castVote(UUID sessionId, UUID userId, List<UUID> ballot) {
+        tally(sessionId).cast(userId, ballot);
+    }
+
+    /**
+     * Closes voting for a session, deletes its ballots and picks its restaurant. Ballots still pending are dropped
+     * instead of written, and a flush that is writing them is waited for, so no ballot of the session is left behind.
+     * Inside a transaction the tally is only dropped on commit; on rollback voting is reopened
+     * and the pending ballots are queued again.
+     *
+     * @param sessionId  the ID of the session
+     * @param method     the voting method of the session, the default method if null
+     * @param candidates the restaurants of the session
+     * @return the picked restaurant, or null if there are no candidates
+     */
+    public Restaurant pick(UUID sessionId, VotingMethod method, List<Restaurant> candidates) {
+        VoteTally tally = tally(sessionId);
+        tally.close();
+        Set<UUID> dropped;
+        flushLock.lock();
+        try {
+            dropped = tally.drainPending().keySet();
+        } finally {
+            flushLock.unlock();
+        }
+        try {
+            voteRepository.deleteBySession(sessionId);
+        } catch (RuntimeException e) {
+            tally.requeue(dropped);
+            tally.reopen();
+            throw e;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        tallies.remove(sessionId, tally);
+                    } else {
+                        tally.requeue(dropped);
+                        tally.reopen();
+                    }
+                }
+            });
+        } else {
+            tallies.remove(sessionId, tally);
+        }
+
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        return strategies.get(method == null ? VotingMethod.WEIGHTED_RANDOM : method).pick(candidates, tally);
+    }
+
+    /**
+     * Writes the pending ballots of every session in one batch.
+     */
+    @Scheduled(fixedDelayString = "${session.engine.flush-interval-ms:250}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<UUID, VoteTally> dirty = new HashMap<>();
+            tallies.forEach((sessionId, tally) -> {
+                if (tally.hasPending()) {
+                    dirty.put(sessionId, tally);
+                }
+            });
+            if (!dirty.isEmpty()) {
+                write(dirty);
+            }
+        } catch (RuntimeException e) {
+            // already logged, the ballots are retried on the next flush
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void write(Map<UUID, VoteTally> dirty) {
+        Map<UUID, Map<UUID, List<UUID>>> ballots = new HashMap<>();
+        dirty.forEach((sessionId, tally) -> ballots.put(sessionId, tally.drainPending()));
+
+        try {
+            voteRepository.replaceBallots(ballots);
+            log.debug("Flushed pending ballots of {} sessions", dirty.size());
+        } catch (RuntimeException e) {
+            log.error("Error occurred while flushing ballots of {} sessions, requeueing", dirty.size(), e);
+            dirty.forEach((sessionId, tally) -> tally.requeue(ballots.get(sessionId).keySet()));
+            throw e;
+        }
+    }
+
+    private VoteTally tally(UUID sessionId) {
+        VoteTally cached = tallies.get(sessionId);
+        if (cached != null) {
+            return cached;
+        }
+        VoteTally loaded = VoteTally.of(voteRepository.findBallots(sessionId));
+        VoteTally existing = tallies.putIfAbsent(sessionId, loaded);
+        return existing != null ? existing : loaded;
+    }
+}
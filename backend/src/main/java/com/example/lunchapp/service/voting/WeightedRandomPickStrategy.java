@@ -0,0 +1,44 @@
+package com.example.lunchapp.service.voting;
+
+import com.example.lunchapp.model.Restaurant;
+import com.example.lunchapp.model.VotingMethod;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Draws a restaurant at random, weighted by its approvals. The draw walks the cumulative weights once, so a pick takes
+ * linear time in the number of candidates; a session is only picked for once, so building a table for constant-time
+ * draws would not pay off.
+ */
+@Component
+public class WeightedRandomPickStrategy implements PickStrategy {
+
+    @Override
+    public VotingMethod getMethod() {
+        return VotingMethod.WEIGHTED_RANDOM;
+    }
+
+    @Override
+    public Restaurant pick(List<Restaurant> candidates, VoteTally tally) {
+        long[] weights = new long[candidates.size()];
+        long total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = tally.approvals(candidates.get(i).getId());
+            total += weights[i];
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (total == 0) {
+            return candidates.get(random.nextInt(candidates.size()));
+        }
+        long draw = random.nextLong(total);
+        for (int i = 0; i < weights.length; i++) {
+            draw -= weights[i];
+            if (draw < 0) {
+                return candidates.get(i);
+            }
+        }
+        throw new IllegalStateException("Draw exceeds the total weight");
+    }
+}
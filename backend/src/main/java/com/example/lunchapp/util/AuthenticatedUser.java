@@ -0,0 +1,44 @@
+package com.example.lunchapp.util;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.security.Principal;
+import java.util.UUID;
+
+/**
+ * The AuthenticatedUser is the principal set by the JwtAuthenticationFilter. It carries the user ID parsed once
+ * from the token, so controllers do not parse {@link Authentication#getName()} on every request.
+ */
+@Getter
+@EqualsAndHashCode(of = "id")
+public class AuthenticatedUser implements Principal {
+
+    private final UUID id;
+
+    private final String name;
+
+    public AuthenticatedUser(UUID id) {
+        this.id = id;
+        this.name = id.toString();
+    }
+
+    /**
+     * Returns the ID of the user of the current request.
+     *
+     * @return the user ID
+     * @throws IllegalStateException if the request is not authenticated
+     */
+    public static UUID currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            throw new IllegalStateException("No authenticated user");
+        }
+        if (authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return user.getId();
+        }
+        return UUID.fromString(authentication.getName());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.lunchapp.util;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * The ETags class builds strong entity tags and matches them against {@code If-None-Match} headers.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * Returns the quoted entity tag made of the given parts.
+     */
+    public static String of(Object... parts) {
+        StringBuilder etag = new StringBuilder("\"");
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                etag.append('-');
+            }
+            etag.append(parts[i]);
+        }
+        return etag.append('"').toString();
+    }
+
+    /**
+     * Returns the quoted entity tag of a serialised representation: the base64url SHA-256 digest of its bytes.
+     */
+    public static String digest(byte[] representation) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(representation);
+            return of(Base64.getUrlEncoder().withoutPadding().encodeToString(hash));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Tells whether an {@code If-None-Match} header matches the current entity tag, with the weak comparison
+     * that header calls for.
+     *
+     * @param ifNoneMatch the header value, or null if the request has none
+     * @param etag        the current entity tag, or null if the resource has none
+     * @return true if the client's copy is current
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
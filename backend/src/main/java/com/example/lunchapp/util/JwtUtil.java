@@ -1,12 +1,24 @@
 package com.example.lunchapp.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.impl.TextCodec;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 
 @Component
@@ -15,8 +27,35 @@ public class JwtUtil {
     @Value("${jwt.secret}")
     private String secret;
 
+    @Value("${jwt.cache.max-size:10000}")
+    private int cacheMaxSize;
+
     private final Long expiration = 3600000L * 10; // 10 hours
 
+    // Derived once from the secret, the same way jjwt derives it from a base64 string
+    private Key signingKey;
+
+    // Verified tokens keyed by their SHA-256 digest, so the raw tokens are not kept in memory
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    @PostConstruct
+    void initSigningKey() {
+        signingKey = new SecretKeySpec(TextCodec.BASE64.decode(secret), SignatureAlgorithm.HS512.getJcaName());
+        // No token outlives its lifetime, so entries written then can go; a full cache evicts the least used
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(expiration, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
     public String generateToken(String username) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expiration);
@@ -24,20 +63,20 @@ public class JwtUtil {
                 .setSubject(username)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(SignatureAlgorithm.HS512, secret)
+                .signWith(SignatureAlgorithm.HS512, signingKey)
                 .compact();
     }
 
     public Claims decodeToken(String token) {
         return Jwts.parser()
-                .setSigningKey(secret)
+                .setSigningKey(signingKey)
                 .parseClaimsJws(token)
                 .getBody();
     }
 
     public boolean validateToken(String token) {
         try {
-            Jwts.parser().setSigningKey(secret).parseClaimsJws(token);
+            decodeToken(token);
             return true;
         } catch (Exception e) {
             return false;
@@ -48,4 +87,41 @@ public class JwtUtil {
         return decodeToken(token).getSubject();
     }
 
+    /**
+     * Verifies a token and returns the user it was issued to. A token is parsed and its signature checked
+     * only on the first call; later calls are served from a bounded cache until the token expires.
+     *
+     * @param token the compact JWT
+     * @return the authenticated user
+     * @throws io.jsonwebtoken.JwtException if the token is invalid or expired
+     * @throws IllegalArgumentException     if the subject of the token is not a user ID
+     */
+    public AuthenticatedUser verify(String token) {
+        String key = digest(token);
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            // A token cached late in its lifetime expires before its entry does
+            if (now < cached.expiresAt()) {
+                return cached.user();
+            }
+            verifiedTokens.invalidate(key);
+        }
+
+        Claims claims = decodeToken(token);
+        AuthenticatedUser user = new AuthenticatedUser(UUID.fromString(claims.getSubject()));
+        Date expiresAt = claims.getExpiration();
+        if (expiresAt != null) {
+            verifiedTokens.put(key, new VerifiedToken(user, expiresAt.getTime()));
+        }
+        return user;
+    }
+
+    private static String digest(String token) {
+        MessageDigest digest = SHA_256.get();
+        return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private record VerifiedToken(AuthenticatedUser user, long expiresAt) {
+    }
 }
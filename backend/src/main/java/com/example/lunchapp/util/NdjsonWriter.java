@@ -0,0 +1,47 @@
+package com.example.lunchapp.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes objects as newline-delimited JSON, one line per object, as they are produced.
+ */
+@Component
+public class NdjsonWriter {
+
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public NdjsonWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Creates a response body that passes a line writer to the producer and streams every object it receives.
+     *
+     * @param producer the producer of the objects, e.g. a service reading from a database cursor
+     * @return the streaming response body
+     */
+    public <T> StreamingResponseBody body(Consumer<Consumer<T>> producer) {
+        ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return out -> {
+            producer.accept(item -> {
+                try {
+                    writer.writeValue(out, item);
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        };
+    }
+}
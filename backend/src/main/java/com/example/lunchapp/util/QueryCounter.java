@@ -0,0 +1,37 @@
+package com.example.lunchapp.util;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * The QueryCounter counts the SQL statements Hibernate prepares on the current thread between {@link #start()}
+ * and {@link #stop()}. It is registered as the Hibernate statement inspector, so statements issued directly
+ * through JdbcTemplate are not counted.
+ */
+public class QueryCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    public static void start() {
+        COUNT.set(new int[1]);
+    }
+
+    /**
+     * Stops counting on the current thread.
+     *
+     * @return the number of statements since {@link #start()}, or 0 if counting was not started
+     */
+    public static int stop() {
+        int[] count = COUNT.get();
+        COUNT.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.lunchapp.util;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a read-only service method whose queries may be answered by a read replica, so the results may be as old as
+ * the replica lag allowed by {@link ReplicaRoutingDataSource}. The method runs in a read-only transaction; if it joins
+ * a read-write transaction, it reads from the primary.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Transactional(readOnly = true)
+public @interface ReadFromReplica {
+}
@@ -0,0 +1,22 @@
+package com.example.lunchapp.util;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * This aspect lets the queries of methods annotated with {@link ReadFromReplica} be routed to a read replica.
+ */
+@Aspect
+public class ReplicaReadAspect {
+
+    @Around("@annotation(com.example.lunchapp.util.ReadFromReplica)")
+    public Object readFromReplica(ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean previous = ReplicaRoutingDataSource.enableReplicaReads();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ReplicaRoutingDataSource.restoreReplicaReads(previous);
+        }
+    }
+}
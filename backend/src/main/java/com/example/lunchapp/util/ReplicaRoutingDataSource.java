@@ -0,0 +1,220 @@
+package com.example.lunchapp.util;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The ReplicaRoutingDataSource sends the queries of read-only transactions run by {@link ReadFromReplica} methods to
+ * a read replica, round robin, and everything else to the primary.
+ * <p>
+ * Replicas are used only while their lag, measured by a periodic lag query, is within the allowed maximum; a replica
+ * that lags behind or cannot be queried is skipped until it catches up, and reads fall back to the primary when no
+ * replica qualifies. A user who has just changed something reads from the primary for a while afterwards, so the user
+ * sees their own writes.
+ * <p>
+ * The replica is chosen when a connection is first used, so this data source has to be wrapped in a
+ * LazyConnectionDataSourceProxy: transaction managers fetch the connection before the transaction is marked read-only.
+ */
+@Log4j2
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private static final long UNAVAILABLE = -1;
+
+    private static final int LAG_QUERY_TIMEOUT_SECONDS = 5;
+
+    private static final ThreadLocal<Boolean> REPLICA_READS = new ThreadLocal<>();
+
+    private final List<Replica> replicas = new ArrayList<>();
+
+    private final String lagQuery;
+
+    private final long maxLagMillis;
+
+    private final long stickyNanos;
+
+    private final Map<String, Long> stickyUntil = new ConcurrentHashMap<>();
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * @param primary      the primary data source
+     * @param replicas     the replica data sources
+     * @param lagQuery     the query returning the lag of a replica in milliseconds, run on each replica
+     * @param maxLagMillis the maximum lag of a replica that still receives reads
+     * @param stickyMillis how long a user reads from the primary after a change
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, String lagQuery,
+                                    long maxLagMillis, long stickyMillis) {
+        this.lagQuery = lagQuery;
+        this.maxLagMillis = maxLagMillis;
+        this.stickyNanos = TimeUnit.MILLISECONDS.toNanos(stickyMillis);
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (DataSource dataSource : replicas) {
+            Replica replica = new Replica("replica-" + (this.replicas.size() + 1), dataSource);
+            this.replicas.add(replica);
+            targets.put(replica.name, dataSource);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Allows the current thread to read from a replica.
+     *
+     * @return whether replica reads were already allowed, to be passed to {@link #restoreReplicaReads}
+     */
+    public static boolean enableReplicaReads() {
+        boolean previous = Boolean.TRUE.equals(REPLICA_READS.get());
+        REPLICA_READS.set(Boolean.TRUE);
+        return previous;
+    }
+
+    public static void restoreReplicaReads(boolean previous) {
+        if (previous) {
+            REPLICA_READS.set(Boolean.TRUE);
+        } else {
+            REPLICA_READS.remove();
+        }
+    }
+
+    /**
+     * Sends the reads of the current user to the primary for the sticky period, starting now.
+     * Does nothing if the request is not authenticated.
+     */
+    public void stickCurrentUserToPrimary() {
+        String user = currentUser();
+        if (user != null) {
+            stickyUntil.put(user, System.nanoTime() + stickyNanos);
+        }
+    }
+
+    /**
+     * Measures the lag of every replica and forgets expired stickiness.
+     */
+    @Scheduled(fixedDelayString = "${datasource.replicas.check-interval-ms:1000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean wasAvailable = replica.isAvailable();
+            try {
+                Long lag = replica.jdbcTemplate.queryForObject(lagQuery, Long.class);
+                replica.lagMillis = lag == null ? UNAVAILABLE : Math.max(lag, 0);
+            } catch (DataAccessException e) {
+                replica.lagMillis = UNAVAILABLE;
+                if (wasAvailable) {
+                    log.warn("Could not measure the lag of {}", replica.name, e);
+                }
+            }
+            if (wasAvailable && !replica.isAvailable()) {
+                log.warn("{} lags {} ms behind, reads fall back to the primary", replica.name, replica.lagMillis);
+            } else if (!wasAvailable && replica.isAvailable()) {
+                log.info("{} caught up with a lag of {} ms", replica.name, replica.lagMillis);
+            }
+        }
+        long now = System.nanoTime();
+        stickyUntil.values().removeIf(until -> until - now <= 0);
+    }
+
+    public List<String> getReplicaNames() {
+        return replicas.stream().map(replica -> replica.name).toList();
+    }
+
+    /**
+     * Returns the last measured lag of a replica.
+     *
+     * @param name the name of the replica
+     * @return the lag in milliseconds, or NaN if the replica could not be measured
+     */
+    public double getLagMillis(String name) {
+        for (Replica replica : replicas) {
+            if (replica.name.equals(name)) {
+                return replica.lagMillis == UNAVAILABLE ? Double.NaN : replica.lagMillis;
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Closes the replica pools; the primary is closed by its owner.
+     */
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicas.isEmpty() || !Boolean.TRUE.equals(REPLICA_READS.get())
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly() || isCurrentUserSticky()) {
+            return PRIMARY;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.isAvailable()) {
+                return replica.name;
+            }
+        }
+        return PRIMARY;
+    }
+
+    private boolean isCurrentUserSticky() {
+        String user = currentUser();
+        if (user == null) {
+            return false;
+        }
+        Long until = stickyUntil.get(user);
+        return until != null && until - System.nanoTime() > 0;
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return user.getName();
+        }
+        return null;
+    }
+
+    private final class Replica {
+
+        private final String name;
+
+        private final DataSource dataSource;
+
+        private final JdbcTemplate jdbcTemplate;
+
+        private volatile long lagMillis = UNAVAILABLE;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+            this.jdbcTemplate.setQueryTimeout(LAG_QUERY_TIMEOUT_SECONDS);
+        }
+
+        private boolean isAvailable() {
+            return lagMillis != UNAVAILABLE && lagMillis <= maxLagMillis;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.lunchapp.util;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The SubmissionExecutor runs asynchronous submissions and never queues without bound. When it is saturated,
+ * {@link #execute(Runnable)} throws a {@link RejectedExecutionException} so callers can answer 429 instead of
+ * losing the work.
+ * <p>
+ * In {@link Mode#BOUNDED} mode tasks run on a thread pool with a bounded queue. In {@link Mode#VIRTUAL} mode every
+ * task gets its own virtual thread and the number of tasks in flight is capped.
+ */
+@Log4j2
+public class SubmissionExecutor implements Executor {
+
+    public enum Mode {
+        BOUNDED,
+        VIRTUAL
+    }
+
+    private final Mode mode;
+
+    private final ExecutorService delegate;
+
+    private final ThreadPoolExecutor pool;
+
+    private final Semaphore inFlight;
+
+    private final int maxInFlight;
+
+    private final AtomicInteger activeTasks = new AtomicInteger();
+
+    private final LongAdder rejectedTasks = new LongAdder();
+
+    private SubmissionExecutor(Mode mode, ExecutorService delegate, ThreadPoolExecutor pool, int maxInFlight) {
+        this.mode = mode;
+        this.delegate = delegate;
+        this.pool = pool;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = pool == null ? new Semaphore(maxInFlight) : null;
+    }
+
+    /**
+     * Creates a thread pool with a bounded queue.
+     *
+     * @param corePoolSize  the number of threads kept alive
+     * @param maxPoolSize   the number of threads once the queue is full
+     * @param queueCapacity the number of tasks waiting for a thread
+     * @param threadPrefix  the name prefix of the threads
+     * @return the executor
+     */
+    public static SubmissionExecutor bounded(int corePoolSize, int maxPoolSize, int queueCapacity, String threadPrefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = task -> new Thread(task, threadPrefix + threadNumber.incrementAndGet());
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(corePoolSize, maxPoolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        return new SubmissionExecutor(Mode.BOUNDED, pool, pool, maxPoolSize + queueCapacity);
+    }
+
+    /**
+     * Creates a virtual-thread-per-task executor that runs at most {@code maxInFlight} tasks at once.
+     * Virtual threads are looked up reflectively, so the application still builds and runs on Java 17.
+     *
+     * @param maxInFlight the number of tasks that may run at once
+     * @return the executor, or empty if the JDK has no virtual threads
+     */
+    public static Optional<SubmissionExecutor> virtual(int maxInFlight) {
+        try {
+            ExecutorService virtualThreads = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            return Optional.of(new SubmissionExecutor(Mode.VIRTUAL, virtualThreads, null, maxInFlight));
+        } catch (ReflectiveOperationException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (inFlight != null && !inFlight.tryAcquire()) {
+            throw reject();
+        }
+        try {
+            delegate.execute(() -> {
+                activeTasks.incrementAndGet();
+                try {
+                    task.run();
+                } finally {
+                    activeTasks.decrementAndGet();
+                    if (inFlight != null) {
+                        inFlight.release();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            if (inFlight != null) {
+                inFlight.release();
+            }
+            throw reject();
+        }
+    }
+
+    private RejectedExecutionException reject() {
+        rejectedTasks.increment();
+        log.warn("Rejected an async submission, {} active and {} queued tasks", getActiveTasks(), getQueueDepth());
+        return new RejectedExecutionException("Too many submissions in progress");
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns the number of tasks waiting for a thread; always 0 in virtual mode.
+     */
+    public int getQueueDepth() {
+        return pool == null ? 0 : pool.getQueue().size();
+    }
+
+    public int getActiveTasks() {
+        return activeTasks.get();
+    }
+
+    public long getRejectedTasks() {
+        return rejectedTasks.sum();
+    }
+
+    /**
+     * Returns the number of tasks that can be running or queued before submissions are rejected.
+     */
+    public int getCapacity() {
+        return maxInFlight;
+    }
+
+    public void shutdown() {
+        delegate.shutdown();
+    }
+}
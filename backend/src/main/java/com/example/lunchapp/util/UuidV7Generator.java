@@ -0,0 +1,47 @@
+package com.example.lunchapp.util;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The UuidV7Generator generates time-ordered version 7 UUIDs (RFC 9562): 48 bits of Unix milliseconds, then 12 bits
+ * of sub-millisecond precision, then 62 random bits. IDs generated close in time sort close together, so inserts
+ * append to the right edge of the primary key and foreign key indexes instead of splitting random pages.
+ * <p>
+ * Generation shares no state between threads: the random bits come from {@link ThreadLocalRandom}, so IDs are
+ * unique but not unpredictable. IDs generated within the same sub-millisecond step are not ordered among themselves.
+ */
+public class UuidV7Generator implements IdentifierGenerator {
+
+    /**
+     * The name to reference the generator by in {@code @GeneratedValue}.
+     */
+    public static final String NAME = "uuid-v7";
+
+    private static final long VERSION = 0x7000L;
+
+    private static final long VARIANT = 0x8000000000000000L;
+
+    private static final long RANDOM_MASK = 0x3FFFFFFFFFFFFFFFL;
+
+    /**
+     * Returns a new version 7 UUID.
+     */
+    public static UUID next() {
+        Instant now = Instant.now();
+        long subMillis = (now.getNano() % 1_000_000) * 4096L / 1_000_000;
+        long mostSigBits = (now.toEpochMilli() << 16) | VERSION | subMillis;
+        long leastSigBits = (ThreadLocalRandom.current().nextLong() & RANDOM_MASK) | VARIANT;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        return next();
+    }
+}
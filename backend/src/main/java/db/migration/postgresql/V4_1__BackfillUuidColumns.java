@@ -0,0 +1,141 @@
+package db.migration.postgresql;
+
+import lombok.extern.log4j.Log4j2;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Fills the uuid shadow columns added by V4 for the rows written before its triggers, walking every table in primary
+ * key order in batches that each commit on their own, so no row stays locked for longer than its batch. Rows written
+ * meanwhile are kept in sync by the triggers. Then validates the not null checks of the shadow columns, which scans
+ * the tables without blocking writes. Every row is updated once, leaving a dead version of it for autovacuum.
+ * <p>
+ * Runs outside a transaction. If it fails, it can be rerun after a repair; the backfilled rows are only written again.
+ */
+@Log4j2
+public class V4_1__BackfillUuidColumns extends BaseJavaMigration {
+
+    public static final int BATCH_SIZE = 5000;
+
+    private static final List<ShadowedTable> TABLES = List.of(
+            new ShadowedTable("app_user", List.of("id"), List.of("id"), "app_user_id_uuid_not_null"),
+            new ShadowedTable("restaurant", List.of("id"), List.of("id"), "restaurant_id_uuid_not_null"),
+            new ShadowedTable("session", List.of("id"), List.of("id", "creator_id", "picked_restaurant_id"),
+                    "session_id_uuid_not_null"),
+            new ShadowedTable("session_restaurants", List.of("session_id", "restaurant_id"),
+                    List.of("session_id", "restaurant_id"), "session_restaurants_uuid_not_null"),
+            new ShadowedTable("session_users", List.of("session_id", "user_id"), List.of("session_id", "user_id"),
+                    "session_users_uuid_not_null"),
+            new ShadowedTable("votes", List.of("id"), List.of("id", "session_id", "user_id", "restaurant_id"),
+                    "votes_uuid_not_null"));
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        connection.setAutoCommit(true);
+        for (ShadowedTable table : TABLES) {
+            long start = System.nanoTime();
+            long rows = backfill(connection, table);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ALTER TABLE " + table.name + " VALIDATE CONSTRAINT " + table.notNullCheck);
+            }
+            log.info("Backfilled the uuid columns of {} rows of {} in {} ms", rows, table.name, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Converts the rows of the table one primary key range at a time. The upper bound of a range is the key a batch
+     * further on; the last range is open.
+     */
+    private static long backfill(Connection connection, ShadowedTable table) throws SQLException {
+        String keys = String.join(", ", table.keys);
+        String placeholders = String.join(", ", Collections.nCopies(table.keys.size(), "?"));
+        String assignments = table.columns.stream()
+                .map(column -> column + "_uuid = " + column + "::uuid")
+                .collect(Collectors.joining(", "));
+        String update = "UPDATE " + table.name + " SET " + assignments + " WHERE ";
+        String after = "(" + keys + ") > (" + placeholders + ")";
+        String upTo = "(" + keys + ") <= (" + placeholders + ")";
+
+        long rows = 0;
+        List<String> lower = null;
+        while (true) {
+            List<String> upper = findKey(connection, "SELECT " + keys + " FROM " + table.name
+                    + (lower == null ? "" : " WHERE " + after) + " ORDER BY " + keys + " OFFSET " + (BATCH_SIZE - 1) + " LIMIT 1", lower);
+            List<String> bounds = new ArrayList<>();
+            List<String> conditions = new ArrayList<>();
+            if (lower != null) {
+                conditions.add(after);
+                bounds.addAll(lower);
+            }
+            if (upper != null) {
+                conditions.add(upTo);
+                bounds.addAll(upper);
+            }
+            String sql = update + (conditions.isEmpty() ? "true" : String.join(" AND ", conditions));
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < bounds.size(); i++) {
+                    statement.setString(i + 1, bounds.get(i));
+                }
+                rows += statement.executeUpdate();
+            }
+            if (upper == null) {
+                return rows;
+            }
+            lower = upper;
+        }
+    }
+
+    private static List<String> findKey(Connection connection, String sql, List<String> lower) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            if (lower != null) {
+                for (int i = 0; i < lower.size(); i++) {
+                    statement.setString(i + 1, lower.get(i));
+                }
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return null;
+                }
+                List<String> key = new ArrayList<>();
+                for (int i = 1; i <= resultSet.getMetaData().getColumnCount(); i++) {
+                    key.add(resultSet.getString(i));
+                }
+                return key;
+            }
+        }
+    }
+
+    /**
+     * A table with its primary key columns, the varchar ID columns that have a uuid shadow column, and the check
+     * that the shadow columns are not null.
+     */
+    private static class ShadowedTable {
+        private final String name;
+        private final List<String> keys;
+        private final List<String> columns;
+        private final String notNullCheck;
+
+        private ShadowedTable(String name, List<String> keys, List<String> columns, String notNullCheck) {
+            this.name = name;
+            this.keys = keys;
+            this.columns = columns;
+            this.notNullCheck = notNullCheck;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+-- The voting method and creation time of sessions, and the ballots. Versioned after the baseline so databases
+-- baselined from the Hibernate schema get them too. A database that ran with ddl-auto=update after voting was added
+-- already has them, hence IF NOT EXISTS.
+
+ALTER TABLE session ADD COLUMN IF NOT EXISTS voting_method varchar(255);
+
+ALTER TABLE session ADD COLUMN IF NOT EXISTS created_at timestamp;
+
+-- Sessions from before voting picked a random restaurant
+UPDATE session SET voting_method = 'WEIGHTED_RANDOM' WHERE voting_method IS NULL;
+
+CREATE TABLE IF NOT EXISTS votes (
+    id            varchar(36) NOT NULL,
+    preference    integer     NOT NULL,
+    restaurant_id varchar(36) NOT NULL,
+    session_id    varchar(36) NOT NULL,
+    user_id       varchar(36) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_votes_session_user ON votes (session_id, user_id);
@@ -0,0 +1,45 @@
+-- The schema Hibernate created with ddl-auto=update before Flyway took over, with the constraint names it generated.
+-- Databases created that way are baselined at this version and only run the later migrations, so everything added
+-- since goes into a later version.
+
+CREATE TABLE app_user (
+    id    varchar(255) NOT NULL,
+    email varchar(255),
+    name  varchar(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE restaurant (
+    id   varchar(255) NOT NULL,
+    name varchar(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE session (
+    id                   varchar(255) NOT NULL,
+    is_active            boolean      NOT NULL,
+    creator_id           varchar(255) NOT NULL,
+    picked_restaurant_id varchar(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE session_restaurants (
+    session_id    varchar(255) NOT NULL,
+    restaurant_id varchar(255) NOT NULL,
+    PRIMARY KEY (session_id, restaurant_id)
+);
+
+CREATE TABLE session_users (
+    session_id varchar(255) NOT NULL,
+    user_id    varchar(255) NOT NULL,
+    PRIMARY KEY (session_id, user_id)
+);
+
+ALTER TABLE app_user ADD CONSTRAINT UK_ca699byqpy39i3fkohu5ya69m UNIQUE (name);
+ALTER TABLE session_restaurants ADD CONSTRAINT UK_3lind7navp0qs5sd1ffwais3x UNIQUE (restaurant_id);
+ALTER TABLE session ADD CONSTRAINT FKiyu13axda5mq6sp4aao5l179y FOREIGN KEY (creator_id) REFERENCES app_user;
+ALTER TABLE session ADD CONSTRAINT FK3ddp9o0hcf5qd0f805uuk8ja8 FOREIGN KEY (picked_restaurant_id) REFERENCES restaurant;
+ALTER TABLE session_restaurants ADD CONSTRAINT FKep8vg9yvy8q1pq4yvhbff2n0l FOREIGN KEY (restaurant_id) REFERENCES restaurant;
+ALTER TABLE session_restaurants ADD CONSTRAINT FKkkl5gs4vnu3p01xst9lxgqxd8 FOREIGN KEY (session_id) REFERENCES session;
+ALTER TABLE session_users ADD CONSTRAINT FKg6x7xtnotaue5eayxnc593xg2 FOREIGN KEY (user_id) REFERENCES app_user;
+ALTER TABLE session_users ADD CONSTRAINT FKopi1g2edldhsym909l1mor8if FOREIGN KEY (session_id) REFERENCES session;
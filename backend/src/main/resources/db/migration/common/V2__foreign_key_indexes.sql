@@ -0,0 +1,9 @@
+-- Lookups by session are served by the primary keys of session_users and session_restaurants, which lead with
+-- session_id, and by the unique key on session_restaurants(restaurant_id). The other sides of the foreign keys are
+-- indexed here, so deleting users and the restaurants of ended sessions does not scan the session tables.
+
+CREATE INDEX IF NOT EXISTS idx_session_users_user_id ON session_users (user_id);
+
+CREATE INDEX IF NOT EXISTS idx_session_creator_id ON session (creator_id);
+
+CREATE INDEX IF NOT EXISTS idx_session_picked_restaurant_id ON session (picked_restaurant_id);
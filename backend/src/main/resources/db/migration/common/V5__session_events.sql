@@ -0,0 +1,15 @@
+-- Backing store of the per-session change feed. Recent events are served from memory; this table answers cursors
+-- older than the in-memory buffer and survives restarts. Sessions are deleted when they end, so there is no
+-- foreign key; rows are purged by age.
+
+CREATE TABLE IF NOT EXISTS session_event (
+    session_id      uuid                     NOT NULL,
+    sequence_number bigint                   NOT NULL,
+    type            varchar(32)              NOT NULL,
+    target_id       uuid,
+    name            varchar(255),
+    occurred_at     timestamp with time zone NOT NULL,
+    CONSTRAINT pk_session_event PRIMARY KEY (session_id, sequence_number)
+);
+
+CREATE INDEX IF NOT EXISTS idx_session_event_occurred_at ON session_event (occurred_at);
@@ -0,0 +1,17 @@
+-- Not partitioned: H2 has no table partitioning.
+
+CREATE TABLE IF NOT EXISTS session_history (
+    id                     uuid                     NOT NULL,
+    creator_id             uuid                     NOT NULL,
+    creator_name           varchar(255),
+    voting_method          varchar(32)              NOT NULL,
+    picked_restaurant_id   uuid,
+    picked_restaurant_name varchar(255),
+    participants           text                     NOT NULL,
+    candidates             text                     NOT NULL,
+    created_at             timestamp with time zone,
+    ended_at               timestamp with time zone NOT NULL,
+    PRIMARY KEY (ended_at, id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_session_history_id ON session_history (id);
@@ -0,0 +1,30 @@
+-- Converts the ID columns of the entities from varchar to native uuid. The foreign keys are dropped while their
+-- columns change type and recreated after.
+
+ALTER TABLE session DROP CONSTRAINT FKiyu13axda5mq6sp4aao5l179y;
+ALTER TABLE session DROP CONSTRAINT FK3ddp9o0hcf5qd0f805uuk8ja8;
+ALTER TABLE session_restaurants DROP CONSTRAINT FKkkl5gs4vnu3p01xst9lxgqxd8;
+ALTER TABLE session_restaurants DROP CONSTRAINT FKep8vg9yvy8q1pq4yvhbff2n0l;
+ALTER TABLE session_users DROP CONSTRAINT FKopi1g2edldhsym909l1mor8if;
+ALTER TABLE session_users DROP CONSTRAINT FKg6x7xtnotaue5eayxnc593xg2;
+
+ALTER TABLE app_user ALTER COLUMN id SET DATA TYPE uuid;
+ALTER TABLE restaurant ALTER COLUMN id SET DATA TYPE uuid;
+ALTER TABLE session ALTER COLUMN id SET DATA TYPE uuid;
+ALTER TABLE session ALTER COLUMN creator_id SET DATA TYPE uuid;
+ALTER TABLE session ALTER COLUMN picked_restaurant_id SET DATA TYPE uuid;
+ALTER TABLE session_restaurants ALTER COLUMN session_id SET DATA TYPE uuid;
+ALTER TABLE session_restaurants ALTER COLUMN restaurant_id SET DATA TYPE uuid;
+ALTER TABLE session_users ALTER COLUMN session_id SET DATA TYPE uuid;
+ALTER TABLE session_users ALTER COLUMN user_id SET DATA TYPE uuid;
+ALTER TABLE votes ALTER COLUMN id SET DATA TYPE uuid;
+ALTER TABLE votes ALTER COLUMN session_id SET DATA TYPE uuid;
+ALTER TABLE votes ALTER COLUMN user_id SET DATA TYPE uuid;
+ALTER TABLE votes ALTER COLUMN restaurant_id SET DATA TYPE uuid;
+
+ALTER TABLE session ADD CONSTRAINT FKiyu13axda5mq6sp4aao5l179y FOREIGN KEY (creator_id) REFERENCES app_user (id);
+ALTER TABLE session ADD CONSTRAINT FK3ddp9o0hcf5qd0f805uuk8ja8 FOREIGN KEY (picked_restaurant_id) REFERENCES restaurant (id);
+ALTER TABLE session_restaurants ADD CONSTRAINT FKkkl5gs4vnu3p01xst9lxgqxd8 FOREIGN KEY (session_id) REFERENCES session (id);
+ALTER TABLE session_restaurants ADD CONSTRAINT FKep8vg9yvy8q1pq4yvhbff2n0l FOREIGN KEY (restaurant_id) REFERENCES restaurant (id);
+ALTER TABLE session_users ADD CONSTRAINT FKopi1g2edldhsym909l1mor8if FOREIGN KEY (session_id) REFERENCES session (id);
+ALTER TABLE session_users ADD CONSTRAINT FKg6x7xtnotaue5eayxnc593xg2 FOREIGN KEY (user_id) REFERENCES app_user (id);
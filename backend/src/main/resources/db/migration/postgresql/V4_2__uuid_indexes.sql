@@ -0,0 +1,36 @@
+-- The indexes of the uuid shadow columns, built without blocking writes; V4.3 moves the keys onto them. Runs outside a
+-- transaction. A failed build leaves an invalid index behind, so each index is dropped first and the script can be
+-- rerun after a repair.
+
+DROP INDEX CONCURRENTLY IF EXISTS app_user_id_uuid_key;
+CREATE UNIQUE INDEX CONCURRENTLY app_user_id_uuid_key ON app_user (id_uuid);
+
+DROP INDEX CONCURRENTLY IF EXISTS restaurant_id_uuid_key;
+CREATE UNIQUE INDEX CONCURRENTLY restaurant_id_uuid_key ON restaurant (id_uuid);
+
+DROP INDEX CONCURRENTLY IF EXISTS session_id_uuid_key;
+CREATE UNIQUE INDEX CONCURRENTLY session_id_uuid_key ON session (id_uuid);
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_session_creator_id_uuid;
+CREATE INDEX CONCURRENTLY idx_session_creator_id_uuid ON session (creator_id_uuid);
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_session_picked_restaurant_id_uuid;
+CREATE INDEX CONCURRENTLY idx_session_picked_restaurant_id_uuid ON session (picked_restaurant_id_uuid);
+
+DROP INDEX CONCURRENTLY IF EXISTS session_restaurants_uuid_key;
+CREATE UNIQUE INDEX CONCURRENTLY session_restaurants_uuid_key ON session_restaurants (session_id_uuid, restaurant_id_uuid);
+
+DROP INDEX CONCURRENTLY IF EXISTS session_restaurants_restaurant_id_uuid_key;
+CREATE UNIQUE INDEX CONCURRENTLY session_restaurants_restaurant_id_uuid_key ON session_restaurants (restaurant_id_uuid);
+
+DROP INDEX CONCURRENTLY IF EXISTS session_users_uuid_key;
+CREATE UNIQUE INDEX CONCURRENTLY session_users_uuid_key ON session_users (session_id_uuid, user_id_uuid);
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_session_users_user_id_uuid;
+CREATE INDEX CONCURRENTLY idx_session_users_user_id_uuid ON session_users (user_id_uuid);
+
+DROP INDEX CONCURRENTLY IF EXISTS votes_id_uuid_key;
+CREATE UNIQUE INDEX CONCURRENTLY votes_id_uuid_key ON votes (id_uuid);
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_votes_session_user_uuid;
+CREATE INDEX CONCURRENTLY idx_votes_session_user_uuid ON votes (session_id_uuid, user_id_uuid);
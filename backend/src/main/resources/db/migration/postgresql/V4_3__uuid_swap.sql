@@ -0,0 +1,125 @@
+-- Swaps the uuid shadow columns in for the varchar ID columns. Every statement only changes the catalog: dropping a
+-- column does not rewrite its table, NOT NULL is proven by the checks V4.1 validated, the keys take over the indexes
+-- V4.2 built, and the foreign keys are added without checking the rows, which V4.4 does. The exclusive locks are
+-- held for as long as that takes; the lock timeout makes the migration roll back rather than queue behind a long
+-- transaction while every request queues behind the migration, and it can simply be rerun.
+-- The dropped columns keep their space in the rows until the rows are written again; a VACUUM FULL or pg_repack in a
+-- quiet hour reclaims it at once, but only the indexes matter for the lookups.
+
+SET LOCAL lock_timeout = '5s';
+
+DROP TRIGGER app_user_sync_uuid ON app_user;
+DROP TRIGGER restaurant_sync_uuid ON restaurant;
+DROP TRIGGER session_sync_uuid ON session;
+DROP TRIGGER session_restaurants_sync_uuid ON session_restaurants;
+DROP TRIGGER session_users_sync_uuid ON session_users;
+DROP TRIGGER votes_sync_uuid ON votes;
+
+DROP FUNCTION app_user_sync_uuid();
+DROP FUNCTION restaurant_sync_uuid();
+DROP FUNCTION session_sync_uuid();
+DROP FUNCTION session_restaurants_sync_uuid();
+DROP FUNCTION session_users_sync_uuid();
+DROP FUNCTION votes_sync_uuid();
+
+ALTER TABLE session
+    DROP CONSTRAINT FKiyu13axda5mq6sp4aao5l179y,
+    DROP CONSTRAINT FK3ddp9o0hcf5qd0f805uuk8ja8;
+
+ALTER TABLE session_restaurants
+    DROP CONSTRAINT FKep8vg9yvy8q1pq4yvhbff2n0l,
+    DROP CONSTRAINT FKkkl5gs4vnu3p01xst9lxgqxd8;
+
+ALTER TABLE session_users
+    DROP CONSTRAINT FKg6x7xtnotaue5eayxnc593xg2,
+    DROP CONSTRAINT FKopi1g2edldhsym909l1mor8if;
+
+-- Dropping the varchar columns also drops their keys and indexes. NOT NULL is set in a statement of its own, since
+-- one ALTER TABLE would drop the check that proves it first.
+
+ALTER TABLE app_user DROP COLUMN id;
+ALTER TABLE app_user RENAME COLUMN id_uuid TO id;
+ALTER TABLE app_user ALTER COLUMN id SET NOT NULL;
+ALTER TABLE app_user
+    DROP CONSTRAINT app_user_id_uuid_not_null,
+    ADD CONSTRAINT app_user_pkey PRIMARY KEY USING INDEX app_user_id_uuid_key;
+
+ALTER TABLE restaurant DROP COLUMN id;
+ALTER TABLE restaurant RENAME COLUMN id_uuid TO id;
+ALTER TABLE restaurant ALTER COLUMN id SET NOT NULL;
+ALTER TABLE restaurant
+    DROP CONSTRAINT restaurant_id_uuid_not_null,
+    ADD CONSTRAINT restaurant_pkey PRIMARY KEY USING INDEX restaurant_id_uuid_key;
+
+ALTER TABLE session
+    DROP COLUMN id,
+    DROP COLUMN creator_id,
+    DROP COLUMN picked_restaurant_id;
+ALTER TABLE session RENAME COLUMN id_uuid TO id;
+ALTER TABLE session RENAME COLUMN creator_id_uuid TO creator_id;
+ALTER TABLE session RENAME COLUMN picked_restaurant_id_uuid TO picked_restaurant_id;
+ALTER TABLE session
+    ALTER COLUMN id SET NOT NULL,
+    ALTER COLUMN creator_id SET NOT NULL;
+ALTER TABLE session
+    DROP CONSTRAINT session_id_uuid_not_null,
+    ADD CONSTRAINT session_pkey PRIMARY KEY USING INDEX session_id_uuid_key;
+ALTER INDEX idx_session_creator_id_uuid RENAME TO idx_session_creator_id;
+ALTER INDEX idx_session_picked_restaurant_id_uuid RENAME TO idx_session_picked_restaurant_id;
+
+ALTER TABLE session_restaurants
+    DROP COLUMN session_id,
+    DROP COLUMN restaurant_id;
+ALTER TABLE session_restaurants RENAME COLUMN session_id_uuid TO session_id;
+ALTER TABLE session_restaurants RENAME COLUMN restaurant_id_uuid TO restaurant_id;
+ALTER TABLE session_restaurants
+    ALTER COLUMN session_id SET NOT NULL,
+    ALTER COLUMN restaurant_id SET NOT NULL;
+ALTER TABLE session_restaurants
+    DROP CONSTRAINT session_restaurants_uuid_not_null,
+    ADD CONSTRAINT session_restaurants_pkey PRIMARY KEY USING INDEX session_restaurants_uuid_key,
+    ADD CONSTRAINT UK_3lind7navp0qs5sd1ffwais3x UNIQUE USING INDEX session_restaurants_restaurant_id_uuid_key;
+
+ALTER TABLE session_users
+    DROP COLUMN session_id,
+    DROP COLUMN user_id;
+ALTER TABLE session_users RENAME COLUMN session_id_uuid TO session_id;
+ALTER TABLE session_users RENAME COLUMN user_id_uuid TO user_id;
+ALTER TABLE session_users
+    ALTER COLUMN session_id SET NOT NULL,
+    ALTER COLUMN user_id SET NOT NULL;
+ALTER TABLE session_users
+    DROP CONSTRAINT session_users_uuid_not_null,
+    ADD CONSTRAINT session_users_pkey PRIMARY KEY USING INDEX session_users_uuid_key;
+ALTER INDEX idx_session_users_user_id_uuid RENAME TO idx_session_users_user_id;
+
+ALTER TABLE votes
+    DROP COLUMN id,
+    DROP COLUMN session_id,
+    DROP COLUMN user_id,
+    DROP COLUMN restaurant_id;
+ALTER TABLE votes RENAME COLUMN id_uuid TO id;
+ALTER TABLE votes RENAME COLUMN session_id_uuid TO session_id;
+ALTER TABLE votes RENAME COLUMN user_id_uuid TO user_id;
+ALTER TABLE votes RENAME COLUMN restaurant_id_uuid TO restaurant_id;
+ALTER TABLE votes
+    ALTER COLUMN id SET NOT NULL,
+    ALTER COLUMN session_id SET NOT NULL,
+    ALTER COLUMN user_id SET NOT NULL,
+    ALTER COLUMN restaurant_id SET NOT NULL;
+ALTER TABLE votes
+    DROP CONSTRAINT votes_uuid_not_null,
+    ADD CONSTRAINT votes_pkey PRIMARY KEY USING INDEX votes_id_uuid_key;
+ALTER INDEX idx_votes_session_user_uuid RENAME TO idx_votes_session_user;
+
+ALTER TABLE session
+    ADD CONSTRAINT FKiyu13axda5mq6sp4aao5l179y FOREIGN KEY (creator_id) REFERENCES app_user NOT VALID,
+    ADD CONSTRAINT FK3ddp9o0hcf5qd0f805uuk8ja8 FOREIGN KEY (picked_restaurant_id) REFERENCES restaurant NOT VALID;
+
+ALTER TABLE session_restaurants
+    ADD CONSTRAINT FKep8vg9yvy8q1pq4yvhbff2n0l FOREIGN KEY (restaurant_id) REFERENCES restaurant NOT VALID,
+    ADD CONSTRAINT FKkkl5gs4vnu3p01xst9lxgqxd8 FOREIGN KEY (session_id) REFERENCES session NOT VALID;
+
+ALTER TABLE session_users
+    ADD CONSTRAINT FKg6x7xtnotaue5eayxnc593xg2 FOREIGN KEY (user_id) REFERENCES app_user NOT VALID,
+    ADD CONSTRAINT FKopi1g2edldhsym909l1mor8if FOREIGN KEY (session_id) REFERENCES session NOT VALID;
@@ -0,0 +1,9 @@
+-- Checks the existing rows against the foreign keys V4.3 added. Validating scans the referencing tables under a lock
+-- that does not block reads or writes.
+
+ALTER TABLE session VALIDATE CONSTRAINT FKiyu13axda5mq6sp4aao5l179y;
+ALTER TABLE session VALIDATE CONSTRAINT FK3ddp9o0hcf5qd0f805uuk8ja8;
+ALTER TABLE session_restaurants VALIDATE CONSTRAINT FKep8vg9yvy8q1pq4yvhbff2n0l;
+ALTER TABLE session_restaurants VALIDATE CONSTRAINT FKkkl5gs4vnu3p01xst9lxgqxd8;
+ALTER TABLE session_users VALIDATE CONSTRAINT FKg6x7xtnotaue5eayxnc593xg2;
+ALTER TABLE session_users VALIDATE CONSTRAINT FKopi1g2edldhsym909l1mor8if;
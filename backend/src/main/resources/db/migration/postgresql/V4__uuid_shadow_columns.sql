@@ -0,0 +1,117 @@
+-- Converts the ID columns of the entities from varchar to native uuid, which halves the primary and join table
+-- indexes and compares keys as 16-byte values instead of collated strings. session_history and session_event are
+-- created with uuid IDs.
+--
+-- Changing the type of a column in place rewrites its table and indexes under an exclusive lock, so the conversion
+-- runs online in steps instead, none of which blocks reads or writes for longer than a catalog change:
+--   V4    adds a uuid shadow column for every ID column, kept in sync with the varchar column by a trigger
+--   V4.1  backfills the shadow columns of the existing rows in short batches and validates they are not null
+--   V4.2  builds the indexes of the shadow columns concurrently
+--   V4.3  swaps the shadow columns in for the varchar columns and moves the keys onto their indexes
+--   V4.4  validates the foreign keys of the swapped columns
+-- Instances of the previous version, which write the IDs as text, fail their writes once V4.3 has run.
+
+SET LOCAL lock_timeout = '5s';
+
+ALTER TABLE app_user ADD COLUMN id_uuid uuid;
+
+ALTER TABLE restaurant ADD COLUMN id_uuid uuid;
+
+ALTER TABLE session
+    ADD COLUMN id_uuid uuid,
+    ADD COLUMN creator_id_uuid uuid,
+    ADD COLUMN picked_restaurant_id_uuid uuid;
+
+ALTER TABLE session_restaurants
+    ADD COLUMN session_id_uuid uuid,
+    ADD COLUMN restaurant_id_uuid uuid;
+
+ALTER TABLE session_users
+    ADD COLUMN session_id_uuid uuid,
+    ADD COLUMN user_id_uuid uuid;
+
+ALTER TABLE votes
+    ADD COLUMN id_uuid uuid,
+    ADD COLUMN session_id_uuid uuid,
+    ADD COLUMN user_id_uuid uuid,
+    ADD COLUMN restaurant_id_uuid uuid;
+
+CREATE FUNCTION app_user_sync_uuid() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    NEW.id_uuid := NEW.id::uuid;
+    RETURN NEW;
+END
+$$;
+
+CREATE FUNCTION restaurant_sync_uuid() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    NEW.id_uuid := NEW.id::uuid;
+    RETURN NEW;
+END
+$$;
+
+CREATE FUNCTION session_sync_uuid() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    NEW.id_uuid := NEW.id::uuid;
+    NEW.creator_id_uuid := NEW.creator_id::uuid;
+    NEW.picked_restaurant_id_uuid := NEW.picked_restaurant_id::uuid;
+    RETURN NEW;
+END
+$$;
+
+CREATE FUNCTION session_restaurants_sync_uuid() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    NEW.session_id_uuid := NEW.session_id::uuid;
+    NEW.restaurant_id_uuid := NEW.restaurant_id::uuid;
+    RETURN NEW;
+END
+$$;
+
+CREATE FUNCTION session_users_sync_uuid() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    NEW.session_id_uuid := NEW.session_id::uuid;
+    NEW.user_id_uuid := NEW.user_id::uuid;
+    RETURN NEW;
+END
+$$;
+
+CREATE FUNCTION votes_sync_uuid() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    NEW.id_uuid := NEW.id::uuid;
+    NEW.session_id_uuid := NEW.session_id::uuid;
+    NEW.user_id_uuid := NEW.user_id::uuid;
+    NEW.restaurant_id_uuid := NEW.restaurant_id::uuid;
+    RETURN NEW;
+END
+$$;
+
+CREATE TRIGGER app_user_sync_uuid BEFORE INSERT OR UPDATE ON app_user
+    FOR EACH ROW EXECUTE FUNCTION app_user_sync_uuid();
+
+CREATE TRIGGER restaurant_sync_uuid BEFORE INSERT OR UPDATE ON restaurant
+    FOR EACH ROW EXECUTE FUNCTION restaurant_sync_uuid();
+
+CREATE TRIGGER session_sync_uuid BEFORE INSERT OR UPDATE ON session
+    FOR EACH ROW EXECUTE FUNCTION session_sync_uuid();
+
+CREATE TRIGGER session_restaurants_sync_uuid BEFORE INSERT OR UPDATE ON session_restaurants
+    FOR EACH ROW EXECUTE FUNCTION session_restaurants_sync_uuid();
+
+CREATE TRIGGER session_users_sync_uuid BEFORE INSERT OR UPDATE ON session_users
+    FOR EACH ROW EXECUTE FUNCTION session_users_sync_uuid();
+
+CREATE TRIGGER votes_sync_uuid BEFORE INSERT OR UPDATE ON votes
+    FOR EACH ROW EXECUTE FUNCTION votes_sync_uuid();
+
+-- Enforced for new rows at once and validated after the backfill without blocking writes. A validated check lets
+-- V4.3 set the columns NOT NULL without scanning the tables.
+ALTER TABLE app_user ADD CONSTRAINT app_user_id_uuid_not_null CHECK (id_uuid IS NOT NULL) NOT VALID;
+ALTER TABLE restaurant ADD CONSTRAINT restaurant_id_uuid_not_null CHECK (id_uuid IS NOT NULL) NOT VALID;
+ALTER TABLE session ADD CONSTRAINT session_id_uuid_not_null
+    CHECK (id_uuid IS NOT NULL AND creator_id_uuid IS NOT NULL) NOT VALID;
+ALTER TABLE session_restaurants ADD CONSTRAINT session_restaurants_uuid_not_null
+    CHECK (session_id_uuid IS NOT NULL AND restaurant_id_uuid IS NOT NULL) NOT VALID;
+ALTER TABLE session_users ADD CONSTRAINT session_users_uuid_not_null
+    CHECK (session_id_uuid IS NOT NULL AND user_id_uuid IS NOT NULL) NOT VALID;
+ALTER TABLE votes ADD CONSTRAINT votes_uuid_not_null
+    CHECK (id_uuid IS NOT NULL AND session_id_uuid IS NOT NULL AND user_id_uuid IS NOT NULL AND restaurant_id_uuid IS NOT NULL) NOT VALID;
@@ -1,28 +1,47 @@
 package com.example.lunchapp.controller;
 
 import com.example.lunchapp.dto.AddRestaurantRequest;
+import com.example.lunchapp.dto.BulkInviteRequest;
+import com.example.lunchapp.dto.InviteResult;
+import com.example.lunchapp.dto.InviteStatus;
 import com.example.lunchapp.dto.InviteUsersRequest;
+import com.example.lunchapp.dto.SessionChanges;
+import com.example.lunchapp.dto.SessionHistoryEntry;
+import com.example.lunchapp.dto.SessionResponse;
+import com.example.lunchapp.dto.SessionSummary;
+import com.example.lunchapp.dto.SubmissionJob;
+import com.example.lunchapp.dto.SubmissionStatus;
+import com.example.lunchapp.dto.Versioned;
+import com.example.lunchapp.dto.VoteRequest;
 import com.example.lunchapp.model.Restaurant;
 import com.example.lunchapp.model.Session;
-import com.example.lunchapp.model.User;
+import com.example.lunchapp.model.VotingMethod;
+import com.example.lunchapp.service.RestaurantSubmissionService;
+import com.example.lunchapp.service.SessionMembershipService;
 import com.example.lunchapp.service.SessionService;
-import com.example.lunchapp.service.UserService;
+import com.example.lunchapp.util.AuthenticatedUser;
 import com.example.lunchapp.util.JwtUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.BindingResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -35,7 +54,10 @@ class SessionControllerTest {
     private SessionService sessionService;
 
     @Mock
-    private UserService userService;
+    private SessionMembershipService membershipService;
+
+    @Mock
+    private RestaurantSubmissionService submissionService;
 
     @Mock
     private JwtUtil jwtUtil;
@@ -63,7 +85,7 @@ class SessionControllerTest {
         mockUserId = UUID.randomUUID();
         SecurityContextHolder.setContext(securityContext);
         when(securityContext.getAuthentication()).thenReturn(authentication);
-        when(authentication.getName()).thenReturn(mockUserId.toString());
+        when(authentication.getPrincipal()).thenReturn(new AuthenticatedUser(mockUserId));
 
         // Create a mock session
         mockSession = new Session();
@@ -76,60 +98,168 @@ class SessionControllerTest {
     /**
      * Retrieves all existing sessions.
      *
-     * @return A list of Session objects representing all sessions.
+     * @return A list of SessionSummary objects representing all sessions.
      */
     @Test
     void testGetAllSessions() {
-        List<Session> sessions = Collections.singletonList(mockSession);
-        when(sessionService.getAllSessions()).thenReturn(sessions);
+        List<SessionSummary> sessions = Collections.singletonList(
+                new SessionSummary(mockSession.getId(), mockUserId, "creator", false, null, 0, 0));
+        when(sessionService.getSessions(null, 1)).thenReturn(sessions);
+        when(sessionService.getSessionListEtag()).thenReturn("\"e-1\"");
+
+        ResponseEntity<List<SessionSummary>> result = sessionController.getAllSessions(null, 1, null);
+
 
-        List<Session> result = sessionController.getAllSessions();
+        assertEquals(sessions, result.getBody());
+        assertEquals(mockSession.getId().toString(), result.getHeaders().getFirst(SessionController.NEXT_CURSOR_HEADER));
+        assertEquals("\"e-1\"", result.getHeaders().getETag());
+        verify(sessionService, times(1)).getSessions(null, 1);
+    }
+
+    @Test
+    void testGetAllSessions_NotModified() {
+        when(sessionService.getSessionListEtag()).thenReturn("\"e-1\"");
 
+        ResponseEntity<List<SessionSummary>> result = sessionController.getAllSessions(null, 1, "\"e-1\"");
 
-        assertEquals(sessions, result);
-        verify(sessionService, times(1)).getAllSessions();
+        assertEquals(HttpStatus.NOT_MODIFIED, result.getStatusCode());
+        assertEquals("no-cache, private", result.getHeaders().getCacheControl());
+        verify(sessionService, never()).getSessions(any(), anyInt());
     }
 
 
+    @Test
+    void testGetSessionHistory() {
+        SessionHistoryEntry entry = SessionHistoryEntry.builder()
+                .id(UUID.randomUUID())
+                .endedAt(Instant.ofEpochMilli(1700000000000L))
+                .build();
+        when(sessionService.getSessionHistory(null, 1)).thenReturn(List.of(entry));
+
+        ResponseEntity<?> result = sessionController.getSessionHistory(null, 1);
+
+        assertEquals(List.of(entry), result.getBody());
+        assertEquals("1700000000000_" + entry.getId(), result.getHeaders().getFirst(SessionController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void testGetSessionHistoryWithBadCursor() {
+        when(sessionService.getSessionHistory("bad", 100)).thenThrow(new IllegalArgumentException("Invalid history cursor"));
+
+        ResponseEntity<?> result = sessionController.getSessionHistory("bad", 100);
+
+        assertEquals(HttpStatus.BAD_REQUEST, result.getStatusCode());
+    }
+
     @Test
     void testGetSessionById() {
         UUID sessionId = UUID.randomUUID();
-        Session session = new Session();
-        when(sessionService.getSessionById(sessionId)).thenReturn(session);
+        SessionResponse session = SessionResponse.of(Session.builder().isActive(true).build());
+        when(sessionService.getVersionedSessionResponse(sessionId)).thenReturn(new Versioned<>(session, "\"e-2\""));
 
-        ResponseEntity<?> response = sessionController.getSessionById(sessionId);
+        ResponseEntity<?> response = sessionController.getSessionById(sessionId, "\"e-1\"");
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(session, response.getBody());
-        verify(sessionService, times(1)).getSessionById(sessionId);
+        assertEquals("\"e-2\"", response.getHeaders().getETag());
+        verify(sessionService, times(1)).getVersionedSessionResponse(sessionId);
+    }
+
+    @Test
+    void testGetSessionById_NotModified() {
+        UUID sessionId = UUID.randomUUID();
+        when(sessionService.getSessionEtag(sessionId)).thenReturn("\"e-2\"");
+
+        ResponseEntity<?> response = sessionController.getSessionById(sessionId, "W/\"e-1\", \"e-2\"");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals("\"e-2\"", response.getHeaders().getETag());
+        verify(sessionService, never()).getVersionedSessionResponse(sessionId);
+    }
+
+    @Test
+    void testGetSessionById_Ended() {
+        UUID sessionId = UUID.randomUUID();
+        SessionResponse session = SessionResponse.of(new Session());
+        when(sessionService.getVersionedSessionResponse(sessionId)).thenReturn(new Versioned<>(session, null));
+
+        ResponseEntity<?> response = sessionController.getSessionById(sessionId, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(response.getHeaders().getETag());
+        assertEquals("max-age=86400, private", response.getHeaders().getCacheControl());
     }
 
     @Test
     void testGetSessionById_NotFound() {
         UUID sessionId = UUID.randomUUID();
-        when(sessionService.getSessionById(sessionId)).thenThrow(new RuntimeException("Session not found"));
+        when(sessionService.getVersionedSessionResponse(sessionId)).thenThrow(new RuntimeException("Session not found"));
 
-        ResponseEntity<?> response = sessionController.getSessionById(sessionId);
+        ResponseEntity<?> response = sessionController.getSessionById(sessionId, null);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertEquals("Session not found", response.getBody());
-        verify(sessionService, times(1)).getSessionById(sessionId);
+        verify(sessionService, times(1)).getVersionedSessionResponse(sessionId);
     }
 
 
+    @Test
+    void testGetSessionChanges() throws Exception {
+        UUID sessionId = UUID.randomUUID();
+        SessionChanges changes = new SessionChanges(List.of(), 3, false);
+        when(sessionService.getSessionChanges(sessionId, 3, 25_000)).thenReturn(CompletableFuture.completedFuture(changes));
+
+        ResponseEntity<?> response = sessionController.getSessionChanges(sessionId, 3, 60_000).get();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(changes, response.getBody());
+    }
+
+    @Test
+    void testGetSessionChanges_NotFound() throws Exception {
+        UUID sessionId = UUID.randomUUID();
+        when(sessionService.getSessionChanges(sessionId, 0, 0)).thenThrow(new RuntimeException("Session not found"));
+
+        ResponseEntity<?> response = sessionController.getSessionChanges(sessionId, 0, 0).get();
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void testStreamSessionEvents() {
+        UUID sessionId = UUID.randomUUID();
+        SseEmitter emitter = new SseEmitter();
+        when(sessionService.subscribeToSessionEvents(sessionId, 7L)).thenReturn(emitter);
+
+        ResponseEntity<?> response = sessionController.streamSessionEvents(sessionId, 7L, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(emitter, response.getBody());
+    }
+
+    @Test
+    void testStreamSessionEvents_NotActive() {
+        UUID sessionId = UUID.randomUUID();
+        when(sessionService.subscribeToSessionEvents(sessionId, 0L)).thenThrow(new IllegalStateException("Session is not active"));
+
+        ResponseEntity<?> response = sessionController.streamSessionEvents(sessionId, null, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
     /**
      * Method to test the creation of a new session.
      */
     @Test
     void testCreateSession() {
         Session session = new Session();
-        when(sessionService.createSession(any(UUID.class))).thenReturn(session);
+        when(sessionService.createSession(any(UUID.class), eq(VotingMethod.APPROVAL))).thenReturn(session);
 
-        ResponseEntity<?> response = sessionController.createSession();
+        ResponseEntity<?> response = sessionController.createSession(VotingMethod.APPROVAL);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(session, response.getBody());
-        verify(sessionService, times(1)).createSession(any(UUID.class));
+        verify(sessionService, times(1)).createSession(any(UUID.class), eq(VotingMethod.APPROVAL));
     }
 
     /**
@@ -166,16 +296,36 @@ class SessionControllerTest {
     }
 
     @Test
-    void testJoinSession() {
+    void testInviteUsers() {
         UUID sessionId = UUID.randomUUID();
-        Session session = new Session();
-        session.setActive(true);
-        Set<User> Users = new HashSet<>();
-        Users.add(new User());
-        session.setParticipants(Users);
+        BulkInviteRequest request = new BulkInviteRequest();
+        request.setInviteeNames(List.of("alice"));
+        List<InviteResult> results = List.of(new InviteResult("alice", UUID.randomUUID(), InviteStatus.ADDED));
+        when(bindingResult.hasErrors()).thenReturn(false);
+        when(sessionService.inviteUsersToSession(sessionId, mockUserId, List.of(), List.of("alice"))).thenReturn(results);
+
+        ResponseEntity<?> response = sessionController.inviteUsers(sessionId, request, bindingResult);
 
-        when(sessionService.getSessionById(sessionId)).thenReturn(session);
-        when(userService.getUserById(any(UUID.class))).thenReturn(new User());
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(results, response.getBody());
+    }
+
+    @Test
+    void testInviteUsers_NoInvitees() {
+        UUID sessionId = UUID.randomUUID();
+        when(bindingResult.hasErrors()).thenReturn(false);
+
+        ResponseEntity<?> response = sessionController.inviteUsers(sessionId, new BulkInviteRequest(), bindingResult);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(sessionService, never()).inviteUsersToSession(any(), any(), any(), any());
+    }
+
+    @Test
+    void testJoinSession() {
+        UUID sessionId = UUID.randomUUID();
+        when(sessionService.isSessionActive(sessionId)).thenReturn(true);
+        when(membershipService.isParticipant(sessionId, mockUserId)).thenReturn(true);
 
         ResponseEntity<?> response = sessionController.joinSession(sessionId);
 
@@ -183,6 +333,17 @@ class SessionControllerTest {
         assertEquals("Successfully joined the session", response.getBody());
     }
 
+    @Test
+    void testJoinSession_NotInvited() {
+        UUID sessionId = UUID.randomUUID();
+        when(sessionService.isSessionActive(sessionId)).thenReturn(true);
+        when(membershipService.isParticipant(sessionId, mockUserId)).thenReturn(false);
+
+        ResponseEntity<?> response = sessionController.joinSession(sessionId);
+
+        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+    }
+
     /**
      * This method is used to test adding a restaurant to a session.
      */
@@ -191,13 +352,70 @@ class SessionControllerTest {
         UUID sessionId = UUID.randomUUID();
         AddRestaurantRequest request = new AddRestaurantRequest();
         request.setRestaurantName("Test Restaurant");
+        SubmissionJob job = SubmissionJob.builder().jobId(UUID.randomUUID()).sessionId(sessionId)
+                .status(SubmissionStatus.PENDING).build();
+
+        when(bindingResult.hasErrors()).thenReturn(false);
+        when(submissionService.submit(eq(sessionId), eq(mockUserId), any(Restaurant.class))).thenReturn(job);
+
+        ResponseEntity<?> response = sessionController.addRestaurant(sessionId, request, bindingResult);
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(job, response.getBody());
+        assertEquals("/sessions/" + sessionId + "/restaurants/jobs/" + job.getJobId(), response.getHeaders().getLocation().toString());
+    }
 
+    @Test
+    void testAddRestaurant_Saturated() {
+        UUID sessionId = UUID.randomUUID();
+        AddRestaurantRequest request = new AddRestaurantRequest();
+        request.setRestaurantName("Test Restaurant");
         when(bindingResult.hasErrors()).thenReturn(false);
+        when(submissionService.submit(eq(sessionId), any(UUID.class), any(Restaurant.class)))
+                .thenThrow(new TaskRejectedException("Too many submissions in progress"));
 
         ResponseEntity<?> response = sessionController.addRestaurant(sessionId, request, bindingResult);
 
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void testGetSubmissionJob_NotFound() {
+        UUID sessionId = UUID.randomUUID();
+        UUID jobId = UUID.randomUUID();
+        when(submissionService.getJob(sessionId, mockUserId, jobId)).thenThrow(new RuntimeException("Job not found"));
+
+        ResponseEntity<?> response = sessionController.getSubmissionJob(sessionId, jobId);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void testCastVote() {
+        UUID sessionId = UUID.randomUUID();
+        VoteRequest request = new VoteRequest();
+        request.setRestaurantIds(List.of(UUID.randomUUID()));
+        when(bindingResult.hasErrors()).thenReturn(false);
+
+        ResponseEntity<?> response = sessionController.castVote(sessionId, request, bindingResult);
+
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        verify(sessionService, times(1)).addRestaurantAsync(eq(sessionId), any(UUID.class), any(Restaurant.class));
+        verify(sessionService, times(1)).castVote(sessionId, mockUserId, request.getRestaurantIds());
+    }
+
+    @Test
+    void testCastVote_NotParticipant() {
+        UUID sessionId = UUID.randomUUID();
+        VoteRequest request = new VoteRequest();
+        request.setRestaurantIds(List.of(UUID.randomUUID()));
+        when(bindingResult.hasErrors()).thenReturn(false);
+        doThrow(new IllegalStateException("Only participants of the session can vote."))
+                .when(sessionService).castVote(sessionId, mockUserId, request.getRestaurantIds());
+
+        ResponseEntity<?> response = sessionController.castVote(sessionId, request, bindingResult);
+
+        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
     }
 
     /**
@@ -2,12 +2,15 @@ package com.example.lunchapp.controller;
 
 import com.example.lunchapp.model.User;
 import com.example.lunchapp.service.UserService;
+import com.example.lunchapp.util.AuthenticatedUser;
 import com.example.lunchapp.util.JwtUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -22,6 +25,9 @@ import java.util.List;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.*;
 
 /**
@@ -35,6 +41,9 @@ public class UserControllerTest {
     @Mock
     JwtUtil jwtUtil;
 
+    @Spy
+    ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     UserController userController;
 
@@ -53,17 +62,28 @@ public class UserControllerTest {
 
         SecurityContextHolder.setContext(securityContext);
         when(securityContext.getAuthentication()).thenReturn(authentication);
-        when(authentication.getName()).thenReturn(mockUserId.toString());
+        when(authentication.getPrincipal()).thenReturn(new AuthenticatedUser(mockUserId));
     }
 
     @Test
     public void getAllUsersTest() {
         User user1 = new User();
         User user2 = new User();
-        when(userService.getAllUsers()).thenReturn(Arrays.asList(user1, user2));
+        when(userService.getUsers(null, 100)).thenReturn(Arrays.asList(user1, user2));
+
+        ResponseEntity<List<User>> response = userController.getAllUsers(null, 100);
+        assertEquals(2, response.getBody().size());
+        assertNull(response.getHeaders().getFirst(UserController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void getAllUsersTest_fullPage() {
+        User user1 = User.builder().id(UUID.randomUUID()).build();
+        User user2 = User.builder().id(UUID.randomUUID()).build();
+        when(userService.getUsers(null, 2)).thenReturn(Arrays.asList(user1, user2));
 
-        List<User> users = userController.getAllUsers();
-        assertEquals(2, users.size());
+        ResponseEntity<List<User>> response = userController.getAllUsers(null, 2);
+        assertEquals(user2.getId().toString(), response.getHeaders().getFirst(UserController.NEXT_CURSOR_HEADER));
     }
 
     /**
@@ -75,9 +95,37 @@ public class UserControllerTest {
         UUID userId = UUID.randomUUID();
         when(userService.getUserById(userId)).thenReturn(user);
 
-        ResponseEntity<User> response = userController.getUserById(userId);
+        ResponseEntity<User> response = userController.getUserById(userId, null);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(user, response.getBody());
+        assertNotNull(response.getHeaders().getETag());
+    }
+
+    @Test
+    public void getUserByIdTest_notModified() {
+        User user = User.builder().id(UUID.randomUUID()).name("user").build();
+        when(userService.getUserById(user.getId())).thenReturn(user);
+        String etag = userController.getUserById(user.getId(), null).getHeaders().getETag();
+
+        ResponseEntity<User> response = userController.getUserById(user.getId(), etag);
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+    }
+
+    /**
+     * The ETag is a digest of the representation: equal users share it and any changed field changes it.
+     */
+    @Test
+    public void getUserByIdTest_etagFollowsRepresentation() {
+        UUID userId = UUID.randomUUID();
+        when(userService.getUserById(userId))
+                .thenReturn(User.builder().id(userId).name("user").email("user@example.com").build())
+                .thenReturn(User.builder().id(userId).name("user").email("user@example.com").build())
+                .thenReturn(User.builder().id(userId).name("user").email("other@example.com").build());
+
+        String first = userController.getUserById(userId, null).getHeaders().getETag();
+        assertEquals(first, userController.getUserById(userId, null).getHeaders().getETag());
+        assertNotEquals(first, userController.getUserById(userId, null).getHeaders().getETag());
     }
 
     @Test
@@ -85,7 +133,7 @@ public class UserControllerTest {
         UUID userId = UUID.randomUUID();
         when(userService.getUserById(userId)).thenThrow(new RuntimeException("User not found"));
 
-        ResponseEntity<User> response = userController.getUserById(userId);
+        ResponseEntity<User> response = userController.getUserById(userId, null);
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
     }
 
@@ -109,6 +157,16 @@ public class UserControllerTest {
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
     }
 
+    @Test
+    public void searchUsersTest_limitCapped() {
+        User user = User.builder().id(UUID.randomUUID()).name("Alice").build();
+        when(userService.searchUsers("al", 50)).thenReturn(List.of(user));
+
+        ResponseEntity<List<User>> response = userController.searchUsers("al", 1000);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of(user), response.getBody());
+    }
+
     @Test
     public void createUserTest_validationFail() {
         User user = new User();
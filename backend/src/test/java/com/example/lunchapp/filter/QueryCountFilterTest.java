@@ -0,0 +1,48 @@
+package com.example.lunchapp.filter;
+
+import com.example.lunchapp.util.QueryCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the QueryCountFilter class.
+ */
+public class QueryCountFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final QueryCountFilter filter = new QueryCountFilter(meterRegistry);
+
+    private final QueryCounter queryCounter = new QueryCounter();
+
+    @Test
+    void testRecordsStatementsPerUriTemplate() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/sessions/42");
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/sessions/{sessionId}");
+            queryCounter.inspect("select 1");
+            queryCounter.inspect("select 2");
+        });
+
+        DistributionSummary summary = meterRegistry.get(QueryCountFilter.METRIC_NAME)
+                .tag("method", "GET").tag("uri", "/sessions/{sessionId}").summary();
+        assertEquals(1, summary.count());
+        assertEquals(2, summary.totalAmount());
+    }
+
+    @Test
+    void testStopsCountingAfterRequest() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", "/missing"), new MockHttpServletResponse(),
+                (req, res) -> queryCounter.inspect("select 1"));
+        queryCounter.inspect("select 2");
+
+        assertEquals(1, meterRegistry.get(QueryCountFilter.METRIC_NAME).tag("uri", "UNKNOWN").summary().totalAmount());
+        assertEquals(0, QueryCounter.stop());
+    }
+}
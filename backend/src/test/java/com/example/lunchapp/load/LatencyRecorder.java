@@ -0,0 +1,78 @@
+package com.example.lunchapp.load;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the latency and outcome of every request per endpoint and summarises them once the run is over.
+ * Answers with status 429 are counted as throttled rather than as errors, since they are the intended back-pressure.
+ */
+class LatencyRecorder {
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long nanos, int status) {
+        Endpoint stats = endpoints.computeIfAbsent(endpoint, name -> new Endpoint());
+        stats.latencies.add(nanos);
+        if (status == 429) {
+            stats.throttled.increment();
+        } else if (status < 200 || status >= 300) {
+            stats.errors.increment();
+        }
+    }
+
+    /**
+     * Summarises every endpoint, sorted by name.
+     *
+     * @param elapsedNanos the wall-clock duration of the run, for throughput
+     * @return one summary per endpoint
+     */
+    List<Summary> summarise(long elapsedNanos) {
+        List<Summary> summaries = new ArrayList<>();
+        endpoints.forEach((name, stats) -> {
+            long[] sorted = stats.latencies.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            summaries.add(new Summary(name, sorted.length, stats.errors.sum(), stats.throttled.sum(),
+                    percentileMillis(sorted, 50), percentileMillis(sorted, 95), percentileMillis(sorted, 99),
+                    sorted.length / (elapsedNanos / 1e9)));
+        });
+        summaries.sort((a, b) -> a.endpoint().compareTo(b.endpoint()));
+        return summaries;
+    }
+
+    /**
+     * Returns the nearest-rank percentile of sorted latencies, in milliseconds.
+     */
+    static double percentileMillis(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1e6;
+    }
+
+    record Summary(String endpoint, long requests, long errors, long throttled,
+                   double p50, double p95, double p99, double throughput) {
+
+        double errorRate() {
+            return requests == 0 ? 0 : (double) errors / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-24s %7d req %8.1f req/s  p50 %8.2f ms  p95 %8.2f ms  p99 %8.2f ms  errors %5.2f%%  throttled %d",
+                    endpoint, requests, throughput, p50, p95, p99, errorRate() * 100, throttled);
+        }
+    }
+
+    private static class Endpoint {
+        private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder throttled = new LongAdder();
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.lunchapp.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reproduces the noon spike: many teams at once create their users, open a session, invite each other,
+ * submit restaurants and end the session. The application runs on a random port against H2 in PostgreSQL mode.
+ * <p>
+ * Run with {@code mvn -Pload test}. The scenario and budgets are set with system properties:
+ * {@code load.teams}, {@code load.warmup-teams}, {@code load.team-size}, {@code load.concurrency},
+ * {@code load.budget.p99-ms} and {@code load.budget.error-rate}. Warm-up teams run first and are not recorded.
+ * The run fails if any endpoint exceeds the p99 budget or the error rate budget.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:load;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.example.lunchapp=WARN",
+        "api.key=" + NoonSpikeLoadTest.API_KEY,
+        "jwt.secret=bHVuY2hhcHAtbG9hZC10ZXN0LXNpZ25pbmcta2V5LXRoYXQtaXMtb25seS11c2VkLWJ5LXRoZS1oYXJuZXNzIQ=="
+})
+public class NoonSpikeLoadTest {
+
+    static final String API_KEY = "load-test-key";
+
+    private final int teams = Integer.getInteger("load.teams", 50);
+
+    private final int warmupTeams = Integer.getInteger("load.warmup-teams", 20);
+
+    private final int teamSize = Integer.getInteger("load.team-size", 6);
+
+    private final int concurrency = Integer.getInteger("load.concurrency", 32);
+
+    private final long p99BudgetMillis = Long.getLong("load.budget.p99-ms", 2000);
+
+    private final double errorRateBudget = Double.parseDouble(System.getProperty("load.budget.error-rate", "0.01"));
+
+    private final String runId = UUID.randomUUID().toString().substring(0, 8);
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private LatencyRecorder recorder = new LatencyRecorder();
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void testNoonSpike() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        long elapsed;
+        try {
+            run(executor, 0, warmupTeams);
+            recorder = new LatencyRecorder();
+            long start = System.nanoTime();
+            run(executor, warmupTeams, teams);
+            elapsed = System.nanoTime() - start;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<LatencyRecorder.Summary> summaries = recorder.summarise(elapsed);
+        System.out.printf("Noon spike: %d teams of %d users, %d concurrent, %.1f s%n", teams, teamSize, concurrency, elapsed / 1e9);
+        summaries.forEach(System.out::println);
+
+        List<String> violations = new ArrayList<>();
+        for (LatencyRecorder.Summary summary : summaries) {
+            if (summary.p99() > p99BudgetMillis) {
+                violations.add(String.format("%s p99 %.2f ms exceeds %d ms", summary.endpoint(), summary.p99(), p99BudgetMillis));
+            }
+            if (summary.errorRate() > errorRateBudget) {
+                violations.add(String.format("%s error rate %.2f%% exceeds %.2f%%", summary.endpoint(),
+                        summary.errorRate() * 100, errorRateBudget * 100));
+            }
+        }
+        assertTrue(violations.isEmpty(), String.join("\n", violations));
+    }
+
+    private void run(ExecutorService executor, int firstTeam, int teamCount) throws Exception {
+        List<Future<?>> runs = new ArrayList<>();
+        for (int team = firstTeam; team < firstTeam + teamCount; team++) {
+            int teamNumber = team;
+            runs.add(executor.submit(() -> runTeam(teamNumber)));
+        }
+        for (Future<?> run : runs) {
+            run.get(5, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Runs the lunch of one team; the first user is the creator of the session. Steps that depend on a failed
+     * request are skipped, the failure is already recorded.
+     */
+    private void runTeam(int team) {
+        List<String> userIds = new ArrayList<>();
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < teamSize; i++) {
+            String name = "team" + team + "-user" + i + "-" + runId;
+            HttpResponse<String> response = post("POST /users", "/users", null,
+                    Map.of("name", name, "email", name + "@example.com"));
+            if (!isSuccess(response)) {
+                return;
+            }
+            userIds.add(read(response).get("id").asText());
+            tokens.add(response.headers().firstValue("Authorization").orElseThrow().substring("Bearer ".length()));
+        }
+
+        String creatorToken = tokens.get(0);
+        HttpResponse<String> created = post("POST /sessions/create", "/sessions/create", creatorToken, null);
+        if (!isSuccess(created)) {
+            return;
+        }
+        String sessionId = read(created).get("id").asText();
+
+        for (int i = 1; i < teamSize; i++) {
+            post("POST /sessions/{id}/invite", "/sessions/" + sessionId + "/invite", creatorToken,
+                    Map.of("inviteeId", userIds.get(i)));
+        }
+        for (int i = 0; i < teamSize; i++) {
+            post("POST /sessions/{id}/restaurants", "/sessions/" + sessionId + "/restaurants", tokens.get(i),
+                    Map.of("userId", userIds.get(i), "restaurantName", "restaurant" + (i % 3)));
+        }
+        post("POST /sessions/{id}/end", "/sessions/" + sessionId + "/end", creatorToken, null);
+    }
+
+    private HttpResponse<String> post(String endpoint, String path, String token, Object body) {
+        long start = System.nanoTime();
+        try {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("X-API-KEY", API_KEY)
+                    .header("Content-Type", "application/json")
+                    .POST(body == null ? HttpRequest.BodyPublishers.noBody()
+                            : HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)));
+            if (token != null) {
+                request.header("Authorization", "Bearer " + token);
+            }
+            HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            recorder.record(endpoint, System.nanoTime() - start, response.statusCode());
+            return response;
+        } catch (IOException e) {
+            recorder.record(endpoint, System.nanoTime() - start, 0);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static boolean isSuccess(HttpResponse<String> response) {
+        return response != null && response.statusCode() / 100 == 2;
+    }
+
+    private JsonNode read(HttpResponse<String> response) {
+        try {
+            return objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            throw new IllegalStateException("Unreadable response " + response.body(), e);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.lunchapp.repository;
+
+import com.example.lunchapp.model.Session;
+import com.example.lunchapp.model.VotingMethod;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class checks the migrations against databases created by Hibernate before Flyway owned the schema, on an
+ * embedded PostgreSQL. The Spring context is started on such a database with rows in it, so Flyway baselines it with
+ * the settings of application.properties, runs every later migration, and Hibernate validates the mapping.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class BaselineMigrationTest {
+
+    private static final String HIBERNATE_SCHEMA = "db/hibernate-baseline.sql";
+
+    private static final String COLUMNS = "SELECT table_name, column_name, data_type, character_maximum_length, "
+            + "is_nullable FROM information_schema.columns WHERE table_schema = 'public' "
+            + "AND table_name <> 'flyway_schema_history' ORDER BY table_name, column_name";
+
+    private static final String CONSTRAINTS = "SELECT conrelid::regclass::text, conname, contype, "
+            + "pg_get_constraintdef(oid) FROM pg_constraint WHERE connamespace = 'public'::regnamespace "
+            + "AND conrelid::regclass::text <> 'flyway_schema_history' ORDER BY 1, 2";
+
+    private static final String INDEXES = "SELECT tablename, indexname, indexdef FROM pg_indexes "
+            + "WHERE schemaname = 'public' AND tablename <> 'flyway_schema_history' ORDER BY 1, 2";
+
+    private static final UUID USER_ID = UUID.randomUUID();
+
+    private static final UUID RESTAURANT_ID = UUID.randomUUID();
+
+    private static final UUID SESSION_ID = UUID.randomUUID();
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void legacyDatabase(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.start();
+        DataSource legacy = createDatabase("legacy");
+        new ResourceDatabasePopulator(new ClassPathResource(HIBERNATE_SCHEMA)).execute(legacy);
+        JdbcTemplate legacyTemplate = new JdbcTemplate(legacy);
+        legacyTemplate.update("INSERT INTO app_user (id, name, email) VALUES (?, 'alice', 'alice@example.com')", USER_ID.toString());
+        legacyTemplate.update("INSERT INTO restaurant (id, name) VALUES (?, 'Sushi')", RESTAURANT_ID.toString());
+        legacyTemplate.update("INSERT INTO session (id, is_active, creator_id) VALUES (?, true, ?)", SESSION_ID.toString(), USER_ID.toString());
+        legacyTemplate.update("INSERT INTO session_users (session_id, user_id) VALUES (?, ?)", SESSION_ID.toString(), USER_ID.toString());
+        legacyTemplate.update("INSERT INTO session_restaurants (session_id, restaurant_id) VALUES (?, ?)", SESSION_ID.toString(), RESTAURANT_ID.toString());
+
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "legacy"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    private static DataSource createDatabase(String name) {
+        new JdbcTemplate(postgres.getPostgresDatabase()).execute("CREATE DATABASE " + name);
+        return new SingleConnectionDataSource(postgres.getJdbcUrl("postgres", name), "postgres", "", true);
+    }
+
+    /**
+     * Verifies that the database was baselined rather than built by V1, migrated past it with its rows kept, and
+     * that the mapping validated, since the context would not have started otherwise.
+     */
+    @Test
+    void testBaselinedDatabaseMigratesAndValidates() {
+        List<String> history = jdbcTemplate.queryForList(
+                "SELECT version || ':' || type || ':' || success FROM flyway_schema_history ORDER BY installed_rank", String.class);
+        assertEquals("1:BASELINE:true", history.get(0));
+        assertTrue(history.size() > 2);
+        assertTrue(history.stream().allMatch(entry -> entry.endsWith(":true")));
+
+        Session session = sessionRepository.findById(SESSION_ID).orElseThrow();
+        assertEquals(USER_ID, session.getCreator().getId());
+        assertEquals(1, session.getParticipants().size());
+        assertEquals(RESTAURANT_ID, session.getRestaurants().iterator().next().getId());
+        assertEquals(VotingMethod.WEIGHTED_RANDOM, session.getVotingMethod());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM votes WHERE session_id = ?", Integer.class, SESSION_ID));
+    }
+
+    /**
+     * Verifies that V1 builds the same tables, columns, constraints and indexes as Hibernate did, so a database
+     * created by the migrations and one baselined at V1 run the later migrations from the same schema.
+     */
+    @Test
+    void testBaselineMatchesHibernateSchema() {
+        DataSource hibernate = createDatabase("hibernate");
+        new ResourceDatabasePopulator(new ClassPathResource(HIBERNATE_SCHEMA)).execute(hibernate);
+        DataSource migrated = createDatabase("migrated");
+        Flyway.configure()
+                .dataSource(migrated)
+                .locations("classpath:db/migration/common", "classpath:db/migration/postgresql")
+                .placeholderReplacement(false)
+                .target("1")
+                .load()
+                .migrate();
+
+        JdbcTemplate expected = new JdbcTemplate(hibernate);
+        JdbcTemplate actual = new JdbcTemplate(migrated);
+        assertEquals(expected.queryForList(COLUMNS), actual.queryForList(COLUMNS));
+        assertEquals(expected.queryForList(CONSTRAINTS), actual.queryForList(CONSTRAINTS));
+        assertEquals(expected.queryForList(INDEXES), actual.queryForList(INDEXES));
+    }
+}
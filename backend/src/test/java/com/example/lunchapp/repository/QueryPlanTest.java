@@ -0,0 +1,126 @@
+package com.example.lunchapp.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class checks with EXPLAIN that the hot queries of the repositories are served by an index of the schema built
+ * by the migrations, against H2 in PostgreSQL mode. The statements of the JPA repositories are the SQL Hibernate
+ * generates for them; the statements of the JDBC repositories are their own.
+ * <p>
+ * H2 backs every foreign key with an index of its own, so for the foreign key lookups this guards the plans rather
+ * than the migrations; the migrations' indexes are what serves them on PostgreSQL.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:plans;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.example.lunchapp.repository.QueryPlanTest$StatementRecorder"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class QueryPlanTest {
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final String id = UUID.randomUUID().toString();
+
+    @BeforeEach
+    void setUp() {
+        StatementRecorder.STATEMENTS.clear();
+    }
+
+    @Test
+    void testSessionReadModelQueriesUseIndexes() {
+        sessionRepository.findSummaryById(UUID.fromString(id));
+        sessionRepository.findParticipantIds(UUID.fromString(id));
+        sessionRepository.findRestaurantSummaries(UUID.fromString(id));
+
+        List<String> statements = new ArrayList<>(StatementRecorder.STATEMENTS);
+        assertEquals(3, statements.size());
+        statements.forEach(this::assertIndexScan);
+    }
+
+    @Test
+    void testMembershipAndBallotStatementsUseIndexes() {
+        assertIndexScan(SessionMembershipRepository.EXISTS_PARTICIPANT);
+        assertIndexScan(SessionMembershipRepository.DELETE_PARTICIPANTS);
+        assertIndexScan(SessionMembershipRepository.DELETE_RESTAURANTS);
+        assertIndexScan(VoteRepository.DELETE_BALLOT);
+        assertIndexScan(VoteRepository.DELETE_BY_SESSION);
+        assertIndexScan(VoteRepository.SELECT_BALLOTS);
+    }
+
+    @Test
+    void testHistoryLookupUsesIndex() {
+        assertIndexScan(SessionHistoryRepository.SELECT_BY_ID);
+    }
+
+    @Test
+    void testChangeFeedUsesIndex() {
+        assertIndexScan(SessionEventRepository.SELECT_AFTER);
+        assertIndexScan(SessionEventRepository.SELECT_LAST_SEQUENCE);
+        assertIndexScan(SessionEventRepository.SELECT_LAST);
+    }
+
+    /**
+     * The lookups a database runs to check the foreign keys when users and restaurants are deleted.
+     */
+    @Test
+    void testForeignKeyChecksUseIndexes() {
+        assertIndexScan("SELECT 1 FROM session WHERE creator_id = ?");
+        assertIndexScan("SELECT 1 FROM session WHERE picked_restaurant_id = ?");
+        assertIndexScan("SELECT 1 FROM session_users WHERE user_id = ?");
+        assertIndexScan("SELECT 1 FROM session_restaurants WHERE restaurant_id = ?");
+    }
+
+    /**
+     * Restaurant names repeat across sessions and are never looked up in the database, so they are not indexed;
+     * this also shows that the plans of the other tests would report a scan.
+     */
+    @Test
+    void testRestaurantNameIsNotIndexed() {
+        assertTrue(explain("SELECT id FROM restaurant WHERE name = ?").contains("tableScan"));
+    }
+
+    /**
+     * Explains a statement with the test ID bound to every parameter and fails if any table is scanned.
+     */
+    private void assertIndexScan(String sql) {
+        String plan = explain(sql);
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    private String explain(String sql) {
+        Object[] parameters = Collections.nCopies(sql.length() - sql.replace("?", "").length(), id).toArray();
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, parameters));
+    }
+
+    public static class StatementRecorder implements StatementInspector {
+
+        static final List<String> STATEMENTS = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
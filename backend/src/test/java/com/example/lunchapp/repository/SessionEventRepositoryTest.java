@@ -0,0 +1,74 @@
+package com.example.lunchapp.repository;
+
+import com.example.lunchapp.dto.SessionEvent;
+import com.example.lunchapp.dto.SessionEventType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains tests of the session_event table against H2 in PostgreSQL mode.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:events;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(SessionEventRepository.class)
+public class SessionEventRepositoryTest {
+
+    @Autowired
+    private SessionEventRepository eventRepository;
+
+    @Test
+    void testFindAfterReturnsLaterEventsInOrder() {
+        UUID sessionId = UUID.randomUUID();
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        eventRepository.insertAll(List.of(event(sessionId, 2, now), event(sessionId, 1, now), event(sessionId, 3, now),
+                event(UUID.randomUUID(), 4, now)));
+        // A retried batch is ignored
+        eventRepository.insertAll(List.of(event(sessionId, 3, now)));
+
+        List<SessionEvent> events = eventRepository.findAfter(sessionId, 1, 10);
+
+        assertEquals(List.of(2L, 3L), events.stream().map(SessionEvent::getSequence).toList());
+        assertEquals(SessionEventType.RESTAURANT_ADDED, events.get(0).getType());
+        assertEquals("r2", events.get(0).getName());
+        assertEquals(now, events.get(0).getOccurredAt());
+        assertEquals(1, eventRepository.findAfter(sessionId, 0, 1).size());
+        assertEquals(3, eventRepository.findLastSequence(sessionId));
+        assertEquals(0, eventRepository.findLastSequence(UUID.randomUUID()));
+        assertEquals(3, eventRepository.findLast(sessionId).getSequence());
+        assertNull(eventRepository.findLast(UUID.randomUUID()));
+    }
+
+    @Test
+    void testDeleteOlderThan() {
+        UUID sessionId = UUID.randomUUID();
+        Instant now = Instant.now();
+        eventRepository.insertAll(List.of(event(sessionId, 1, now.minusSeconds(3600)), event(sessionId, 2, now)));
+
+        assertEquals(1, eventRepository.deleteOlderThan(now.minusSeconds(60)));
+        assertEquals(2, eventRepository.findAfter(sessionId, 0, 10).get(0).getSequence());
+    }
+
+    private static SessionEvent event(UUID sessionId, long sequence, Instant occurredAt) {
+        return SessionEvent.builder()
+                .sessionId(sessionId)
+                .sequence(sequence)
+                .type(SessionEventType.RESTAURANT_ADDED)
+                .targetId(UUID.randomUUID())
+                .name("r" + sequence)
+                .occurredAt(occurredAt)
+                .build();
+    }
+}
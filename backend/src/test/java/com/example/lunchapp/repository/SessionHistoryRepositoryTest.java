@@ -0,0 +1,102 @@
+package com.example.lunchapp.repository;
+
+import com.example.lunchapp.dto.RestaurantSummary;
+import com.example.lunchapp.dto.SessionHistoryEntry;
+import com.example.lunchapp.dto.UserSummary;
+import com.example.lunchapp.model.VotingMethod;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains tests of the session history table against H2 in PostgreSQL mode, where it is not partitioned.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:history;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(SessionHistoryRepository.class)
+public class SessionHistoryRepositoryTest {
+
+    @Autowired
+    private SessionHistoryRepository historyRepository;
+
+    @Test
+    void testAppendAndFindById() {
+        Instant endedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        SessionHistoryEntry entry = entry(endedAt);
+        historyRepository.append(entry);
+
+        SessionHistoryEntry found = historyRepository.findById(entry.getId());
+
+        assertEquals(entry.getCreatorId(), found.getCreatorId());
+        assertEquals(VotingMethod.APPROVAL, found.getVotingMethod());
+        assertEquals("Sushi", found.getPickedRestaurantName());
+        assertEquals(entry.getParticipants().get(0).getId(), found.getParticipants().get(0).getId());
+        assertEquals("Sushi", found.getCandidates().get(0).getName());
+        assertEquals(endedAt, found.getEndedAt());
+        assertNull(found.getCreatedAt());
+        assertNull(historyRepository.findById(UUID.randomUUID()));
+    }
+
+    /**
+     * Appends three entries, two of them ending at the same millisecond, and walks them one per page, newest first.
+     */
+    @Test
+    void testKeysetPagination() {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        SessionHistoryEntry oldest = entry(now.minusSeconds(60));
+        SessionHistoryEntry tied = entry(now);
+        SessionHistoryEntry alsoTied = entry(now);
+        historyRepository.append(alsoTied);
+        historyRepository.append(oldest);
+        historyRepository.append(tied);
+
+        List<UUID> seen = new ArrayList<>();
+        List<SessionHistoryEntry> page = historyRepository.findPage(null, null, 1);
+        while (!page.isEmpty()) {
+            SessionHistoryEntry last = page.get(0);
+            seen.add(last.getId());
+            page = historyRepository.findPage(last.getEndedAt(), last.getId(), 1);
+        }
+
+        assertEquals(3, seen.size());
+        assertEquals(oldest.getId(), seen.get(2));
+        assertEquals(2, historyRepository.findPage(null, null, 2).size());
+    }
+
+    @Test
+    void testPartitionDdl() {
+        assertEquals("session_history_y2026m12", SessionHistoryRepository.partitionName(YearMonth.of(2026, 12)));
+        assertEquals("CREATE TABLE IF NOT EXISTS session_history_y2026m12 PARTITION OF session_history "
+                        + "FOR VALUES FROM ('2026-12-01T00:00Z') TO ('2027-01-01T00:00Z')",
+                SessionHistoryRepository.partitionDdl(YearMonth.of(2026, 12)));
+    }
+
+    private SessionHistoryEntry entry(Instant endedAt) {
+        UUID pickedId = UUID.randomUUID();
+        return SessionHistoryEntry.builder()
+                .id(UUID.randomUUID())
+                .creatorId(UUID.randomUUID())
+                .creatorName("creator")
+                .votingMethod(VotingMethod.APPROVAL)
+                .pickedRestaurantId(pickedId)
+                .pickedRestaurantName("Sushi")
+                .participants(List.of(new UserSummary(UUID.randomUUID(), "creator")))
+                .candidates(List.of(new RestaurantSummary(pickedId, "Sushi")))
+                .endedAt(endedAt)
+                .build();
+    }
+}
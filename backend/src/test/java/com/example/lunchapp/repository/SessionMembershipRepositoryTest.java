@@ -0,0 +1,111 @@
+package com.example.lunchapp.repository;
+
+import com.example.lunchapp.model.Restaurant;
+import com.example.lunchapp.model.Session;
+import com.example.lunchapp.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class contains tests of the batched join-table writes against H2 in PostgreSQL mode.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:membership;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(SessionMembershipRepository.class)
+public class SessionMembershipRepositoryTest {
+
+    @Autowired
+    private SessionMembershipRepository membershipRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    /**
+     * Inserts the same participant twice and checks that the second insert is ignored.
+     */
+    @Test
+    void testInsertLinksIgnoresExistingRows() {
+        User creator = entityManager.persist(User.builder().name("creator").build());
+        User participant = entityManager.persist(User.builder().name("participant").build());
+        Restaurant restaurant = entityManager.persist(Restaurant.builder().name("Sushi").build());
+        Session session = entityManager.persist(Session.builder().creator(creator).isActive(true).build());
+        entityManager.flush();
+
+        membershipRepository.insertLinks(Map.of(session.getId(), List.of(creator.getId(), participant.getId())),
+                Map.of(session.getId(), List.of(restaurant.getId())));
+        membershipRepository.insertLinks(Map.of(session.getId(), List.of(participant.getId())), Map.of());
+
+        assertEquals(Set.of(creator.getId(), participant.getId()), sessionRepository.findParticipantIds(session.getId()));
+        assertEquals(1, sessionRepository.findRestaurantSummaries(session.getId()).size());
+    }
+
+    @Test
+    void testExistsParticipant() {
+        User creator = entityManager.persist(User.builder().name("creator").build());
+        User outsider = entityManager.persist(User.builder().name("outsider").build());
+        Session session = entityManager.persist(Session.builder().creator(creator).isActive(true).build());
+        entityManager.flush();
+        membershipRepository.insertLinks(Map.of(session.getId(), List.of(creator.getId())), Map.of());
+
+        assertTrue(membershipRepository.existsParticipant(session.getId(), creator.getId()));
+        assertFalse(membershipRepository.existsParticipant(session.getId(), outsider.getId()));
+        assertFalse(membershipRepository.existsParticipant(UUID.randomUUID(), creator.getId()));
+    }
+
+    /**
+     * Deletes the links of one ended session and then its row, leaving the other session untouched.
+     */
+    @Test
+    void testDeleteLinksAndSession() {
+        User creator = entityManager.persist(User.builder().name("creator").build());
+        Restaurant restaurant = entityManager.persist(Restaurant.builder().name("Sushi").build());
+        Session ended = entityManager.persist(Session.builder().creator(creator).isActive(true).build());
+        Session running = entityManager.persist(Session.builder().creator(creator).isActive(true).build());
+        entityManager.flush();
+        membershipRepository.insertLinks(Map.of(ended.getId(), List.of(creator.getId()), running.getId(), List.of(creator.getId())),
+                Map.of(ended.getId(), List.of(restaurant.getId())));
+
+        assertEquals(2, membershipRepository.deleteLinks(ended.getId()));
+        assertEquals(1, sessionRepository.deleteSession(ended.getId()));
+
+        assertNull(sessionRepository.findSummaryById(ended.getId()));
+        assertEquals(Set.of(creator.getId()), sessionRepository.findParticipantIds(running.getId()));
+    }
+
+    /**
+     * Inserts a restaurant that was given its ID in memory twice, as a retried flush would, and links it.
+     */
+    @Test
+    void testInsertRestaurantsIgnoresExistingRows() {
+        User creator = entityManager.persist(User.builder().name("creator").build());
+        Session session = entityManager.persist(Session.builder().creator(creator).isActive(true).build());
+        entityManager.flush();
+        Restaurant restaurant = Restaurant.builder().id(UUID.randomUUID()).name("Sushi").build();
+
+        membershipRepository.insertRestaurants(List.of(restaurant));
+        membershipRepository.insertRestaurants(List.of(restaurant));
+        membershipRepository.insertLinks(Map.of(), Map.of(session.getId(), List.of(restaurant.getId())));
+
+        assertEquals("Sushi", sessionRepository.findRestaurantSummaries(session.getId()).get(0).getName());
+    }
+}
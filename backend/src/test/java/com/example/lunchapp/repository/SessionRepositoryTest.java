@@ -0,0 +1,92 @@
+package com.example.lunchapp.repository;
+
+import com.example.lunchapp.dto.RestaurantSummary;
+import com.example.lunchapp.dto.SessionSummary;
+import com.example.lunchapp.model.Restaurant;
+import com.example.lunchapp.model.Session;
+import com.example.lunchapp.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains tests of the SessionRepository queries against an embedded H2 database.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+public class SessionRepositoryTest {
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Session session;
+
+    private User creator;
+
+    private User participant;
+
+    private Restaurant restaurant;
+
+    @BeforeEach
+    void setUp() {
+        creator = entityManager.persist(User.builder().name("creator").build());
+        participant = entityManager.persist(User.builder().name("participant").build());
+        restaurant = entityManager.persist(Restaurant.builder().name("Sushi").build());
+        session = Session.builder().creator(creator).isActive(true).build();
+        session.getParticipants().add(creator);
+        session.getParticipants().add(participant);
+        session.getRestaurants().add(restaurant);
+        session = entityManager.persist(session);
+        entityManager.persist(Session.builder().creator(creator).isActive(true).build());
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testFindSummaryById() {
+        SessionSummary summary = sessionRepository.findSummaryById(session.getId());
+
+        assertEquals(session.getId(), summary.getId());
+        assertEquals(creator.getId(), summary.getCreatorId());
+        assertEquals("creator", summary.getCreatorName());
+        assertTrue(summary.isActive());
+        assertNull(summary.getPickedRestaurant());
+        assertEquals(2, summary.getParticipantCount());
+        assertEquals(1, summary.getRestaurantCount());
+    }
+
+    @Test
+    void testFindParticipantIdsAndRestaurants() {
+        assertEquals(Set.of(creator.getId(), participant.getId()), sessionRepository.findParticipantIds(session.getId()));
+
+        List<RestaurantSummary> restaurants = sessionRepository.findRestaurantSummaries(session.getId());
+        assertEquals(1, restaurants.size());
+        assertEquals(restaurant.getId(), restaurants.get(0).getId());
+        assertEquals("Sushi", restaurants.get(0).getName());
+    }
+
+    /**
+     * Walks all sessions one row per page and checks that the keyset cursor visits each session once.
+     */
+    @Test
+    void testKeysetPagination() {
+        List<SessionSummary> first = sessionRepository.findSummaries(PageRequest.of(0, 1));
+        assertEquals(1, first.size());
+
+        List<SessionSummary> second = sessionRepository.findSummariesAfter(first.get(0).getId(), PageRequest.of(0, 1));
+        assertEquals(1, second.size());
+        assertNotEquals(first.get(0).getId(), second.get(0).getId());
+
+        assertTrue(sessionRepository.findSummariesAfter(second.get(0).getId(), PageRequest.of(0, 1)).isEmpty());
+    }
+}
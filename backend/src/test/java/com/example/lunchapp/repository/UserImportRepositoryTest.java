@@ -0,0 +1,47 @@
+package com.example.lunchapp.repository;
+
+import com.example.lunchapp.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains tests of batched user inserts against H2 in PostgreSQL mode.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:userimport;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(UserImportRepository.class)
+public class UserImportRepositoryTest {
+
+    @Autowired
+    private UserImportRepository userImportRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void testInsertAllSkipsTakenNames() {
+        User stored = userRepository.saveAndFlush(User.builder().name("Alice").build());
+        User bob = User.builder().id(UUID.randomUUID()).name("Bob").email("bob@example.com").build();
+
+        int[] counts = userImportRepository.insertAll(List.of(
+                User.builder().id(UUID.randomUUID()).name("Alice").build(),
+                bob,
+                User.builder().id(UUID.randomUUID()).name("Bob").build()));
+
+        assertArrayEquals(new int[]{0, 1, 0}, counts);
+        assertEquals(stored.getId(), userRepository.findByName("Alice").getId());
+        assertEquals("bob@example.com", userRepository.findById(bob.getId()).orElseThrow().getEmail());
+        assertEquals(0, userImportRepository.insertAll(List.of()).length);
+    }
+}
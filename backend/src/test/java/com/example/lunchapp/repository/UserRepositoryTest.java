@@ -0,0 +1,72 @@
+package com.example.lunchapp.repository;
+
+import com.example.lunchapp.config.CacheConfig;
+import com.example.lunchapp.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.cache.CacheType;
+import org.springframework.boot.test.autoconfigure.core.AutoConfigureCache;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains tests of the user caches against H2 in PostgreSQL mode.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:users;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.cache.cache-names=usersById,usersByName",
+        "spring.cache.caffeine.spec=maximumSize=100,recordStats"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@AutoConfigureCache(cacheProvider = CacheType.CAFFEINE)
+@Import(CacheConfig.class)
+public class UserRepositoryTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    /**
+     * Saves a user and checks that it is cached by ID and by name, and evicted from both when deleted.
+     */
+    @Test
+    void testSaveCachesAndDeleteEvicts() {
+        User user = userRepository.save(User.builder().name("Alice").email("alice@example.com").build());
+
+        assertSame(user, cache(UserRepository.USERS_BY_ID).get(user.getId(), User.class));
+        assertSame(user, cache(UserRepository.USERS_BY_NAME).get("Alice", User.class));
+        assertSame(user, userRepository.findById(user.getId()).orElseThrow());
+        assertSame(user, userRepository.findByName("Alice"));
+
+        userRepository.delete(user);
+
+        assertNull(cache(UserRepository.USERS_BY_ID).get(user.getId()));
+        assertNull(cache(UserRepository.USERS_BY_NAME).get("Alice"));
+        assertTrue(userRepository.findById(user.getId()).isEmpty());
+    }
+
+    @Test
+    void testUnknownUsersAreNotCached() {
+        UUID id = UUID.randomUUID();
+
+        assertTrue(userRepository.findById(id).isEmpty());
+        assertNull(userRepository.findByName("Nobody"));
+
+        assertNull(cache(UserRepository.USERS_BY_ID).get(id));
+        assertNull(cache(UserRepository.USERS_BY_NAME).get("Nobody"));
+    }
+
+    private Cache cache(String name) {
+        return cacheManager.getCache(name);
+    }
+}
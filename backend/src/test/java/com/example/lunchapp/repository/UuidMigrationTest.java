@@ -0,0 +1,118 @@
+package com.example.lunchapp.repository;
+
+import db.migration.postgresql.V4_1__BackfillUuidColumns;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class runs the online conversion of the ID columns to uuid (V4 to V4.4) on an embedded PostgreSQL, against a
+ * database baselined from the Hibernate schema with more rows than one backfill batch.
+ */
+public class UuidMigrationTest {
+
+    private static final List<String> TABLES = List.of("app_user", "restaurant", "session", "session_restaurants", "session_users", "votes");
+
+    private static final String RELFILENODES = "SELECT relname, relfilenode FROM pg_class WHERE relname IN "
+            + "('app_user', 'restaurant', 'session', 'session_restaurants', 'session_users', 'votes') ORDER BY relname";
+
+    private EmbeddedPostgres postgres;
+
+    private SingleConnectionDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        dataSource = new SingleConnectionDataSource(postgres.getJdbcUrl("postgres", "postgres"), "postgres", "", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        new ResourceDatabasePopulator(new ClassPathResource("db/hibernate-baseline.sql")).execute(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        dataSource.destroy();
+        postgres.close();
+    }
+
+    private Flyway flyway(String target) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/common", "classpath:db/migration/postgresql")
+                .placeholderReplacement(false)
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .target(target)
+                .load();
+    }
+
+    /**
+     * Converts rows written before the migration and rows written between the shadow columns and the backfill, and
+     * checks that the columns are uuid, keyed and indexed as before, and that no table was rewritten.
+     */
+    @Test
+    void testConvertsIdsWithoutRewritingTables() {
+        int users = V4_1__BackfillUuidColumns.BATCH_SIZE * 2 + 17;
+        List<Object[]> userRows = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            userRows.add(new Object[]{UUID.randomUUID().toString(), "user" + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO app_user (id, name) VALUES (?, ?)", userRows);
+        UUID creatorId = UUID.fromString((String) userRows.get(0)[0]);
+        UUID sessionId = UUID.randomUUID();
+        UUID restaurantId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO restaurant (id, name) VALUES (?, 'Sushi')", restaurantId.toString());
+        jdbcTemplate.update("INSERT INTO session (id, is_active, creator_id) VALUES (?, true, ?)", sessionId.toString(), creatorId.toString());
+        flyway("1.1").migrate();
+        List<Map<String, Object>> relfilenodes = jdbcTemplate.queryForList(RELFILENODES);
+
+        flyway("4").migrate();
+        // Written by the previous version while the backfill has not reached them
+        jdbcTemplate.update("INSERT INTO session_users (session_id, user_id) VALUES (?, ?)", sessionId.toString(), creatorId.toString());
+        jdbcTemplate.update("INSERT INTO session_restaurants (session_id, restaurant_id) VALUES (?, ?)", sessionId.toString(), restaurantId.toString());
+        jdbcTemplate.update("UPDATE session SET picked_restaurant_id = ? WHERE id = ?", restaurantId.toString(), sessionId.toString());
+        jdbcTemplate.update("INSERT INTO votes (id, preference, restaurant_id, session_id, user_id) VALUES (?, 0, ?, ?, ?)",
+                UUID.randomUUID().toString(), restaurantId.toString(), sessionId.toString(), creatorId.toString());
+        flyway("latest").migrate();
+
+        assertEquals(relfilenodes, jdbcTemplate.queryForList(RELFILENODES));
+        assertEquals(users, jdbcTemplate.queryForObject("SELECT count(*) FROM app_user WHERE id IS NOT NULL", Integer.class));
+        assertEquals(restaurantId, jdbcTemplate.queryForObject("SELECT picked_restaurant_id FROM session WHERE id = ? AND creator_id = ?",
+                UUID.class, sessionId, creatorId));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM session_users WHERE session_id = ? AND user_id = ?",
+                Integer.class, sessionId, creatorId));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM votes WHERE session_id = ?", Integer.class, sessionId));
+
+        List<String> nonUuidIds = jdbcTemplate.queryForList("SELECT table_name || '.' || column_name FROM information_schema.columns "
+                + "WHERE table_schema = 'public' AND (column_name = 'id' OR column_name LIKE '%\\_id' OR column_name LIKE '%\\_uuid') "
+                + "AND data_type <> 'uuid' AND table_name = ANY (?)", String.class, (Object) TABLES.toArray(new String[0]));
+        assertEquals(List.of(), nonUuidIds);
+        assertEquals(List.of("app_user_pkey", "idx_session_creator_id", "idx_session_picked_restaurant_id",
+                        "idx_session_users_user_id", "idx_votes_session_user", "restaurant_pkey", "session_pkey",
+                        "session_restaurants_pkey", "session_users_pkey", "uk_3lind7navp0qs5sd1ffwais3x",
+                        "uk_ca699byqpy39i3fkohu5ya69m", "votes_pkey"),
+                jdbcTemplate.queryForList("SELECT c.relname FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid "
+                        + "JOIN pg_class t ON t.oid = i.indrelid WHERE i.indisvalid AND t.relname = ANY (?) ORDER BY 1",
+                        String.class, (Object) TABLES.toArray(new String[0])));
+        assertEquals(6, jdbcTemplate.queryForObject("SELECT count(*) FROM pg_constraint WHERE contype = 'f' AND convalidated "
+                + "AND conrelid::regclass::text IN ('session', 'session_restaurants', 'session_users')", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM pg_trigger WHERE NOT tgisinternal", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM pg_proc WHERE proname LIKE '%\\_sync\\_uuid'", Integer.class));
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.lunchapp.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This class contains tests of the batched ballot writes against H2 in PostgreSQL mode.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:votes;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(VoteRepository.class)
+public class VoteRepositoryTest {
+
+    @Autowired
+    private VoteRepository voteRepository;
+
+    /**
+     * Replaces a ballot and checks that only the new ballot is read back, in preference order.
+     */
+    @Test
+    void testReplaceBallots() {
+        UUID sessionId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        voteRepository.replaceBallots(Map.of(sessionId, Map.of(userId, List.of(first))));
+        voteRepository.replaceBallots(Map.of(sessionId, Map.of(userId, List.of(second, first))));
+
+        assertEquals(Map.of(userId, List.of(second, first)), voteRepository.findBallots(sessionId));
+        assertEquals(Map.of(), voteRepository.findBallots(UUID.randomUUID()));
+    }
+
+    @Test
+    void testDeleteBySession() {
+        UUID sessionId = UUID.randomUUID();
+        UUID otherId = UUID.randomUUID();
+        UUID restaurantId = UUID.randomUUID();
+        voteRepository.replaceBallots(Map.of(
+                sessionId, Map.of(UUID.randomUUID(), List.of(restaurantId), UUID.randomUUID(), List.of(restaurantId)),
+                otherId, Map.of(UUID.randomUUID(), List.of(restaurantId))));
+
+        assertEquals(2, voteRepository.deleteBySession(sessionId));
+        assertEquals(Map.of(), voteRepository.findBallots(sessionId));
+        assertEquals(1, voteRepository.findBallots(otherId).size());
+    }
+}
@@ -0,0 +1,318 @@
+package com.example.lunchapp.service;
+
+import com.example.lunchapp.model.Restaurant;
+import com.example.lunchapp.model.Session;
+import com.example.lunchapp.model.User;
+import com.example.lunchapp.repository.SessionMembershipRepository;
+import com.example.lunchapp.repository.SessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class contains unit tests for the ActiveSessionEngine class.
+ */
+public class ActiveSessionEngineTest {
+
+    @Mock
+    SessionRepository sessionRepository;
+
+    @Mock
+    SessionMembershipRepository membershipRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    ActiveSessionEngine sessionEngine;
+
+    UUID sessionId;
+
+    Session session;
+
+    @BeforeEach
+    public void initialize() {
+        MockitoAnnotations.openMocks(this);
+        sessionEngine = new ActiveSessionEngine(sessionRepository, membershipRepository, transactionManager);
+
+        sessionId = UUID.randomUUID();
+        session = new Session();
+        session.setId(sessionId);
+        session.setActive(true);
+        when(sessionRepository.findWithParticipantsandRestaurantsById(sessionId)).thenReturn(session);
+    }
+
+    @Test
+    public void testSessionIsLoadedOnce() {
+        sessionEngine.getSession(sessionId);
+        sessionEngine.getSession(sessionId);
+
+        verify(sessionRepository, times(1)).findWithParticipantsandRestaurantsById(sessionId);
+    }
+
+    /**
+     * Verifies that participants added in memory are written in one batch by the next flush, and only once.
+     */
+    @Test
+    public void testFlushWritesPendingParticipants() {
+        User user = User.builder().id(UUID.randomUUID()).name("user").build();
+        sessionEngine.update(sessionId, activeSession -> {
+            activeSession.addParticipant(user);
+            return null;
+        });
+        verifyNoInteractions(membershipRepository);
+
+        sessionEngine.flush();
+        sessionEngine.flush();
+
+        verify(membershipRepository, times(1)).insertLinks(Map.of(sessionId, List.of(user.getId())), Map.of(sessionId, List.of()));
+    }
+
+    @Test
+    public void testFailedFlushIsRetried() {
+        User user = User.builder().id(UUID.randomUUID()).name("user").build();
+        sessionEngine.update(sessionId, activeSession -> {
+            activeSession.addParticipant(user);
+            return null;
+        });
+        doThrow(new RuntimeException("database down")).doNothing().when(membershipRepository).insertLinks(anyMap(), anyMap());
+
+        sessionEngine.flush();
+        sessionEngine.flush();
+
+        verify(membershipRepository, times(2)).insertLinks(Map.of(sessionId, List.of(user.getId())), Map.of(sessionId, List.of()));
+    }
+
+    /**
+     * Verifies that waiting for the writes of a session ends with the flush that commits them, not with the flush
+     * that fails, and that writes queued during a failed flush are waited for as well.
+     */
+    @Test
+    public void testWhenFlushedCompletesOnCommit() {
+        assertTrue(sessionEngine.whenFlushed(sessionId).isDone());
+        sessionEngine.update(sessionId, activeSession -> activeSession.addParticipant(User.builder().id(UUID.randomUUID()).build()));
+        CompletableFuture<Void> first = sessionEngine.whenFlushed(sessionId);
+        doThrow(new RuntimeException("database down")).doNothing().when(membershipRepository).insertLinks(anyMap(), anyMap());
+
+        sessionEngine.flush();
+        sessionEngine.update(sessionId, activeSession -> activeSession.addParticipant(User.builder().id(UUID.randomUUID()).build()));
+        CompletableFuture<Void> second = sessionEngine.whenFlushed(sessionId);
+        assertFalse(first.isDone());
+
+        sessionEngine.flush();
+        assertTrue(first.isDone());
+        assertTrue(second.isDone());
+    }
+
+    @Test
+    public void testEndCompletesWhenFlushed() {
+        sessionEngine.update(sessionId, activeSession -> activeSession.addParticipant(User.builder().id(UUID.randomUUID()).build()));
+        CompletableFuture<Void> flushed = sessionEngine.whenFlushed(sessionId);
+
+        sessionEngine.end(sessionId, ended -> null);
+
+        assertTrue(flushed.isDone());
+    }
+
+    @Test
+    public void testEndEvictsSession() {
+        String result = sessionEngine.end(sessionId, ended -> "done");
+        assertEquals("done", result);
+
+        sessionEngine.getSession(sessionId);
+        verify(sessionRepository, times(2)).findWithParticipantsandRestaurantsById(sessionId);
+    }
+
+    /**
+     * Verifies that the version of a session changes with its participants and that the tag is gone once it ends.
+     */
+    @Test
+    public void testEtagFollowsChanges() {
+        User user = User.builder().id(UUID.randomUUID()).name("user").build();
+        assertNull(sessionEngine.findEtag(sessionId));
+        sessionEngine.getSession(sessionId);
+        String loaded = sessionEngine.findEtag(sessionId);
+        String listing = sessionEngine.getChangesEtag();
+
+        sessionEngine.update(sessionId, activeSession -> activeSession.addParticipant(user));
+        String joined = sessionEngine.findEtag(sessionId);
+        assertNotEquals(loaded, joined);
+        assertNotEquals(listing, sessionEngine.getChangesEtag());
+        assertEquals(joined, sessionEngine.findVersionedSession(sessionId).getEtag());
+
+        sessionEngine.update(sessionId, activeSession -> activeSession.addParticipant(user));
+        assertEquals(joined, sessionEngine.findEtag(sessionId));
+
+        sessionEngine.end(sessionId, ended -> null);
+        assertNull(sessionEngine.findEtag(sessionId));
+    }
+
+    @Test
+    public void testFindParticipationWithoutLoading() {
+        User user = User.builder().id(UUID.randomUUID()).name("user").build();
+        assertNull(sessionEngine.findParticipation(sessionId, user.getId()));
+
+        sessionEngine.getSession(sessionId);
+        assertFalse(sessionEngine.findParticipation(sessionId, user.getId()));
+
+        sessionEngine.update(sessionId, activeSession -> activeSession.addParticipant(user));
+        assertTrue(sessionEngine.findParticipation(sessionId, user.getId()));
+        verify(sessionRepository, times(1)).findWithParticipantsandRestaurantsById(sessionId);
+    }
+
+    @Test
+    public void testIsActiveLoadsSession() {
+        assertTrue(sessionEngine.isActive(sessionId));
+        assertNotNull(sessionEngine.findEtag(sessionId));
+        assertThrows(RuntimeException.class, () -> sessionEngine.isActive(UUID.randomUUID()));
+    }
+
+    @Test
+    public void testEndKeepsSessionWhenFinisherFails() {
+        assertThrows(IllegalStateException.class, () -> sessionEngine.end(sessionId, ended -> {
+            throw new IllegalStateException("Only the creator of the session can end the session.");
+        }));
+
+        sessionEngine.getSession(sessionId);
+        verify(sessionRepository, times(1)).findWithParticipantsandRestaurantsById(sessionId);
+        verify(transactionManager, times(1)).rollback(any());
+    }
+
+    /**
+     * Verifies that a session can end, and other sessions can be flushed, while another session's end transaction
+     * is still running.
+     */
+    @Test
+    public void testSessionsEndInParallel() throws Exception {
+        UUID otherId = UUID.randomUUID();
+        Session other = new Session();
+        other.setId(otherId);
+        other.setActive(true);
+        when(sessionRepository.findWithParticipantsandRestaurantsById(otherId)).thenReturn(other);
+        UUID dirtyId = UUID.randomUUID();
+        Session dirty = new Session();
+        dirty.setId(dirtyId);
+        dirty.setActive(true);
+        when(sessionRepository.findWithParticipantsandRestaurantsById(dirtyId)).thenReturn(dirty);
+        User user = User.builder().id(UUID.randomUUID()).name("user").build();
+        sessionEngine.update(dirtyId, activeSession -> activeSession.addParticipant(user));
+
+        CountDownLatch ending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> slow = executor.submit(() -> sessionEngine.end(sessionId, ended -> {
+                ending.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "slow";
+            }));
+            assertTrue(ending.await(10, TimeUnit.SECONDS));
+
+            Future<String> fast = executor.submit(() -> {
+                String result = sessionEngine.end(otherId, ended -> "fast");
+                sessionEngine.flush();
+                return result;
+            });
+            assertEquals("fast", fast.get(5, TimeUnit.SECONDS));
+            verify(membershipRepository).insertLinks(Map.of(dirtyId, List.of(user.getId())), Map.of(dirtyId, List.of()));
+
+            release.countDown();
+            assertEquals("slow", slow.get(10, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Verifies that a restaurant submitted without ID gets one in memory and that the flush writes its row
+     * before its link, in one transaction.
+     */
+    @Test
+    public void testFlushWritesNewRestaurantsBeforeLinks() {
+        Restaurant restaurant = Restaurant.builder().name("Sushi").build();
+        boolean added = sessionEngine.update(sessionId, activeSession -> activeSession.addRestaurant(restaurant));
+        assertTrue(added);
+        assertNotNull(restaurant.getId());
+
+        sessionEngine.flush();
+
+        InOrder inOrder = inOrder(transactionManager, membershipRepository);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(membershipRepository).insertRestaurants(List.of(restaurant));
+        inOrder.verify(membershipRepository).insertLinks(Map.of(sessionId, List.of()), Map.of(sessionId, List.of(restaurant.getId())));
+        inOrder.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    public void testUpdateRethrowsMutationException() {
+        IllegalStateException thrown = new IllegalStateException("Only participants of the session can add restaurants.");
+
+        assertSame(thrown, assertThrows(IllegalStateException.class, () -> sessionEngine.update(sessionId, activeSession -> {
+            throw thrown;
+        })));
+    }
+
+    /**
+     * Runs many concurrent mutations of one session and checks that none of them overlap and none is lost.
+     */
+    @Test
+    public void testConcurrentUpdatesAreSerialised() throws Exception {
+        int threads = 8;
+        int updatesPerThread = 200;
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        // The mock returns the same Session to every load, so concurrent first loads would wrap one entity twice
+        sessionEngine.getSession(sessionId);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < updatesPerThread; i++) {
+                        User user = User.builder().id(UUID.randomUUID()).name("user").build();
+                        sessionEngine.update(sessionId, activeSession -> {
+                            if (inFlight.incrementAndGet() > 1) {
+                                overlaps.incrementAndGet();
+                            }
+                            activeSession.addParticipant(user);
+                            inFlight.decrementAndGet();
+                            return null;
+                        });
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, overlaps.get());
+        assertEquals(threads * updatesPerThread, sessionEngine.getSession(sessionId).getParticipants().size());
+    }
+}
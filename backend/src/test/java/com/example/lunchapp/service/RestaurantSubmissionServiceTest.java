@@ -0,0 +1,117 @@
+package com.example.lunchapp.service;
+
+import com.example.lunchapp.dto.SubmissionJob;
+import com.example.lunchapp.dto.SubmissionStatus;
+import com.example.lunchapp.model.Restaurant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * This class contains unit tests for the RestaurantSubmissionService class.
+ */
+public class RestaurantSubmissionServiceTest {
+
+    @Mock
+    SessionService sessionService;
+
+    @Mock
+    ActiveSessionEngine sessionEngine;
+
+    SubmissionJobStore jobStore;
+
+    RestaurantSubmissionService submissionService;
+
+    UUID sessionId;
+
+    UUID userId;
+
+    Restaurant restaurant;
+
+    @BeforeEach
+    public void initialize() {
+        MockitoAnnotations.openMocks(this);
+        jobStore = new SubmissionJobStore(100, 600000);
+        submissionService = new RestaurantSubmissionService(sessionService, sessionEngine, jobStore);
+        sessionId = UUID.randomUUID();
+        userId = UUID.randomUUID();
+        restaurant = Restaurant.builder().id(UUID.randomUUID()).name("Sushi").build();
+    }
+
+    /**
+     * Verifies that a job stays pending while the restaurant is only held in memory, and is reported as added
+     * once the flush has committed it.
+     */
+    @Test
+    public void testSubmitTracksOutcome() {
+        CompletableFuture<Boolean> outcome = new CompletableFuture<>();
+        CompletableFuture<Void> flushed = new CompletableFuture<>();
+        when(sessionService.addRestaurantAsync(sessionId, userId, restaurant)).thenReturn(outcome);
+        when(sessionEngine.whenFlushed(sessionId)).thenReturn(flushed);
+
+        SubmissionJob job = submissionService.submit(sessionId, userId, restaurant);
+        assertEquals(SubmissionStatus.PENDING, submissionService.getJob(sessionId, userId, job.getJobId()).getStatus());
+
+        outcome.complete(true);
+        assertEquals(SubmissionStatus.PENDING, submissionService.getJob(sessionId, userId, job.getJobId()).getStatus());
+
+        flushed.complete(null);
+        SubmissionJob completed = submissionService.getJob(sessionId, userId, job.getJobId());
+        assertEquals(SubmissionStatus.ADDED, completed.getStatus());
+        assertEquals(restaurant.getId(), completed.getRestaurantId());
+    }
+
+    @Test
+    public void testDuplicateSubmissionIsNotFlushed() {
+        when(sessionService.addRestaurantAsync(sessionId, userId, restaurant)).thenReturn(CompletableFuture.completedFuture(false));
+
+        SubmissionJob job = submissionService.submit(sessionId, userId, restaurant);
+
+        SubmissionJob completed = submissionService.getJob(sessionId, userId, job.getJobId());
+        assertEquals(SubmissionStatus.ALREADY_SUBMITTED, completed.getStatus());
+        assertNull(completed.getRestaurantId());
+        verifyNoInteractions(sessionEngine);
+    }
+
+    /**
+     * Verifies that a job is only visible to its submitter, in its own session.
+     */
+    @Test
+    public void testGetJobChecksSessionAndUser() {
+        when(sessionService.addRestaurantAsync(sessionId, userId, restaurant)).thenReturn(new CompletableFuture<>());
+
+        SubmissionJob job = submissionService.submit(sessionId, userId, restaurant);
+
+        assertThrows(RuntimeException.class, () -> submissionService.getJob(UUID.randomUUID(), userId, job.getJobId()));
+        assertThrows(RuntimeException.class, () -> submissionService.getJob(sessionId, UUID.randomUUID(), job.getJobId()));
+    }
+
+    @Test
+    public void testSubmitReportsFailure() {
+        when(sessionService.addRestaurantAsync(sessionId, userId, restaurant))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Session already ended.")));
+
+        SubmissionJob job = submissionService.submit(sessionId, userId, restaurant);
+
+        SubmissionJob failed = submissionService.getJob(sessionId, userId, job.getJobId());
+        assertEquals(SubmissionStatus.FAILED, failed.getStatus());
+        assertEquals("Session already ended.", failed.getMessage());
+    }
+
+    @Test
+    public void testRejectedSubmissionKeepsNoJob() {
+        when(sessionService.addRestaurantAsync(sessionId, userId, restaurant)).thenThrow(new TaskRejectedException("full"));
+
+        assertThrows(TaskRejectedException.class, () -> submissionService.submit(sessionId, userId, restaurant));
+        assertEquals(0, jobStore.size());
+    }
+}
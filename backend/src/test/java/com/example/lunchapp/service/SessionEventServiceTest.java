@@ -0,0 +1,262 @@
+package com.example.lunchapp.service;
+
+import com.example.lunchapp.dto.SessionChanges;
+import com.example.lunchapp.dto.SessionEvent;
+import com.example.lunchapp.dto.SessionEventType;
+import com.example.lunchapp.repository.SessionEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class contains unit tests for the SessionEventService class.
+ */
+public class SessionEventServiceTest {
+
+    @Mock
+    SessionEventRepository eventRepository;
+
+    SessionEventService sessionEventService;
+
+    @BeforeEach
+    public void initialize() {
+        MockitoAnnotations.openMocks(this);
+        sessionEventService = new SessionEventService(eventRepository, 2, 1000L, 500, 7);
+    }
+
+    @Test
+    public void testSequencesArePerSession() {
+        UUID sessionId = UUID.randomUUID();
+        UUID otherSessionId = UUID.randomUUID();
+
+        assertEquals(1, sessionEventService.publish(sessionId, SessionEventType.PARTICIPANT_JOINED, UUID.randomUUID(), "a").getSequence());
+        assertEquals(2, sessionEventService.publish(sessionId, SessionEventType.RESTAURANT_ADDED, UUID.randomUUID(), "b").getSequence());
+        assertEquals(1, sessionEventService.publish(otherSessionId, SessionEventType.RESTAURANT_ADDED, UUID.randomUUID(), "c").getSequence());
+    }
+
+    @Test
+    public void testSessionEndedReleasesLog() {
+        UUID sessionId = UUID.randomUUID();
+        sessionEventService.publish(sessionId, SessionEventType.RESTAURANT_ADDED, UUID.randomUUID(), "a");
+        SessionEvent ended = sessionEventService.publish(sessionId, SessionEventType.SESSION_ENDED, null, "a");
+        assertEquals(2, ended.getSequence());
+        sessionEventService.flush();
+
+        when(eventRepository.findLast(sessionId)).thenReturn(ended);
+        assertEquals(3, sessionEventService.publish(sessionId, SessionEventType.RESTAURANT_ADDED, UUID.randomUUID(), "b").getSequence());
+        verify(eventRepository, times(2)).findLast(sessionId);
+    }
+
+    /**
+     * Verifies that the log of an ended session is kept while the table is still behind, so the numbering is not
+     * continued from the stored events and no sequence is reused.
+     */
+    @Test
+    public void testEndedLogIsKeptUntilStored() {
+        UUID sessionId = UUID.randomUUID();
+        sessionEventService.publish(sessionId, SessionEventType.RESTAURANT_ADDED, UUID.randomUUID(), "a");
+        sessionEventService.publish(sessionId, SessionEventType.SESSION_ENDED, null, "a");
+
+        assertEquals(3, sessionEventService.publish(sessionId, SessionEventType.RESTAURANT_ADDED, UUID.randomUUID(), "b").getSequence());
+        SessionChanges changes = sessionEventService.getChanges(sessionId, 1);
+        assertEquals(2, changes.getEvents().size());
+        assertEquals(SessionEventType.SESSION_ENDED, changes.getEvents().get(0).getType());
+        verify(eventRepository, times(1)).findLast(sessionId);
+        verify(eventRepository, never()).findAfter(any(), anyLong(), anyInt());
+    }
+
+    /**
+     * Verifies that a recorded event is numbered and served by the change feed before it is delivered to subscribers.
+     */
+    @Test
+    public void testRecordedEventIsInFeedBeforeDelivery() throws Exception {
+        UUID sessionId = UUID.randomUUID();
+        CompletableFuture<SessionChanges> waiting = sessionEventService.awaitChanges(sessionId, 0, 10_000);
+
+        SessionEvent event = sessionEventService.record(sessionId, SessionEventType.RESTAURANT_ADDED, UUID.randomUUID(), "a");
+
+        assertEquals(1, event.getSequence());
+        assertEquals(List.of(event), waiting.get().getEvents());
+        assertEquals(List.of(event), sessionEventService.getChanges(sessionId, 0).getEvents());
+        assertNotNull(sessionEventService.subscribe(sessionId, 0));
+        sessionEventService.deliver(sessionId);
+        sessionEventService.deliver(UUID.randomUUID());
+    }
+
+    @Test
+    public void testSubscribeWithAnyCursor() {
+        UUID sessionId = UUID.randomUUID();
+        for (int i = 0; i < 5; i++) {
+            sessionEventService.publish(sessionId, SessionEventType.RESTAURANT_ADDED, UUID.randomUUID(), "r" + i);
+        }
+
+        assertNotNull(sessionEventService.subscribe(sessionId, 0));
+        assertNotNull(sessionEventService.subscribe(sessionId, 1));
+        assertNotNull(sessionEventService.subscribe(sessionId, 4));
+        assertNotNull(sessionEventService.subscribe(sessionId, 42));
+    }
+
+    @Test
+    public void testNumberingContinuesAfterStoredEvents() {
+        UUID sessionId = UUID.randomUUID();
+        when(eventRepository.findLast(sessionId)).thenReturn(event(sessionId, 41, SessionEventType.RESTAURANT_ADDED));
+
+        assertEquals(42, sessionEventService.publish(sessionId, SessionEventType.PARTICIPANT_JOINED, UUID.randomUUID(), "a").getSequence());
+    }
+
+    /**
+     * Verifies that the log of a session nobody follows is evicted once it has been idle for a whole heartbeat with
+     * its events stored, and that the next event is numbered from the table.
+     */
+    @Test
+    public void testIdleLogIsEvicted() {
+        UUID sessionId = UUID.randomUUID();
+        SessionEvent first = sessionEventService.publish(sessionId, SessionEventType.PARTICIPANT_JOINED, UUID.randomUUID(), "a");
+        sessionEventService.flush();
+
+        sessionEventService.heartbeat();
+        assertEquals(2, sessionEventService.publish(sessionId, SessionEventType.RESTAURANT_ADDED, UUID.randomUUID(), "b").getSequence());
+        sessionEventService.flush();
+        sessionEventService.heartbeat();
+        verify(eventRepository, times(1)).findLast(sessionId);
+
+        sessionEventService.heartbeat();
+        when(eventRepository.findLast(sessionId)).thenReturn(event(sessionId, 2, first.getType()));
+        assertEquals(3, sessionEventService.publish(sessionId, SessionEventType.RESTAURANT_ADDED, UUID.randomUUID(), "c").getSequence());
+        verify(eventRepository, times(2)).findLast(sessionId);
+    }
+
+    /**
+     * Verifies that a log is kept while a change feed request waits on it or its events are not stored yet.
+     */
+    @Test
+    public void testBusyLogIsNotEvicted() throws Exception {
+        UUID sessionId = UUID.randomUUID();
+        UUID otherSessionId = UUID.randomUUID();
+        CompletableFuture<SessionChanges> waiting = sessionEventService.awaitChanges(sessionId, 0, 10_000);
+        sessionEventService.publish(otherSessionId, SessionEventType.RESTAURANT_ADDED, UUID.randomUUID(), "a");
+
+        sessionEventService.heartbeat();
+        sessionEventService.heartbeat();
+
+        assertEquals(1, sessionEventService.publish(sessionId, SessionEventType.RESTAURANT_ADDED, UUID.randomUUID(), "b").getSequence());
+        assertEquals("b", waiting.get().getEvents().get(0).getName());
+        assertEquals(2, sessionEventService.publish(otherSessionId, SessionEventType.RESTAURANT_ADDED, UUID.randomUUID(), "c").getSequence());
+        verify(eventRepository, times(1)).findLast(sessionId);
+        verify(eventRepository, times(1)).findLast(otherSessionId);
+    }
+
+    /**
+     * Verifies that a change feed request or subscription arriving after the log of an ended session was released
+     * is answered from the table without creating a new log.
+     */
+    @Test
+    public void testEndedSessionLogIsNotRecreated() throws Exception {
+        UUID sessionId = UUID.randomUUID();
+        SessionEvent ended = sessionEventService.publish(sessionId, SessionEventType.SESSION_ENDED, null, "a");
+        sessionEventService.flush();
+        when(eventRepository.findLast(sessionId)).thenReturn(ended);
+        when(eventRepository.findLastSequence(sessionId)).thenReturn(1L);
+
+        CompletableFuture<SessionChanges> changes = sessionEventService.awaitChanges(sessionId, 1, 10_000);
+        assertTrue(changes.isDone());
+        assertEquals(1, changes.get().getCursor());
+        assertNotNull(sessionEventService.subscribe(sessionId, 1));
+        assertTrue(sessionEventService.awaitChanges(sessionId, 1, 10_000).isDone());
+
+        verify(eventRepository, times(4)).findLast(sessionId);
+    }
+
+    @Test
+    public void testChangesFromBuffer() {
+        UUID sessionId = UUID.randomUUID();
+        sessionEventService.publish(sessionId, SessionEventType.PARTICIPANT_JOINED, UUID.randomUUID(), "a");
+        sessionEventService.publish(sessionId, SessionEventType.RESTAURANT_ADDED, UUID.randomUUID(), "b");
+
+        SessionChanges changes = sessionEventService.getChanges(sessionId, 1);
+
+        assertEquals(1, changes.getEvents().size());
+        assertEquals("b", changes.getEvents().get(0).getName());
+        assertEquals(2, changes.getCursor());
+        assertFalse(changes.isResync());
+        assertTrue(sessionEventService.getChanges(sessionId, 5).isResync());
+        verify(eventRepository, never()).findAfter(any(), anyLong(), anyInt());
+    }
+
+    /**
+     * Verifies that a cursor older than the buffer of two events is served from the table once the events are stored.
+     */
+    @Test
+    public void testChangesOlderThanBufferFromStore() {
+        UUID sessionId = UUID.randomUUID();
+        for (int i = 0; i < 3; i++) {
+            sessionEventService.publish(sessionId, SessionEventType.RESTAURANT_ADDED, UUID.randomUUID(), "r" + i);
+        }
+        sessionEventService.flush();
+        verify(eventRepository).insertAll(argThat(events -> events.size() == 3));
+        SessionEvent first = SessionEvent.builder().sessionId(sessionId).sequence(1).type(SessionEventType.RESTAURANT_ADDED).build();
+        when(eventRepository.findAfter(sessionId, 0, 500)).thenReturn(List.of(first));
+
+        SessionChanges changes = sessionEventService.getChanges(sessionId, 0);
+        assertEquals(List.of(first), changes.getEvents());
+        assertEquals(1, changes.getCursor());
+
+        // Event 1 is neither buffered nor stored any more
+        when(eventRepository.findAfter(sessionId, 0, 500)).thenReturn(List.of());
+        SessionChanges purged = sessionEventService.getChanges(sessionId, 0);
+        assertTrue(purged.isResync());
+        assertEquals(3, purged.getCursor());
+    }
+
+    @Test
+    public void testFailedFlushIsRetried() {
+        UUID sessionId = UUID.randomUUID();
+        sessionEventService.publish(sessionId, SessionEventType.RESTAURANT_ADDED, UUID.randomUUID(), "a");
+        doThrow(new RuntimeException("database down")).doNothing().when(eventRepository).insertAll(anyList());
+
+        sessionEventService.flush();
+        sessionEventService.flush();
+        sessionEventService.flush();
+
+        verify(eventRepository, times(2)).insertAll(anyList());
+    }
+
+    @Test
+    public void testAwaitChangesCompletesWithNextEvent() throws Exception {
+        UUID sessionId = UUID.randomUUID();
+        sessionEventService.publish(sessionId, SessionEventType.PARTICIPANT_JOINED, UUID.randomUUID(), "a");
+
+        CompletableFuture<SessionChanges> waiting = sessionEventService.awaitChanges(sessionId, 1, 10_000);
+        assertFalse(waiting.isDone());
+        sessionEventService.publish(sessionId, SessionEventType.RESTAURANT_ADDED, UUID.randomUUID(), "b");
+
+        SessionChanges changes = waiting.get();
+        assertEquals("b", changes.getEvents().get(0).getName());
+        assertEquals(2, changes.getCursor());
+        assertTrue(sessionEventService.awaitChanges(sessionId, 0, 10_000).isDone());
+    }
+
+    @Test
+    public void testAwaitChangesTimesOutWithoutEvents() throws Exception {
+        UUID sessionId = UUID.randomUUID();
+
+        SessionChanges changes = sessionEventService.awaitChanges(sessionId, 0, 10).get();
+
+        assertTrue(changes.getEvents().isEmpty());
+        assertEquals(0, changes.getCursor());
+        assertFalse(changes.isResync());
+    }
+
+    private static SessionEvent event(UUID sessionId, long sequence, SessionEventType type) {
+        return SessionEvent.builder().sessionId(sessionId).sequence(sequence).type(type).build();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.lunchapp.service;
+
+import com.example.lunchapp.repository.SessionMembershipRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class contains unit tests for the SessionMembershipService class.
+ */
+public class SessionMembershipServiceTest {
+
+    @Mock
+    ActiveSessionEngine sessionEngine;
+
+    @Mock
+    SessionMembershipRepository membershipRepository;
+
+    @InjectMocks
+    SessionMembershipService membershipService;
+
+    UUID sessionId;
+
+    UUID userId;
+
+    @BeforeEach
+    public void init() {
+        MockitoAnnotations.openMocks(this);
+        sessionId = UUID.randomUUID();
+        userId = UUID.randomUUID();
+    }
+
+    @Test
+    public void testHeldSessionIsAnsweredFromMemory() {
+        when(sessionEngine.findParticipation(sessionId, userId)).thenReturn(false);
+
+        assertFalse(membershipService.isParticipant(sessionId, userId));
+        verify(membershipRepository, never()).existsParticipant(any(), any());
+    }
+
+    @Test
+    public void testOtherSessionIsAnsweredFromDatabase() {
+        when(sessionEngine.findParticipation(sessionId, userId)).thenReturn(null);
+        when(membershipRepository.existsParticipant(sessionId, userId)).thenReturn(true);
+
+        assertTrue(membershipService.isParticipant(sessionId, userId));
+    }
+}
@@ -1,21 +1,51 @@
 package com.example.lunchapp.service;
 
+import com.example.lunchapp.dto.InviteResult;
+import com.example.lunchapp.dto.InviteStatus;
+import com.example.lunchapp.dto.RestaurantSummary;
+import com.example.lunchapp.dto.SessionEventType;
+import com.example.lunchapp.dto.SessionHistoryEntry;
+import com.example.lunchapp.dto.SessionResponse;
+import com.example.lunchapp.dto.SessionSummary;
+import com.example.lunchapp.dto.UserSummary;
+import com.example.lunchapp.dto.Versioned;
 import com.example.lunchapp.model.Restaurant;
 import com.example.lunchapp.model.Session;
 import com.example.lunchapp.model.User;
+import com.example.lunchapp.model.VotingMethod;
 import com.example.lunchapp.repository.RestaurantRepository;
+import com.example.lunchapp.repository.SessionHistoryRepository;
+import com.example.lunchapp.repository.SessionMembershipRepository;
 import com.example.lunchapp.repository.SessionRepository;
 import com.example.lunchapp.repository.UserRepository;
+import com.example.lunchapp.repository.VoteRepository;
+import com.example.lunchapp.service.voting.ApprovalPickStrategy;
+import com.example.lunchapp.service.voting.RankedChoicePickStrategy;
+import com.example.lunchapp.service.voting.VoteTally;
+import com.example.lunchapp.service.voting.VotingService;
+import com.example.lunchapp.service.voting.WeightedRandomPickStrategy;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 
 /**
  * The SessionServiceTest class is a test class for the SessionService class.
@@ -31,24 +61,141 @@ public class SessionServiceTest {
     @Mock
     UserRepository userRepository;
 
-    @InjectMocks
+    @Mock
+    SessionMembershipRepository membershipRepository;
+
+    @Mock
+    SessionEventService sessionEventService;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Mock
+    VoteRepository voteRepository;
+
+    @Mock
+    SessionHistoryRepository historyRepository;
+
     SessionService sessionService;
 
     @BeforeEach
     public void initialize() {
         MockitoAnnotations.openMocks(this);
+        ActiveSessionEngine sessionEngine = new ActiveSessionEngine(sessionRepository, membershipRepository, transactionManager);
+        sessionService = new SessionService(sessionRepository, restaurantRepository, userRepository, sessionEngine, sessionEventService,
+                membershipRepository, new VotingService(voteRepository,
+                List.of(new ApprovalPickStrategy(), new RankedChoicePickStrategy(), new WeightedRandomPickStrategy())),
+                new SessionArchiveService(historyRepository));
     }
 
     @Test
     public void getAllSessionsTest() {
-        Session session1 = new Session();
-        Session session2 = new Session();
-        when(sessionRepository.findAll()).thenReturn(Arrays.asList(session1, session2));
+        SessionSummary session1 = summary(UUID.randomUUID(), true);
+        SessionSummary session2 = summary(UUID.randomUUID(), true);
+        when(sessionRepository.findSummaries(PageRequest.of(0, 10))).thenReturn(Arrays.asList(session1, session2));
 
-        List<Session> sessions = sessionService.getAllSessions();
+        List<SessionSummary> sessions = sessionService.getSessions(null, 10);
         assertEquals(2, sessions.size());
     }
 
+    @Test
+    public void getSessionsAfterCursorTest() {
+        UUID afterId = UUID.randomUUID();
+        when(sessionRepository.findSummariesAfter(afterId, PageRequest.of(0, 10))).thenReturn(List.of(summary(UUID.randomUUID(), true)));
+
+        List<SessionSummary> sessions = sessionService.getSessions(afterId, 10);
+        assertEquals(1, sessions.size());
+        verify(sessionRepository, never()).findSummaries(any());
+    }
+
+    /**
+     * Verifies that a session that is not held in memory is read through projections, without loading the entity.
+     */
+    @Test
+    public void testGetSessionResponseFromProjections() {
+        UUID sessionId = UUID.randomUUID();
+        UUID participantId = UUID.randomUUID();
+        when(sessionRepository.findSummaryById(sessionId)).thenReturn(summary(sessionId, false));
+        when(sessionRepository.findParticipantIds(sessionId)).thenReturn(Set.of(participantId));
+        when(sessionRepository.findRestaurantSummaries(sessionId)).thenReturn(List.of(new RestaurantSummary(UUID.randomUUID(), "Sushi")));
+
+        SessionResponse response = sessionService.getSessionResponse(sessionId);
+
+        assertEquals(sessionId, response.getId());
+        assertEquals(Set.of(participantId), response.getParticipants());
+        assertEquals("Sushi", response.getRestaurants().get(0).getName());
+        verify(sessionRepository, never()).findWithParticipantsandRestaurantsById(any());
+    }
+
+    @Test
+    public void testGetSessionResponseFromMemory() {
+        UUID sessionId = UUID.randomUUID();
+        when(userRepository.findById(any())).thenReturn(Optional.of(User.builder().id(UUID.randomUUID()).name("creator").build()));
+        when(sessionRepository.save(any(Session.class))).thenAnswer(invocation -> {
+            Session saved = invocation.getArgument(0);
+            saved.setId(sessionId);
+            return saved;
+        });
+        sessionService.createSession(UUID.randomUUID());
+
+        SessionResponse response = sessionService.getSessionResponse(sessionId);
+
+        assertEquals("creator", response.getCreatorName());
+        assertEquals(1, response.getParticipants().size());
+        verify(sessionRepository, never()).findSummaryById(any());
+    }
+
+    /**
+     * Verifies that a session held in memory is versioned and that its tag is read without touching the database.
+     */
+    @Test
+    public void testGetVersionedSessionResponseFromMemory() {
+        UUID sessionId = UUID.randomUUID();
+        when(userRepository.findById(any())).thenReturn(Optional.of(User.builder().id(UUID.randomUUID()).name("creator").build()));
+        when(sessionRepository.save(any(Session.class))).thenAnswer(invocation -> {
+            Session saved = invocation.getArgument(0);
+            saved.setId(sessionId);
+            return saved;
+        });
+        sessionService.createSession(UUID.randomUUID());
+
+        Versioned<SessionResponse> response = sessionService.getVersionedSessionResponse(sessionId);
+
+        assertEquals(sessionId, response.getValue().getId());
+        assertEquals(sessionService.getSessionEtag(sessionId), response.getEtag());
+        verify(sessionRepository, never()).findSummaryById(any());
+    }
+
+    @Test
+    public void testGetSessionResponseFromHistory() {
+        UUID sessionId = UUID.randomUUID();
+        UUID participantId = UUID.randomUUID();
+        when(historyRepository.findById(sessionId)).thenReturn(SessionHistoryEntry.builder()
+                .id(sessionId)
+                .creatorName("creator")
+                .pickedRestaurantName("Sushi")
+                .participants(List.of(new UserSummary(participantId, "participant")))
+                .candidates(List.of(new RestaurantSummary(UUID.randomUUID(), "Sushi")))
+                .build());
+
+        SessionResponse response = sessionService.getSessionResponse(sessionId);
+
+        assertFalse(response.isActive());
+        assertEquals("Sushi", response.getPickedRestaurant());
+        assertEquals(Set.of(participantId), response.getParticipants());
+    }
+
+    @Test
+    public void testGetSessionResponseNotFound() {
+        UUID sessionId = UUID.randomUUID();
+
+        assertThrows(RuntimeException.class, () -> sessionService.getSessionResponse(sessionId));
+    }
+
+    private SessionSummary summary(UUID sessionId, boolean active) {
+        return new SessionSummary(sessionId, UUID.randomUUID(), "creator", active, null, 1, 1);
+    }
+
     @Test
     public void testCreateSession() {
         UUID creatorId = UUID.randomUUID();
@@ -72,7 +219,8 @@ public class SessionServiceTest {
     public void testGetSessionById() {
         UUID sessionId = UUID.randomUUID();
         Session session = new Session();
-        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
+        session.setId(sessionId);
+        when(sessionRepository.findWithParticipantsandRestaurantsById(sessionId)).thenReturn(session);
 
         Session fetchedSession = sessionService.getSessionById(sessionId);
         assertEquals(session, fetchedSession);
@@ -86,7 +234,7 @@ public class SessionServiceTest {
     @Test
     public void testGetSessionByIdNotFound() {
         UUID sessionId = UUID.randomUUID();
-        when(sessionRepository.findById(sessionId)).thenReturn(Optional.empty());
+        when(sessionRepository.findWithParticipantsandRestaurantsById(sessionId)).thenReturn(null);
 
         assertThrows(RuntimeException.class, () -> sessionService.getSessionById(sessionId));
     }
@@ -109,7 +257,7 @@ public class SessionServiceTest {
         session.setActive(true);
         session.setCreator(new User());
         session.getCreator().setId(inviterId);
-        User invitee = new User();
+        User invitee = User.builder().id(inviteeId).build();
         when(sessionRepository.findWithParticipantsandRestaurantsById(sessionId)).thenReturn(session);
         when(userRepository.findById(inviterId)).thenReturn(Optional.of(session.getCreator()));
         when(userRepository.findById(inviteeId)).thenReturn(Optional.of(invitee));
@@ -117,6 +265,53 @@ public class SessionServiceTest {
         sessionService.inviteUserToSession(sessionId, inviterId, inviteeId);
         assertEquals(1, session.getParticipants().size());
         assertTrue(session.getParticipants().contains(invitee));
+        verify(sessionEventService, times(1)).record(sessionId, SessionEventType.PARTICIPANT_JOINED, invitee.getId(), invitee.getName());
+
+        sessionService.inviteUserToSession(sessionId, inviterId, inviteeId);
+        verify(sessionEventService, times(1)).record(sessionId, SessionEventType.PARTICIPANT_JOINED, invitee.getId(), invitee.getName());
+    }
+
+    /**
+     * Invites one new user by ID, one by name, the creator again and an unknown name, and checks that each
+     * invitee gets its own result while the users are resolved with one query per identifier kind.
+     */
+    @Test
+    public void testInviteUsersToSession() {
+        UUID sessionId = UUID.randomUUID();
+        User creator = User.builder().id(UUID.randomUUID()).name("creator").build();
+        User byId = User.builder().id(UUID.randomUUID()).name("alice").build();
+        User byName = User.builder().id(UUID.randomUUID()).name("bob").build();
+        Session session = Session.builder().id(sessionId).creator(creator).isActive(true).build();
+        session.getParticipants().add(creator);
+        when(sessionRepository.findWithParticipantsandRestaurantsById(sessionId)).thenReturn(session);
+        when(userRepository.findAllById(any())).thenReturn(List.of(byId, creator));
+        when(userRepository.findByNameIn(any())).thenReturn(List.of(byName));
+
+        List<InviteResult> results = sessionService.inviteUsersToSession(sessionId, creator.getId(),
+                List.of(byId.getId(), creator.getId()), List.of("bob", "nobody"));
+
+        assertEquals(4, results.size());
+        assertEquals(InviteStatus.ADDED, results.get(0).getStatus());
+        assertEquals(InviteStatus.ALREADY_PARTICIPANT, results.get(1).getStatus());
+        assertEquals(InviteStatus.ADDED, results.get(2).getStatus());
+        assertEquals(byName.getId(), results.get(2).getUserId());
+        assertEquals(InviteStatus.NOT_FOUND, results.get(3).getStatus());
+        assertEquals(3, session.getParticipants().size());
+        verify(userRepository, times(1)).findAllById(any());
+        verify(userRepository, never()).findById(any());
+        verify(sessionEventService, times(2)).record(eq(sessionId), eq(SessionEventType.PARTICIPANT_JOINED), any(), any());
+        verify(sessionEventService).deliver(sessionId);
+    }
+
+    @Test
+    public void testInviteUsersToSessionByNonCreator() {
+        UUID sessionId = UUID.randomUUID();
+        User creator = User.builder().id(UUID.randomUUID()).name("creator").build();
+        Session session = Session.builder().id(sessionId).creator(creator).isActive(true).build();
+        when(sessionRepository.findWithParticipantsandRestaurantsById(sessionId)).thenReturn(session);
+
+        assertThrows(IllegalStateException.class, () -> sessionService.inviteUsersToSession(sessionId, UUID.randomUUID(),
+                List.of(UUID.randomUUID()), List.of()));
     }
 
     /**
@@ -124,7 +319,7 @@ public class SessionServiceTest {
      * This method performs the following steps:
      * 1. Generates a random UUID for the session and user IDs.
      * 2. Creates a session object and sets the participants.
-     * 3. Sets up mock configurations for the sessionRepository and userRepository.
+     * 3. Sets up mock configurations for the sessionRepository.
      * 4. Calls the {@code addRestaurantAsync} method with the session ID, user ID, and a restaurant object.
      * 5. Verifies that the restaurant is added to the session and that the session is saved.
      *
@@ -141,7 +336,6 @@ public class SessionServiceTest {
         Restaurant restaurant = new Restaurant();
 
         when(sessionRepository.findWithParticipantsandRestaurantsById(sessionId)).thenReturn(session);
-        when(userRepository.findById(userId)).thenReturn(Optional.of(session.getParticipants().iterator().next()));
 
         sessionService.addRestaurantAsync(sessionId, userId, restaurant).get();
 
@@ -149,4 +343,175 @@ public class SessionServiceTest {
         assertTrue(session.getRestaurants().contains(restaurant));
     }
 
+    /**
+     * Ends a session with two restaurants and checks that its summary is archived before the session,
+     * its links and all of its restaurants are deleted from the live tables.
+     */
+    @Test
+    public void testEndSession() {
+        UUID sessionId = UUID.randomUUID();
+        User creator = User.builder().id(UUID.randomUUID()).name("creator").build();
+        Restaurant sushi = Restaurant.builder().id(UUID.randomUUID()).name("Sushi").build();
+        Restaurant pizza = Restaurant.builder().id(UUID.randomUUID()).name("Pizza").build();
+        Session session = Session.builder().id(sessionId).creator(creator).isActive(true).build();
+        session.getParticipants().add(creator);
+        session.getRestaurants().add(sushi);
+        session.getRestaurants().add(pizza);
+        when(sessionRepository.findWithParticipantsandRestaurantsById(sessionId)).thenReturn(session);
+
+        String picked = sessionService.endSession(sessionId, creator.getId());
+
+        ArgumentCaptor<SessionHistoryEntry> archived = ArgumentCaptor.forClass(SessionHistoryEntry.class);
+        InOrder inOrder = inOrder(historyRepository, membershipRepository, sessionRepository, restaurantRepository);
+        inOrder.verify(historyRepository).append(archived.capture());
+        inOrder.verify(membershipRepository).deleteLinks(sessionId);
+        inOrder.verify(sessionRepository).deleteSession(sessionId);
+        inOrder.verify(restaurantRepository).deleteAllByIdIn(argThat(ids -> ids.size() == 2
+                && ids.containsAll(List.of(sushi.getId(), pizza.getId()))));
+        assertEquals(picked, archived.getValue().getPickedRestaurantName());
+        assertEquals(List.of("Pizza", "Sushi"), archived.getValue().getCandidates().stream().map(RestaurantSummary::getName).toList());
+        assertEquals(creator.getId(), archived.getValue().getParticipants().get(0).getId());
+        assertNotNull(archived.getValue().getEndedAt());
+        verify(restaurantRepository, never()).deleteAll();
+        verify(sessionEventService, times(1)).publish(sessionId, SessionEventType.SESSION_ENDED, null, picked);
+    }
+
+    @Test
+    public void testEndSessionWithoutRestaurants() {
+        UUID sessionId = UUID.randomUUID();
+        User creator = User.builder().id(UUID.randomUUID()).name("creator").build();
+        Session session = Session.builder().id(sessionId).creator(creator).isActive(true).build();
+        when(sessionRepository.findWithParticipantsandRestaurantsById(sessionId)).thenReturn(session);
+
+        assertEquals("", sessionService.endSession(sessionId, creator.getId()));
+        verify(historyRepository, times(1)).append(argThat(entry -> entry.getPickedRestaurantId() == null));
+        verify(sessionRepository, times(1)).deleteSession(sessionId);
+        verify(restaurantRepository, never()).deleteAllByIdIn(any());
+    }
+
+    @Test
+    public void testEndArchivedSession() {
+        UUID sessionId = UUID.randomUUID();
+        when(historyRepository.findById(sessionId)).thenReturn(SessionHistoryEntry.builder().id(sessionId).build());
+
+        assertThrows(IllegalStateException.class, () -> sessionService.endSession(sessionId, UUID.randomUUID()));
+        verify(sessionRepository, never()).deleteSession(any());
+    }
+
+    /**
+     * Two participants approve the same restaurant of an approval session, so ending the session must pick it,
+     * archive the session and delete its ballots instead of writing the pending ones.
+     */
+    @Test
+    public void testCastVoteAndEndApprovalSession() {
+        UUID sessionId = UUID.randomUUID();
+        User creator = User.builder().id(UUID.randomUUID()).name("creator").build();
+        User participant = User.builder().id(UUID.randomUUID()).name("participant").build();
+        Restaurant sushi = Restaurant.builder().id(UUID.randomUUID()).name("Sushi").build();
+        Restaurant pizza = Restaurant.builder().id(UUID.randomUUID()).name("Pizza").build();
+        Session session = Session.builder().id(sessionId).creator(creator).isActive(true)
+                .votingMethod(VotingMethod.APPROVAL).build();
+        session.getParticipants().add(creator);
+        session.getParticipants().add(participant);
+        session.getRestaurants().add(sushi);
+        session.getRestaurants().add(pizza);
+        when(sessionRepository.findWithParticipantsandRestaurantsById(sessionId)).thenReturn(session);
+
+        sessionService.castVote(sessionId, creator.getId(), List.of(sushi.getId(), pizza.getId()));
+        sessionService.castVote(sessionId, participant.getId(), List.of(sushi.getId()));
+
+        assertEquals("Sushi", sessionService.endSession(sessionId, creator.getId()));
+        verify(voteRepository, times(1)).deleteBySession(sessionId);
+        verify(voteRepository, never()).replaceBallots(any());
+        verify(historyRepository, times(1)).append(argThat(entry -> sushi.getId().equals(entry.getPickedRestaurantId())));
+    }
+
+    /**
+     * Holds a ballot back at the voting service until the session has ended, or for half a second if the end has to
+     * wait for it. The ballot must then be either counted by the end or rejected, never accepted and lost.
+     */
+    @Test
+    public void testCastVoteRacesEndSession() throws Exception {
+        UUID sessionId = UUID.randomUUID();
+        User creator = User.builder().id(UUID.randomUUID()).name("creator").build();
+        User voter = User.builder().id(UUID.randomUUID()).name("voter").build();
+        Restaurant sushi = Restaurant.builder().id(UUID.randomUUID()).name("Sushi").build();
+        Session session = Session.builder().id(sessionId).creator(creator).isActive(true)
+                .votingMethod(VotingMethod.APPROVAL).build();
+        session.getParticipants().add(creator);
+        session.getParticipants().add(voter);
+        session.getRestaurants().add(sushi);
+        when(sessionRepository.findWithParticipantsandRestaurantsById(sessionId)).thenReturn(session);
+        AtomicLong pickedApprovals = new AtomicLong(-1);
+        ApprovalPickStrategy recordingApproval = new ApprovalPickStrategy() {
+            @Override
+            public Restaurant pick(List<Restaurant> candidates, VoteTally tally) {
+                pickedApprovals.set(tally.approvals(sushi.getId()));
+                return super.pick(candidates, tally);
+            }
+        };
+        CountDownLatch casting = new CountDownLatch(1);
+        CountDownLatch ended = new CountDownLatch(1);
+        VotingService slowVoting = new VotingService(voteRepository, List.of(recordingApproval)) {
+            @Override
+            public void castVote(UUID sessionId, UUID userId, List<UUID> ballot) {
+                casting.countDown();
+                try {
+                    ended.await(500, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.castVote(sessionId, userId, ballot);
+            }
+        };
+        SessionService racingService = new SessionService(sessionRepository, restaurantRepository, userRepository,
+                new ActiveSessionEngine(sessionRepository, membershipRepository, transactionManager), sessionEventService,
+                membershipRepository, slowVoting, new SessionArchiveService(historyRepository));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> vote = executor.submit(() -> {
+                try {
+                    racingService.castVote(sessionId, voter.getId(), List.of(sushi.getId()));
+                    return true;
+                } catch (IllegalStateException e) {
+                    assertEquals("Session already ended.", e.getMessage());
+                    return false;
+                }
+            });
+            assertTrue(casting.await(10, TimeUnit.SECONDS));
+            assertEquals("Sushi", racingService.endSession(sessionId, creator.getId()));
+            ended.countDown();
+
+            assertEquals(vote.get(10, TimeUnit.SECONDS) ? 1 : 0, pickedApprovals.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCastVoteByNonParticipant() {
+        UUID sessionId = UUID.randomUUID();
+        User creator = User.builder().id(UUID.randomUUID()).name("creator").build();
+        Restaurant sushi = Restaurant.builder().id(UUID.randomUUID()).name("Sushi").build();
+        Session session = Session.builder().id(sessionId).creator(creator).isActive(true).build();
+        session.getRestaurants().add(sushi);
+        when(sessionRepository.findWithParticipantsandRestaurantsById(sessionId)).thenReturn(session);
+
+        assertThrows(IllegalStateException.class,
+                () -> sessionService.castVote(sessionId, UUID.randomUUID(), List.of(sushi.getId())));
+    }
+
+    @Test
+    public void testCastVoteForUnknownRestaurant() {
+        UUID sessionId = UUID.randomUUID();
+        User creator = User.builder().id(UUID.randomUUID()).name("creator").build();
+        Session session = Session.builder().id(sessionId).creator(creator).isActive(true).build();
+        session.getParticipants().add(creator);
+        when(sessionRepository.findWithParticipantsandRestaurantsById(sessionId)).thenReturn(session);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> sessionService.castVote(sessionId, creator.getId(), List.of(UUID.randomUUID())));
+        verify(voteRepository, never()).findBallots(any());
+    }
 }
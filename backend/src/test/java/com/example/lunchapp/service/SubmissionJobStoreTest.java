@@ -0,0 +1,88 @@
+package com.example.lunchapp.service;
+
+import com.example.lunchapp.dto.SubmissionJob;
+import com.example.lunchapp.dto.SubmissionStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the SubmissionJobStore class.
+ */
+public class SubmissionJobStoreTest {
+
+    private final Instant start = Instant.parse("2024-01-01T12:00:00Z");
+
+    @Test
+    public void testComplete() {
+        SubmissionJobStore store = new SubmissionJobStore(10, Duration.ofMinutes(10), Clock.fixed(start, ZoneOffset.UTC));
+        SubmissionJob job = store.create(UUID.randomUUID(), UUID.randomUUID(), "Sushi");
+        UUID restaurantId = UUID.randomUUID();
+
+        store.complete(job.getJobId(), SubmissionStatus.ADDED, restaurantId, null);
+
+        SubmissionJob completed = store.get(job.getJobId());
+        assertEquals(SubmissionStatus.ADDED, completed.getStatus());
+        assertEquals(restaurantId, completed.getRestaurantId());
+        assertEquals(job.getCreatedAt(), completed.getCreatedAt());
+    }
+
+    @Test
+    public void testExpiredJobsArePurged() {
+        MutableClock clock = new MutableClock(start);
+        SubmissionJobStore store = new SubmissionJobStore(10, Duration.ofMinutes(10), clock);
+        SubmissionJob first = store.create(UUID.randomUUID(), UUID.randomUUID(), "Sushi");
+        clock.now = start.plus(Duration.ofMinutes(5));
+        SubmissionJob second = store.create(UUID.randomUUID(), UUID.randomUUID(), "Pizza");
+
+        clock.now = start.plus(Duration.ofMinutes(10));
+        store.purgeExpired();
+
+        assertEquals(1, store.size());
+        assertNull(store.get(first.getJobId()));
+        assertNotNull(store.get(second.getJobId()));
+    }
+
+    @Test
+    public void testOldestJobIsEvictedWhenFull() {
+        SubmissionJobStore store = new SubmissionJobStore(2, Duration.ofMinutes(10), Clock.fixed(start, ZoneOffset.UTC));
+        SubmissionJob first = store.create(UUID.randomUUID(), UUID.randomUUID(), "Sushi");
+        store.create(UUID.randomUUID(), UUID.randomUUID(), "Pizza");
+        store.create(UUID.randomUUID(), UUID.randomUUID(), "Tacos");
+
+        assertEquals(2, store.size());
+        assertNull(store.get(first.getJobId()));
+        store.complete(first.getJobId(), SubmissionStatus.ADDED, UUID.randomUUID(), null);
+        assertEquals(2, store.size());
+    }
+
+    private static class MutableClock extends Clock {
+        Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
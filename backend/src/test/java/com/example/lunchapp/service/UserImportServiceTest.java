@@ -0,0 +1,108 @@
+package com.example.lunchapp.service;
+
+import com.example.lunchapp.dto.UserImportResult;
+import com.example.lunchapp.dto.UserImportStatus;
+import com.example.lunchapp.model.User;
+import com.example.lunchapp.repository.UserImportRepository;
+import com.example.lunchapp.util.JwtUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class contains unit tests for the UserImportService class.
+ */
+public class UserImportServiceTest {
+
+    @Mock
+    UserImportRepository userImportRepository;
+
+    @Mock
+    UserSearchIndex userSearchIndex;
+
+    @Mock
+    JwtUtil jwtUtil;
+
+    UserImportService importService;
+
+    List<UserImportResult> results;
+
+    @BeforeEach
+    public void init() {
+        MockitoAnnotations.openMocks(this);
+        importService = new UserImportService(userImportRepository, userSearchIndex, jwtUtil, new ObjectMapper(), 2);
+        results = new ArrayList<>();
+        when(userImportRepository.insertAll(anyList()))
+                .thenAnswer(invocation -> {
+                    List<User> users = invocation.getArgument(0);
+                    int[] counts = new int[users.size()];
+                    for (int i = 0; i < counts.length; i++) {
+                        counts[i] = users.get(i).getName().equals("Taken") ? 0 : 1;
+                    }
+                    return counts;
+                });
+    }
+
+    private void importUsers(String file, UserImportService.Format format, boolean tokens) {
+        importService.importUsers(new BufferedReader(new StringReader(file)), format, tokens, results::add);
+    }
+
+    private List<UserImportStatus> statusesByLine() {
+        return results.stream().sorted(Comparator.comparingLong(UserImportResult::getLine))
+                .map(UserImportResult::getStatus).toList();
+    }
+
+    @Test
+    public void testCsvWithHeaderInBatches() {
+        importUsers("email,name\nalice@example.com,Alice\n\n\"b@example.com\",\"Bob, Jr.\"\n,Carol\n", UserImportService.Format.CSV, false);
+
+        assertEquals(List.of(2L, 4L, 5L), results.stream().map(UserImportResult::getLine).toList());
+        assertEquals(List.of("Alice", "Bob, Jr.", "Carol"), results.stream().map(UserImportResult::getName).toList());
+        assertTrue(results.stream().allMatch(result -> result.getStatus() == UserImportStatus.CREATED));
+        assertNotNull(results.get(0).getUserId());
+        assertNull(results.get(0).getToken());
+        // Two full batches of at most two users
+        verify(userImportRepository, times(2)).insertAll(anyList());
+        verify(userSearchIndex, times(3)).add(any());
+        verify(jwtUtil, never()).generateToken(any());
+    }
+
+    @Test
+    public void testCsvWithoutHeaderReportsInvalidAndDuplicateRows() {
+        importUsers("Alice,alice@example.com\n  ,nobody@example.com\nTaken\n\"Open", UserImportService.Format.CSV, false);
+
+        assertEquals(List.of(UserImportStatus.CREATED, UserImportStatus.INVALID, UserImportStatus.DUPLICATE,
+                UserImportStatus.INVALID), statusesByLine());
+        assertEquals("Name is mandatory", results.stream().filter(result -> result.getLine() == 2).findFirst().get().getMessage());
+        assertNull(results.stream().filter(result -> result.getLine() == 3).findFirst().get().getUserId());
+        verify(userSearchIndex, times(1)).add(any());
+    }
+
+    @Test
+    public void testNdjsonIssuesTokens() {
+        when(jwtUtil.generateToken(any())).thenReturn("token");
+
+        importUsers("{\"name\":\"Alice\",\"email\":\"alice@example.com\"}\nnot json\n[1]\n{\"name\":\"" + "x".repeat(256) + "\"}\n",
+                UserImportService.Format.NDJSON, true);
+
+        assertEquals(4, results.size());
+        UserImportResult created = results.stream().filter(result -> result.getLine() == 1).findFirst().get();
+        assertEquals(UserImportStatus.CREATED, created.getStatus());
+        assertEquals("token", created.getToken());
+        assertEquals(3, results.stream().filter(result -> result.getStatus() == UserImportStatus.INVALID).count());
+        verify(userImportRepository, times(1)).insertAll(anyList());
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.lunchapp.service;
+
+import com.example.lunchapp.model.User;
+import com.example.lunchapp.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * This class contains unit tests for the UserSearchIndex class.
+ */
+public class UserSearchIndexTest {
+
+    @Mock
+    UserRepository userRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    UserSearchIndex index;
+
+    User alice;
+
+    User bob;
+
+    @BeforeEach
+    public void init() {
+        MockitoAnnotations.openMocks(this);
+        alice = User.builder().id(UUID.randomUUID()).name("Alice Müller").email("alice@example.com").build();
+        bob = User.builder().id(UUID.randomUUID()).name("Bob").email("bob.smith@example.com").build();
+        when(userRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(alice, bob));
+        index = new UserSearchIndex(userRepository, transactionManager);
+        index.build();
+    }
+
+    @Test
+    public void testSearchByNamePrefix() {
+        assertEquals(List.of(alice), index.search("ali", 10));
+        assertEquals(List.of(alice), index.search("ALICE M", 10));
+    }
+
+    @Test
+    public void testSearchByWordIgnoringAccents() {
+        assertEquals(List.of(alice), index.search("mull", 10));
+        assertEquals(List.of(alice), index.search("Mül", 10));
+    }
+
+    @Test
+    public void testSearchByEmailAfterName() {
+        User bobby = User.builder().id(UUID.randomUUID()).name("Bobby").email("b@example.com").build();
+        index.add(bobby);
+
+        assertEquals(List.of(bob, bobby), index.search("bob", 10));
+        assertEquals(List.of(bob), index.search("bob.", 10));
+    }
+
+    @Test
+    public void testSearchStopsAtLimit() {
+        assertEquals(1, index.search("a", 1).size());
+        assertTrue(index.search(" ", 10).isEmpty());
+    }
+
+    @Test
+    public void testRemove() {
+        index.remove(alice);
+
+        assertTrue(index.search("ali", 10).isEmpty());
+        assertEquals(List.of(bob), index.search("b", 10));
+    }
+}
@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
 
 import java.util.Arrays;
 import java.util.List;
@@ -26,6 +27,9 @@ public class UserServiceTest {
     @Mock
     UserRepository userRepository;
 
+    @Mock
+    UserSearchIndex userSearchIndex;
+
     @InjectMocks
     UserService userService;
 
@@ -38,12 +42,12 @@ public class UserServiceTest {
     public void getAllUsersTest() {
         User user1 = new User();
         User user2 = new User();
-        when(userRepository.findAll()).thenReturn(Arrays.asList(user1, user2));
+        when(userRepository.findAllByOrderByIdAsc(PageRequest.of(0, 10))).thenReturn(Arrays.asList(user1, user2));
 
-        List<User> users = userService.getAllUsers();
+        List<User> users = userService.getUsers(null, 10);
         assertEquals(2, users.size());
 
-        verify(userRepository, times(1)).findAll();
+        verify(userRepository, times(1)).findAllByOrderByIdAsc(PageRequest.of(0, 10));
     }
 
     @Test
@@ -81,6 +85,7 @@ public class UserServiceTest {
         assertEquals(user, savedUser);
 
         verify(userRepository, times(1)).save(user);
+        verify(userSearchIndex, times(1)).add(user);
     }
 
     /**
@@ -92,20 +97,31 @@ public class UserServiceTest {
     @Test
     public void deleteUserTest() {
         UUID id = UUID.randomUUID();
-        when(userRepository.existsById(id)).thenReturn(true);
+        User user = User.builder().id(id).name("Alice").build();
+        when(userRepository.findById(id)).thenReturn(Optional.of(user));
 
         userService.deleteUser(id);
 
-        verify(userRepository, times(1)).deleteById(id);
+        // delete(User) rather than deleteById, so the user is evicted from the cache by name too
+        verify(userRepository, times(1)).delete(user);
+        verify(userSearchIndex, times(1)).remove(user);
+    }
+
+    @Test
+    public void searchUsersTest() {
+        User user = User.builder().id(UUID.randomUUID()).name("Alice").build();
+        when(userSearchIndex.search("al", 10)).thenReturn(List.of(user));
+
+        assertEquals(List.of(user), userService.searchUsers("al", 10));
     }
 
     @Test
     public void deleteUserNotFoundTest() {
         UUID id = UUID.randomUUID();
-        when(userRepository.existsById(id)).thenReturn(false);
+        when(userRepository.findById(id)).thenReturn(Optional.empty());
 
         assertThrows(RuntimeException.class, ()-> userService.deleteUser(id));
 
-        verify(userRepository, times(1)).existsById(id);
+        verify(userRepository, never()).delete(any());
     }
 }
@@ -0,0 +1,116 @@
+package com.example.lunchapp.service.voting;
+
+import com.example.lunchapp.model.Restaurant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the VoteTally and the PickStrategy implementations.
+ */
+public class PickStrategyTest {
+
+    Restaurant sushi;
+
+    Restaurant pizza;
+
+    Restaurant tacos;
+
+    List<Restaurant> candidates;
+
+    @BeforeEach
+    public void initialize() {
+        sushi = Restaurant.builder().id(UUID.randomUUID()).name("Sushi").build();
+        pizza = Restaurant.builder().id(UUID.randomUUID()).name("Pizza").build();
+        tacos = Restaurant.builder().id(UUID.randomUUID()).name("Tacos").build();
+        candidates = List.of(sushi, pizza, tacos);
+    }
+
+    @Test
+    public void testReplacedBallotIsSubtracted() {
+        VoteTally tally = new VoteTally();
+        UUID userId = UUID.randomUUID();
+
+        tally.cast(userId, List.of(sushi.getId(), pizza.getId()));
+        tally.cast(userId, List.of(pizza.getId()));
+
+        assertEquals(0, tally.approvals(sushi.getId()));
+        assertEquals(1, tally.approvals(pizza.getId()));
+        assertEquals(Map.of(userId, List.of(pizza.getId())), tally.drainPending());
+        assertTrue(tally.drainPending().isEmpty());
+    }
+
+    @Test
+    public void testClosedTallyRejectsBallots() {
+        VoteTally tally = new VoteTally();
+        tally.close();
+
+        assertThrows(IllegalStateException.class, () -> tally.cast(UUID.randomUUID(), List.of(sushi.getId())));
+    }
+
+    @Test
+    public void testApprovalPicksMostApproved() {
+        VoteTally tally = VoteTally.of(Map.of(
+                UUID.randomUUID(), List.of(sushi.getId(), pizza.getId()),
+                UUID.randomUUID(), List.of(pizza.getId())));
+
+        assertEquals(pizza, new ApprovalPickStrategy().pick(candidates, tally));
+    }
+
+    /**
+     * Sushi leads the first preferences without a majority; once tacos is eliminated its ballot moves to pizza,
+     * which then wins the runoff.
+     */
+    @Test
+    public void testRankedChoiceRunoff() {
+        VoteTally tally = VoteTally.of(Map.of(
+                UUID.randomUUID(), List.of(sushi.getId()),
+                UUID.randomUUID(), List.of(sushi.getId()),
+                UUID.randomUUID(), List.of(pizza.getId()),
+                UUID.randomUUID(), List.of(pizza.getId(), sushi.getId()),
+                UUID.randomUUID(), List.of(tacos.getId(), pizza.getId())));
+
+        assertEquals(pizza, new RankedChoicePickStrategy().pick(candidates, tally));
+    }
+
+    @Test
+    public void testWeightedRandomOnlyPicksApprovedRestaurants() {
+        VoteTally tally = VoteTally.of(Map.of(UUID.randomUUID(), List.of(tacos.getId())));
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(tacos, new WeightedRandomPickStrategy().pick(candidates, tally));
+        }
+    }
+
+    @Test
+    public void testPickWithoutVotes() {
+        VoteTally tally = new VoteTally();
+
+        assertTrue(candidates.contains(new ApprovalPickStrategy().pick(candidates, tally)));
+        assertTrue(candidates.contains(new RankedChoicePickStrategy().pick(candidates, tally)));
+        assertTrue(candidates.contains(new WeightedRandomPickStrategy().pick(candidates, tally)));
+    }
+
+    @Test
+    public void testWeightedRandomFollowsApprovals() {
+        VoteTally tally = VoteTally.of(Map.of(
+                UUID.randomUUID(), List.of(sushi.getId(), tacos.getId()),
+                UUID.randomUUID(), List.of(tacos.getId()),
+                UUID.randomUUID(), List.of(tacos.getId())));
+        WeightedRandomPickStrategy strategy = new WeightedRandomPickStrategy();
+        Map<Restaurant, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 40000; i++) {
+            counts.merge(strategy.pick(candidates, tally), 1, Integer::sum);
+        }
+
+        assertNull(counts.get(pizza));
+        assertEquals(0.25, counts.get(sushi) / 40000.0, 0.02);
+        assertEquals(0.75, counts.get(tacos) / 40000.0, 0.02);
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.lunchapp.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,8 +9,12 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.util.TestPropertyValues;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.UUID;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -57,4 +62,26 @@ public class JwtUtilTest {
         assertNotNull(claims);
         assertEquals(username, claims.getSubject());
     }
+
+    /**
+     * The second verification of a token is served from the cache and returns the same principal.
+     */
+    @Test
+    public void whenVerifyToken_thenPrincipalCarriesUserIdAndIsCached() {
+        UUID userId = UUID.randomUUID();
+        String token = jwtUtil.generateToken(userId.toString());
+
+        AuthenticatedUser user = jwtUtil.verify(token);
+        assertEquals(userId, user.getId());
+        assertEquals(userId.toString(), user.getName());
+        assertSame(user, jwtUtil.verify(token));
+    }
+
+    @Test
+    public void whenVerifyTamperedToken_thenFails() {
+        String token = jwtUtil.generateToken(UUID.randomUUID().toString());
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> jwtUtil.verify(tampered));
+    }
 }
@@ -0,0 +1,38 @@
+package com.example.lunchapp.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This class contains unit tests for the NdjsonWriter class.
+ */
+public class NdjsonWriterTest {
+
+    @Test
+    public void whenStreamObjects_thenOneLinePerObject() throws Exception {
+        NdjsonWriter ndjsonWriter = new NdjsonWriter(new ObjectMapper());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ndjsonWriter.<Map<String, Integer>>body(consumer -> List.of(Map.of("a", 1), Map.of("b", 2)).forEach(consumer))
+                .writeTo(out);
+
+        assertEquals("{\"a\":1}\n{\"b\":2}\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void whenNothingToStream_thenEmptyBody() throws Exception {
+        NdjsonWriter ndjsonWriter = new NdjsonWriter(new ObjectMapper());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ndjsonWriter.body(consumer -> { }).writeTo(out);
+
+        assertEquals("", out.toString(StandardCharsets.UTF_8));
+    }
+}
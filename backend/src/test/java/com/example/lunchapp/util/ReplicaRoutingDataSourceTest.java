@@ -0,0 +1,127 @@
+package com.example.lunchapp.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the ReplicaRoutingDataSource class, with two H2 databases standing in for the
+ * primary and the replica. Each database answers with its own name.
+ */
+public class ReplicaRoutingDataSourceTest {
+
+    private JdbcTemplate replica;
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    private DataSource dataSource;
+
+    private boolean previousReplicaReads;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primaryDataSource = database("primary");
+        DataSource replicaDataSource = database("replica");
+        replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("CREATE TABLE replica_lag (millis BIGINT)");
+        replica.update("INSERT INTO replica_lag VALUES (0)");
+
+        routingDataSource = new ReplicaRoutingDataSource(primaryDataSource, List.of(replicaDataSource),
+                "SELECT millis FROM replica_lag", 1000, 60000);
+        dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        previousReplicaReads = ReplicaRoutingDataSource.enableReplicaReads();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReplicaRoutingDataSource.restoreReplicaReads(previousReplicaReads);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testReadOnlyTransactionReadsFromReplica() {
+        routingDataSource.checkReplicas();
+
+        assertEquals("replica", answeringDatabase(true));
+        assertEquals(0, routingDataSource.getLagMillis("replica-1"));
+    }
+
+    @Test
+    void testWritesAndUnmarkedReadsGoToPrimary() {
+        routingDataSource.checkReplicas();
+
+        assertEquals("primary", answeringDatabase(false));
+        ReplicaRoutingDataSource.restoreReplicaReads(false);
+        assertEquals("primary", answeringDatabase(true));
+    }
+
+    @Test
+    void testFallsBackToPrimaryUntilReplicaCatchesUp() {
+        assertEquals("primary", answeringDatabase(true), "unmeasured replicas are not used");
+
+        replica.update("UPDATE replica_lag SET millis = 5000");
+        routingDataSource.checkReplicas();
+        assertEquals("primary", answeringDatabase(true));
+        assertEquals(5000, routingDataSource.getLagMillis("replica-1"));
+
+        replica.update("UPDATE replica_lag SET millis = 10");
+        routingDataSource.checkReplicas();
+        assertEquals("replica", answeringDatabase(true));
+    }
+
+    @Test
+    void testFallsBackToPrimaryWhenLagCannotBeMeasured() {
+        replica.execute("DROP TABLE replica_lag");
+        routingDataSource.checkReplicas();
+
+        assertEquals("primary", answeringDatabase(true));
+        assertTrue(Double.isNaN(routingDataSource.getLagMillis("replica-1")));
+    }
+
+    @Test
+    void testUserReadsOwnWritesFromPrimary() {
+        routingDataSource.checkReplicas();
+        authenticate(UUID.randomUUID());
+        routingDataSource.stickCurrentUserToPrimary();
+
+        assertEquals("primary", answeringDatabase(true));
+
+        authenticate(UUID.randomUUID());
+        assertEquals("replica", answeringDatabase(true));
+    }
+
+    private String answeringDatabase(boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("SELECT name FROM node", String.class));
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE node (name VARCHAR(16))");
+        jdbcTemplate.update("INSERT INTO node VALUES (?)", name);
+        return dataSource;
+    }
+
+    private static void authenticate(UUID userId) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(new AuthenticatedUser(userId), null, Collections.emptyList()));
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.lunchapp.util;
+
+import com.example.lunchapp.config.AsyncConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the SubmissionExecutor class.
+ */
+public class SubmissionExecutorTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private SubmissionExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    /**
+     * Fills one thread and one queue slot, then checks that the next task is rejected and counted.
+     */
+    @Test
+    void testBoundedRejectsWhenSaturated() throws Exception {
+        executor = SubmissionExecutor.bounded(1, 1, 1, "test-");
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            await();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.execute(this::await);
+
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(this::await));
+        assertEquals(SubmissionExecutor.Mode.BOUNDED, executor.getMode());
+        assertEquals(1, executor.getActiveTasks());
+        assertEquals(1, executor.getQueueDepth());
+        assertEquals(1, executor.getRejectedTasks());
+    }
+
+    @Test
+    void testMetricsExposeSaturation() throws Exception {
+        executor = SubmissionExecutor.bounded(1, 1, 1, "test-");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new AsyncConfig().taskExecutorMetrics(executor).bindTo(registry);
+        executor.execute(this::await);
+        executor.execute(this::await);
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(this::await));
+
+        assertEquals(1, registry.get("lunchapp.submissions.queued").tag("mode", "BOUNDED").gauge().value());
+        assertEquals(2, registry.get("lunchapp.submissions.capacity").gauge().value());
+        assertEquals(1, registry.get("lunchapp.submissions.rejected").functionCounter().count());
+    }
+
+    @Test
+    void testVirtualCapsTasksInFlight() throws Exception {
+        executor = SubmissionExecutor.virtual(1).orElse(null);
+        if (executor == null) {
+            // Java 17: virtual threads are not available, the configuration falls back to the bounded mode
+            executor = SubmissionExecutor.bounded(1, 1, 1, "test-");
+            return;
+        }
+        executor.execute(this::await);
+
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(this::await));
+        assertEquals(1, executor.getRejectedTasks());
+    }
+
+    private void await() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
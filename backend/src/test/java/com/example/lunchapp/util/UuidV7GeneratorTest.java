@@ -0,0 +1,68 @@
+package com.example.lunchapp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class contains unit tests for the UuidV7Generator class.
+ */
+public class UuidV7GeneratorTest {
+
+    @Test
+    public void testLayout() {
+        long before = System.currentTimeMillis();
+        UUID id = UuidV7Generator.next();
+        long after = System.currentTimeMillis();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        long millis = id.getMostSignificantBits() >>> 16;
+        assertTrue(millis >= before && millis <= after);
+    }
+
+    @Test
+    public void testIdsSortByCreationTime() throws InterruptedException {
+        UUID first = UuidV7Generator.next();
+        Thread.sleep(2);
+        UUID second = UuidV7Generator.next();
+
+        // Databases order uuid values by their bytes, which is the order of their text form
+        assertTrue(first.toString().compareTo(second.toString()) < 0);
+    }
+
+    @Test
+    public void testConcurrentIdsAreUnique() throws Exception {
+        int threads = 4;
+        int perThread = 50_000;
+        Set<UUID> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> runs = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                runs.add(executor.submit(() -> {
+                    for (int j = 0; j < perThread; j++) {
+                        ids.add(UuidV7Generator.next());
+                    }
+                }));
+            }
+            for (Future<?> run : runs) {
+                run.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * perThread, ids.size());
+    }
+}
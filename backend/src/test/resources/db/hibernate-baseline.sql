@@ -0,0 +1,15 @@
+-- The schema Hibernate 5.6 generated for the entities of the app before Flyway owned the schema, with PostgreSQLDialect
+-- and the Spring naming strategies. Production databases were created from it with ddl-auto=update.
+create table app_user (id varchar(255) not null, email varchar(255), name varchar(255), primary key (id));
+create table restaurant (id varchar(255) not null, name varchar(255), primary key (id));
+create table session (id varchar(255) not null, is_active boolean not null, creator_id varchar(255) not null, picked_restaurant_id varchar(255), primary key (id));
+create table session_restaurants (session_id varchar(255) not null, restaurant_id varchar(255) not null, primary key (session_id, restaurant_id));
+create table session_users (session_id varchar(255) not null, user_id varchar(255) not null, primary key (session_id, user_id));
+alter table app_user add constraint UK_ca699byqpy39i3fkohu5ya69m unique (name);
+alter table session_restaurants add constraint UK_3lind7navp0qs5sd1ffwais3x unique (restaurant_id);
+alter table session add constraint FKiyu13axda5mq6sp4aao5l179y foreign key (creator_id) references app_user;
+alter table session add constraint FK3ddp9o0hcf5qd0f805uuk8ja8 foreign key (picked_restaurant_id) references restaurant;
+alter table session_restaurants add constraint FKep8vg9yvy8q1pq4yvhbff2n0l foreign key (restaurant_id) references restaurant;
+alter table session_restaurants add constraint FKkkl5gs4vnu3p01xst9lxgqxd8 foreign key (session_id) references session;
+alter table session_users add constraint FKg6x7xtnotaue5eayxnc593xg2 foreign key (user_id) references app_user;
+alter table session_users add constraint FKopi1g2edldhsym909l1mor8if foreign key (session_id) references session;
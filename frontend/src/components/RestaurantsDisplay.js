@@ -1,5 +1,6 @@
 import React, { useState, useEffect } from 'react';
 import api from '../services/api';
+import { subscribeToSessionEvents } from '../services/sessionEvents';
 
 /**
  * Represents the component for displaying submitted restaurants.
@@ -12,10 +13,6 @@ const RestaurantsDisplay = ({ sessionId }) => {
     const [restaurants, setRestaurants] = useState([]);
 
     useEffect(() => {
-        const interval = setInterval(() => {
-            fetchRestaurants();
-        }, 30000); // 每30秒更新一次餐厅列表
-
         const fetchRestaurants = async () => {
             try {
                 const response = await api.get(`/sessions/${sessionId}`);
@@ -26,7 +23,16 @@ const RestaurantsDisplay = ({ sessionId }) => {
         };
 
         fetchRestaurants();
-        return () => clearInterval(interval);
+        // new restaurants are pushed by the server instead of polled
+        return subscribeToSessionEvents(sessionId, (name, data) => {
+            if (name === 'RESTAURANT_ADDED') {
+                setRestaurants(current => current.some(restaurant => restaurant.id === data.targetId)
+                    ? current
+                    : [...current, { id: data.targetId, name: data.name }]);
+            } else if (name === 'resync') {
+                fetchRestaurants();
+            }
+        });
     }, [sessionId]);
 
     return (
@@ -1,6 +1,29 @@
 import React, { useState } from 'react';
 import api from '../services/api';
 
+const POLL_INTERVAL_MS = 500;
+const MAX_POLLS = 20;
+
+const sleep = (ms) => new Promise(resolve => setTimeout(resolve, ms));
+
+/**
+ * Polls a submission job until it leaves the PENDING state.
+ *
+ * @param {string} sessionId - The session ID.
+ * @param {string} jobId - The job ID returned by the submission.
+ * @returns {Promise<Object|null>} - The finished job, or null if it is still pending after the last poll.
+ */
+const waitForJob = async (sessionId, jobId) => {
+    for (let i = 0; i < MAX_POLLS; i++) {
+        await sleep(POLL_INTERVAL_MS);
+        const response = await api.get(`sessions/${sessionId}/restaurants/jobs/${jobId}`);
+        if (response.data.status !== 'PENDING') {
+            return response.data;
+        }
+    }
+    return null;
+};
+
 /**
  * Represents a component that allows users to submit a restaurant.
  *
@@ -19,12 +42,26 @@ const RestaurantSubmission = ({ sessionId }) => {
         }
         try {
             const addRestaurantRequest = { restaurantName };
-            await api.post(`sessions/${sessionId}/restaurants`, addRestaurantRequest);
-            alert('Restaurant submitted successfully!');
+            const response = await api.post(`sessions/${sessionId}/restaurants`, addRestaurantRequest);
+            const job = await waitForJob(sessionId, response.data.jobId);
+            if (job === null) {
+                alert('Restaurant submitted, it will show up shortly.');
+            } else if (job.status === 'ADDED') {
+                alert('Restaurant submitted successfully!');
+            } else if (job.status === 'ALREADY_SUBMITTED') {
+                alert('This restaurant was already submitted.');
+            } else {
+                alert(`Failed to submit restaurant: ${job.message}`);
+                return;
+            }
             setRestaurantName('');  // Clear the input after successful submission
         } catch (error) {
             console.error('Failed to submit restaurant:', error.response ? error.response.data : 'Unknown error');
-            alert('Failed to submit restaurant. Please try again.');
+            if (error.response && error.response.status === 429) {
+                alert('The server is busy. Please try again in a moment.');
+            } else {
+                alert('Failed to submit restaurant. Please try again.');
+            }
         }
     };
 
@@ -51,12 +51,8 @@ const SessionDisplay = () => {
             {sessions.map((session) => (
                 <div key={session.id}>
                     <h3>Session ID: {session.id}</h3>
-                    <p>Creator: {session.creatorId}</p>
-                    <ul>
-                        {session.restaurants.map(restaurant => (
-                            <li key={restaurant.id}>{restaurant.name}</li>
-                        ))}
-                    </ul>
+                    <p>Creator: {session.creatorName}</p>
+                    <p>Participants: {session.participantCount}, Restaurants: {session.restaurantCount}</p>
                     <button onClick={() => handleEndSession(session.id)}>End Session</button>
                 </div>
             ))}
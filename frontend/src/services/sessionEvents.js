@@ -0,0 +1,88 @@
+const API_KEY = process.env.REACT_APP_API_KEY;
+const API_URL = 'http://localhost:8080'; // Base URL for API
+const RECONNECT_DELAY_MS = 3000;
+
+/**
+ * Follows the server-sent events of a session. EventSource cannot send the API key and JWT headers,
+ * so the stream is read with fetch. On reconnect the last seen event id is sent back, so only missed
+ * events are replayed.
+ *
+ * @param {string} sessionId - The session ID.
+ * @param {function(string, Object): void} onEvent - Called with the event name and its parsed data.
+ * @returns {function(): void} A function that closes the subscription.
+ */
+export const subscribeToSessionEvents = (sessionId, onEvent) => {
+    const controller = new AbortController();
+    let lastEventId = null;
+    let closed = false;
+
+    const dispatch = (block) => {
+        let name = 'message';
+        let data = '';
+        block.split('\n').forEach(line => {
+            if (line.startsWith('id:')) {
+                lastEventId = line.slice(3).trim();
+            } else if (line.startsWith('event:')) {
+                name = line.slice(6).trim();
+            } else if (line.startsWith('data:')) {
+                data += line.slice(5).trim();
+            }
+        });
+        if (data) {
+            onEvent(name, JSON.parse(data));
+        }
+    };
+
+    const connect = async () => {
+        const headers = { 'X-API-KEY': API_KEY, 'Accept': 'text/event-stream' };
+        const token = localStorage.getItem('jwt');
+        if (token) {
+            headers['Authorization'] = `Bearer ${token}`;
+        }
+        if (lastEventId) {
+            headers['Last-Event-ID'] = lastEventId;
+        }
+
+        try {
+            const response = await fetch(`${API_URL}/sessions/${sessionId}/events`, {
+                headers,
+                credentials: 'include',
+                signal: controller.signal
+            });
+            if (!response.ok) {
+                // the session is gone or has ended, nothing more to follow
+                return;
+            }
+
+            const reader = response.body.getReader();
+            const decoder = new TextDecoder();
+            let buffer = '';
+            for (;;) {
+                const { value, done } = await reader.read();
+                if (done) {
+                    break;
+                }
+                buffer += decoder.decode(value, { stream: true });
+                let boundary;
+                while ((boundary = buffer.indexOf('\n\n')) >= 0) {
+                    dispatch(buffer.slice(0, boundary));
+                    buffer = buffer.slice(boundary + 2);
+                }
+            }
+        } catch (error) {
+            if (closed) {
+                return;
+            }
+            console.error('Session event stream failed', error);
+        }
+        if (!closed) {
+            setTimeout(connect, RECONNECT_DELAY_MS);
+        }
+    };
+
+    connect();
+    return () => {
+        closed = true;
+        controller.abort();
+    };
+};